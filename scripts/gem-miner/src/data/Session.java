@@ -0,0 +1,28 @@
+package data;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import data.Locations.MiningLocation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Mining progress, rock respawn timers and setup flags for one gem-miner run.
+ */
+public final class Session {
+    public State state = State.SETUP;
+    public boolean setupComplete = false;
+    public long startTimeMs = 0;
+    public int gemsMined = 0;
+    public double startMiningXp = 0;
+    public int startMiningLevel = 0;
+    public final Set<WorldPosition> waitingRespawn = new HashSet<>();
+    public boolean lastMineGainedXp = false;
+    public WorldPosition lastWalkTarget = null;
+    public Double gemXpPerRock = null;
+    public MiningLocation selectedLocation = Locations.UPPER;
+    public boolean zoomConfigured = false;
+    public long lastZoomAttemptMs = 0;
+    public boolean statsInitialized = false;
+    public Integer lastKnownMiningLevel = null;
+}
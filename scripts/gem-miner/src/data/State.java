@@ -0,0 +1,7 @@
+package data;
+
+public enum State {
+    SETUP,
+    MINING,
+    BANKING
+}
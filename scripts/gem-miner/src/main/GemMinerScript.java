@@ -6,24 +6,24 @@ import com.osmb.api.script.SkillCategory;
 import com.osmb.api.ui.component.tabs.skill.SkillType;
 import com.osmb.api.ui.component.tabs.skill.SkillsTabComponent;
 import com.osmb.api.visual.drawing.Canvas;
-import data.Locations;
-import data.Locations.MiningLocation;
+import data.Session;
 import javafx.scene.Scene;
 import utils.Webhook;
+import utils.WebhookOutbox;
 import utils.Webhook.WebhookData;
 import tasks.BankTask;
 import tasks.MineTask;
 import tasks.SetupTask;
+import utils.FrameSnapshot;
+import utils.Metrics;
 import utils.Task;
+import utils.TaskTimings;
 
 import java.awt.Color;
 import java.awt.Font;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-
-import com.osmb.api.location.position.types.WorldPosition;
 
 @ScriptDefinition(
   author = "eqp48",
@@ -35,46 +35,28 @@ import com.osmb.api.location.position.types.WorldPosition;
 public class GemMinerScript extends Script {
   private static final String VERSION = "1.1";
 
-  public enum State {
-    SETUP,
-    MINING,
-    BANKING
-  }
-
-  public static State state = State.SETUP;
-  public static boolean setupComplete = false;
-  public static long startTimeMs = 0;
-  public static int gemsMined = 0;
-  public static double startMiningXp = 0;
-  public static int startMiningLevel = 0;
-  public static final Set<WorldPosition> waitingRespawn = new HashSet<>();
-  public static boolean lastMineGainedXp = false;
-  public static WorldPosition lastWalkTarget = null;
-  public static Double gemXpPerRock = null;
-  public static MiningLocation selectedLocation = Locations.UPPER;
-  public static boolean zoomConfigured = false;
-  public static long lastZoomAttemptMs = 0;
   public static final long ZOOM_RETRY_MS = 4_000;
-  public static boolean statsInitialized = false;
-  public static Integer lastKnownMiningLevel = null;
 
+  private final Session session = new Session();
   private GUI gui;
   private Webhook webhook;
+  private final Metrics metrics = new Metrics("gem-miner", this::log);
   private volatile boolean settingsConfirmed = false;
   private List<Task> tasks;
+  private final TaskTimings taskTimings = new TaskTimings();
 
   public GemMinerScript(Object scriptCore) {
     super(scriptCore);
-    webhook = new Webhook(this::buildWebhookData, s -> {});
+    webhook = new Webhook(this::buildWebhookData, s -> {}, WebhookOutbox.defaultDirectory("gem-miner"));
   }
 
   @Override
   public void onStart() {
-    gui = new GUI(selectedLocation, webhook.getConfig());
+    gui = new GUI(session.selectedLocation, webhook.getConfig());
     gui.setOnStart(() -> {
-      selectedLocation = gui.getSelectedLocation();
+      session.selectedLocation = gui.getSelectedLocation();
       webhook.applyConfig(gui.buildWebhookConfig());
-      if (selectedLocation == null) {
+      if (session.selectedLocation == null) {
         settingsConfirmed = false;
         return;
       }
@@ -82,12 +64,22 @@ public class GemMinerScript extends Script {
       gui.closeWindow();
 
       tasks = new ArrayList<>();
-      tasks.add(new SetupTask(this));
-      tasks.add(new BankTask(this));
-      tasks.add(new MineTask(this));
+      tasks.add(new SetupTask(this, session));
+      tasks.add(new BankTask(this, session));
+      tasks.add(new MineTask(this, session));
     });
     Scene scene = new Scene(gui);
     getStageController().show(scene, "Gem Miner Settings", false);
+    registerMetrics();
+  }
+
+  private void registerMetrics() {
+    metrics
+      .counter("osmb_items_mined_total", "Gems mined this session", () -> session.gemsMined)
+      .counter("osmb_xp_gained_total", "Mining XP gained this session", () -> session.statsInitialized ? Math.max(0, getMiningXp(this) - session.startMiningXp) : 0)
+      .gauge("osmb_runtime_seconds", "Seconds since the script started", () -> session.startTimeMs > 0 ? (System.currentTimeMillis() - session.startTimeMs) / 1000 : 0)
+      .state("osmb_state", "Current script state", () -> session.state.name())
+      .start();
   }
 
   @Override
@@ -101,18 +93,20 @@ public class GemMinerScript extends Script {
       return 600;
     }
 
-    if (getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
+    FrameSnapshot frame = new FrameSnapshot(this, Collections.emptySet());
+    if (!frame.isLoggedIn()) {
       return 600;
     }
 
     webhook.ensureStarted(() -> webhook.enqueueEvent("Stopped"));
     webhook.queuePeriodicWebhookIfDue();
     webhook.dispatchPendingWebhooks();
+    metrics.sampleIfDue();
 
     if (tasks != null) {
       for (Task task : tasks) {
-        if (task.activate()) {
-          task.execute();
+        if (taskTimings.activate(task, frame)) {
+          taskTimings.execute(task, frame);
           return 0;
         }
       }
@@ -132,20 +126,20 @@ public class GemMinerScript extends Script {
     return 0;
   }
 
-  public static int getMiningLevel(Script script) {
+  public static int getMiningLevel(Script script, Session session) {
     if (script.getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
-      return lastKnownMiningLevel != null ? lastKnownMiningLevel : 0;
+      return session.lastKnownMiningLevel != null ? session.lastKnownMiningLevel : 0;
     }
     try {
       SkillsTabComponent.SkillLevel skill = script.getWidgetManager().getSkillTab().getSkillLevel(SkillType.MINING);
       if (skill != null) {
-        lastKnownMiningLevel = skill.getLevel();
-        return lastKnownMiningLevel;
+        session.lastKnownMiningLevel = skill.getLevel();
+        return session.lastKnownMiningLevel;
       }
     } catch (Exception e) {
-      return lastKnownMiningLevel != null ? lastKnownMiningLevel : 0;
+      return session.lastKnownMiningLevel != null ? session.lastKnownMiningLevel : 0;
     }
-    return lastKnownMiningLevel != null ? lastKnownMiningLevel : 0;
+    return session.lastKnownMiningLevel != null ? session.lastKnownMiningLevel : 0;
   }
 
   @Override
@@ -156,10 +150,11 @@ public class GemMinerScript extends Script {
     try {
       int x = 6;
       int y = 32;
-      int width = 180;
+      int timingLines = taskTimings.size();
+      int width = timingLines > 0 ? 240 : 180;
       int padding = 8;
       int lineHeight = 16;
-      int height = padding * 2 + lineHeight * 5;
+      int height = padding * 2 + lineHeight * (5 + timingLines);
 
       c.fillRect(x, y, width, height, new Color(10, 10, 10, 190).getRGB(), 1);
       c.drawRect(x, y, width, height, Color.WHITE.getRGB());
@@ -167,13 +162,17 @@ public class GemMinerScript extends Script {
       int textY = y + padding + 12;
       c.drawText("Gem Miner - v" + VERSION, x + padding, textY, Color.YELLOW.getRGB(), new Font("Arial", Font.BOLD, 12));
       textY += lineHeight;
-      c.drawText("Location: " + selectedLocation.displayName(), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+      c.drawText("Location: " + session.selectedLocation.displayName(), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
       textY += lineHeight;
-      c.drawText("State: " + state.name(), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+      c.drawText("State: " + session.state.name(), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
       textY += lineHeight;
-      c.drawText("Gems mined: " + gemsMined, x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+      c.drawText("Gems mined: " + session.gemsMined, x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
       textY += lineHeight;
-      c.drawText("Runtime: " + formatRuntime(System.currentTimeMillis() - startTimeMs), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 12));
+      c.drawText("Runtime: " + formatRuntime(System.currentTimeMillis() - session.startTimeMs), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 12));
+      for (int i = 0; i < timingLines; i++) {
+        textY += lineHeight;
+        c.drawText(taskTimings.overlayLine(i), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 11));
+      }
     } catch (Exception e) {
     }
   }
@@ -189,20 +188,23 @@ public class GemMinerScript extends Script {
 
   private WebhookData buildWebhookData() {
     double currentXp = getMiningXp(this);
-    int currentLevel = getMiningLevel(this);
-    long runtimeMs = System.currentTimeMillis() - startTimeMs;
-    long xpGained = Math.max(0, Math.round(currentXp - startMiningXp));
-    int levelsGained = Math.max(0, currentLevel - startMiningLevel);
+    int currentLevel = getMiningLevel(this, session);
+    long runtimeMs = System.currentTimeMillis() - session.startTimeMs;
+    long xpGained = Math.max(0, Math.round(currentXp - session.startMiningXp));
+    int levelsGained = Math.max(0, currentLevel - session.startMiningLevel);
     String runtimeText = formatRuntime(runtimeMs);
     int interval = webhook.getIntervalMinutes();
-    return new WebhookData(gemsMined, xpGained, levelsGained, runtimeText, interval);
+    return new WebhookData(session.gemsMined, xpGained, levelsGained, runtimeText, interval);
   }
 
   @Override
   public void stop() {
+    taskTimings.dump(this);
+    metrics.close();
     try {
       webhook.enqueueEvent("Stopped");
       webhook.dispatchPendingWebhooks();
+      webhook.shutdown();
     } catch (Exception ignored) {
     }
     super.stop();
@@ -1,42 +1,37 @@
 package tasks;
 
-import main.GemMinerScript;
+import data.Session;
+import data.State;
 import data.Locations.MiningLocation;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.location.position.types.WorldPosition;
 import com.osmb.api.scene.RSObject;
 import com.osmb.api.script.Script;
 import com.osmb.api.ui.depositbox.DepositBox;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Collections;
 
 public class BankTask extends Task {
 
-    public BankTask(Script script) {
+    private final Session session;
+
+    public BankTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        var inventoryComponent = script.getWidgetManager().getInventory();
-        if (inventoryComponent == null) {
-            return false;
-        }
-
-        ItemGroupResult inventory = inventoryComponent.search(Collections.emptySet());
-        if (inventory == null) {
-            return false;
-        }
-
-        return inventory.isFull();
+    public boolean activate(FrameSnapshot frame) {
+        return frame.isInventoryFull();
     }
 
     @Override
-    public boolean execute() {
-        GemMinerScript.state = GemMinerScript.State.BANKING;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.BANKING;
 
-        MiningLocation location = GemMinerScript.selectedLocation;
+        MiningLocation location = session.selectedLocation;
         DepositBox depositBox = script.getWidgetManager().getDepositBox();
         if (depositBox != null && depositBox.isVisible()) {
             depositInventory(depositBox);
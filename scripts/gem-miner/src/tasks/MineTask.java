@@ -1,5 +1,7 @@
 package tasks;
 
+import data.Session;
+import data.State;
 import main.GemMinerScript;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.location.position.types.WorldPosition;
@@ -10,6 +12,7 @@ import com.osmb.api.shape.Rectangle;
 import com.osmb.api.ui.component.tabs.skill.SkillType;
 import com.osmb.api.utils.timing.Timer;
 import com.osmb.api.input.MenuEntry;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Collections;
@@ -20,20 +23,23 @@ public class MineTask extends Task {
 
     private static final String TARGET_OBJECT_NAME = "Gem rocks";
 
-    public MineTask(Script script) {
+    private final Session session;
+
+    public MineTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        return GemMinerScript.setupComplete && !isInventoryFull();
+    public boolean activate(FrameSnapshot frame) {
+        return session.setupComplete && !frame.isInventoryFull();
     }
 
     @Override
-    public boolean execute() {
-        GemMinerScript.state = GemMinerScript.State.MINING;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.MINING;
 
-        WorldPosition myPos = script.getWorldPosition();
+        WorldPosition myPos = frame.getWorldPosition();
         if (myPos == null) {
             return false;
         }
@@ -49,9 +55,9 @@ public class MineTask extends Task {
         );
 
         if (gemRocks == null || gemRocks.isEmpty()) {
-            GemMinerScript.lastWalkTarget = null;
+            session.lastWalkTarget = null;
             if (respawnCircles == null || respawnCircles.isEmpty()) {
-                WorldPosition mineAnchor = GemMinerScript.selectedLocation.minePosition();
+                WorldPosition mineAnchor = session.selectedLocation.minePosition();
                 if (mineAnchor != null) {
                     script.getWalker().walkTo(mineAnchor, new com.osmb.api.walker.WalkConfig.Builder()
                         .breakCondition(this::hasMineableGemOnScreen)
@@ -61,13 +67,13 @@ public class MineTask extends Task {
             return false;
         }
 
-        if (GemMinerScript.lastWalkTarget != null) {
-            gemRocks.sort(Comparator.comparingDouble(o -> o.getWorldPosition().distanceTo(GemMinerScript.lastWalkTarget)));
+        if (session.lastWalkTarget != null) {
+            gemRocks.sort(Comparator.comparingDouble(o -> o.getWorldPosition().distanceTo(session.lastWalkTarget)));
         } else {
             gemRocks.sort(Comparator.comparingDouble(o -> o.getWorldPosition().distanceTo(myPos)));
         }
         RSObject gemRock = gemRocks.get(0);
-        GemMinerScript.lastWalkTarget = null;
+        session.lastWalkTarget = null;
         if (gemRock == null) {
             return false;
         }
@@ -82,22 +88,12 @@ public class MineTask extends Task {
 
         boolean mined = waitForMiningCompletion(gemRock.getWorldPosition());
         if (mined && gemRock.getWorldPosition() != null) {
-            GemMinerScript.waitingRespawn.add(gemRock.getWorldPosition());
+            session.waitingRespawn.add(gemRock.getWorldPosition());
         }
 
         return false;
     }
 
-    private boolean isInventoryFull() {
-        var inventoryComponent = script.getWidgetManager().getInventory();
-        if (inventoryComponent == null) {
-            return false;
-        }
-
-        ItemGroupResult inventory = inventoryComponent.search(Collections.emptySet());
-        return inventory != null && inventory.isFull();
-    }
-
     private boolean isGemRock(RSObject object) {
         if (object == null || object.getName() == null) {
             return false;
@@ -124,11 +120,11 @@ public class MineTask extends Task {
 
     private boolean allowRock(WorldPosition position, List<WorldPosition> respawnCircles) {
         boolean hasRespawnCircle = respawnCircles != null && respawnCircles.contains(position);
-        if (GemMinerScript.waitingRespawn.contains(position)) {
+        if (session.waitingRespawn.contains(position)) {
             if (!hasRespawnCircle) {
                 return false;
             }
-            GemMinerScript.waitingRespawn.remove(position);
+            session.waitingRespawn.remove(position);
             return false;
         }
         return !hasRespawnCircle;
@@ -177,13 +173,13 @@ public class MineTask extends Task {
             double currentXp = GemMinerScript.getMiningXp(script);
             double xpGain = currentXp - lastXp[0];
             if (xpGain > 0) {
-                if (GemMinerScript.gemXpPerRock == null || xpGain < GemMinerScript.gemXpPerRock) {
-                    GemMinerScript.gemXpPerRock = xpGain;
+                if (session.gemXpPerRock == null || xpGain < session.gemXpPerRock) {
+                    session.gemXpPerRock = xpGain;
                 }
-                double denom = GemMinerScript.gemXpPerRock != null && GemMinerScript.gemXpPerRock > 0 ? GemMinerScript.gemXpPerRock : xpGain;
+                double denom = session.gemXpPerRock != null && session.gemXpPerRock > 0 ? session.gemXpPerRock : xpGain;
                 int ticks = (int) Math.max(1, Math.round(xpGain / denom));
-                GemMinerScript.gemsMined += ticks;
-                GemMinerScript.lastMineGainedXp = true;
+                session.gemsMined += ticks;
+                session.lastMineGainedXp = true;
             }
             lastXp[0] = currentXp;
 
@@ -191,7 +187,7 @@ public class MineTask extends Task {
         }, script.random(6_000, 8_000));
 
         if (respawnSeen[0] && targetPos != null) {
-            GemMinerScript.waitingRespawn.add(targetPos);
+            session.waitingRespawn.add(targetPos);
         }
         return completed;
     }
@@ -1,24 +1,30 @@
 package tasks;
 
+import data.Session;
+import data.State;
 import main.GemMinerScript;
 import com.osmb.api.script.Script;
 import com.osmb.api.ui.tabs.Tab;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class SetupTask extends Task {
 
-    public SetupTask(Script script) {
+    private final Session session;
+
+    public SetupTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        return !GemMinerScript.setupComplete;
+    public boolean activate(FrameSnapshot frame) {
+        return !session.setupComplete;
     }
 
     @Override
-    public boolean execute() {
-        GemMinerScript.state = GemMinerScript.State.SETUP;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.SETUP;
 
         if (!ensureInventoryTabOpen()) {
             return false;
@@ -27,12 +33,12 @@ public class SetupTask extends Task {
         ensureZoomConfigured();
         ensureStatsInitialized();
 
-        if (GemMinerScript.startTimeMs == 0) {
-            GemMinerScript.startTimeMs = System.currentTimeMillis();
+        if (session.startTimeMs == 0) {
+            session.startTimeMs = System.currentTimeMillis();
         }
 
-        GemMinerScript.setupComplete = true;
-        GemMinerScript.state = GemMinerScript.State.MINING;
+        session.setupComplete = true;
+        session.state = State.MINING;
         return false;
     }
 
@@ -64,32 +70,32 @@ public class SetupTask extends Task {
     }
 
     private void ensureZoomConfigured() {
-        if (GemMinerScript.zoomConfigured) {
+        if (session.zoomConfigured) {
             return;
         }
         if (script.getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
             return;
         }
         long now = System.currentTimeMillis();
-        if (now - GemMinerScript.lastZoomAttemptMs < GemMinerScript.ZOOM_RETRY_MS) {
+        if (now - session.lastZoomAttemptMs < GemMinerScript.ZOOM_RETRY_MS) {
             return;
         }
-        GemMinerScript.lastZoomAttemptMs = now;
+        session.lastZoomAttemptMs = now;
         boolean set = script.getWidgetManager().getSettings().setZoomLevel(0);
         if (set) {
-            GemMinerScript.zoomConfigured = true;
+            session.zoomConfigured = true;
         }
     }
 
     private void ensureStatsInitialized() {
-        if (GemMinerScript.statsInitialized) {
+        if (session.statsInitialized) {
             return;
         }
         if (script.getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
             return;
         }
-        GemMinerScript.startMiningXp = GemMinerScript.getMiningXp(script);
-        GemMinerScript.startMiningLevel = GemMinerScript.getMiningLevel(script);
-        GemMinerScript.statsInitialized = true;
+        session.startMiningXp = GemMinerScript.getMiningXp(script);
+        session.startMiningLevel = GemMinerScript.getMiningLevel(script, session);
+        session.statsInitialized = true;
     }
 }
@@ -0,0 +1,37 @@
+package data;
+
+import com.osmb.api.location.area.Area;
+import com.osmb.api.location.position.types.WorldPosition;
+import data.Locations.FarmerLocation;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Location, banking and food state for one pickpocketing run.
+ */
+public final class Session {
+    public State state = State.SETUP;
+    public boolean setupComplete = false;
+    public boolean needToBank = false;
+    public boolean needsFoodRestock = false;
+    public boolean stunned = false;
+    public Integer foodItemId = null;
+
+    public Area thievingArea;
+    public Area bankArea;
+    public WorldPosition anchorTile;
+    public String locationLabel = "Unknown";
+    public FarmerLocation selectedLocation;
+    public Set<Integer> keepItemIds = new HashSet<>();
+
+    public final long startTime = System.currentTimeMillis();
+
+    public void applyLocation(FarmerLocation loc) {
+        if (loc == null) return;
+        thievingArea = loc.thievingArea();
+        bankArea = loc.bankArea();
+        anchorTile = loc.anchor();
+        locationLabel = loc.name();
+    }
+}
@@ -0,0 +1,10 @@
+package data;
+
+public enum State {
+    SETUP,
+    PICKPOCKET,
+    BANK,
+    STUNNED,
+    EATING,
+    STOPPED
+}
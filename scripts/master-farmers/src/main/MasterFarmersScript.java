@@ -1,22 +1,24 @@
 package main;
 
-import com.osmb.api.location.area.Area;
-import com.osmb.api.location.position.types.WorldPosition;
 import com.osmb.api.item.ItemID;
 import com.osmb.api.script.Script;
 import com.osmb.api.script.ScriptDefinition;
 import com.osmb.api.script.SkillCategory;
 import com.osmb.api.trackers.experience.XPTracker;
 import com.osmb.api.visual.drawing.Canvas;
-import data.Locations;
-import data.Locations.FarmerLocation;
+import data.Session;
+import data.State;
 import tasks.BankTask;
 import tasks.CoinPouchTask;
 import tasks.EatTask;
 import tasks.PickpocketTask;
 import tasks.SetupTask;
 import tasks.StunHandlerTask;
+import utils.ChatStream;
+import utils.FrameSnapshot;
+import utils.Metrics;
 import utils.Task;
+import utils.TaskTimings;
 import utils.XPTracking;
 
 import java.awt.Color;
@@ -38,29 +40,8 @@ import javafx.scene.Scene;
 )
 public class MasterFarmersScript extends Script {
 
-    public enum State {
-        SETUP,
-        PICKPOCKET,
-        BANK,
-        STUNNED,
-        EATING,
-        STOPPED
-    }
-
-    public static State state = State.SETUP;
-    public static boolean setupComplete = false;
-    public static boolean needToBank = false;
-    public static boolean needsFoodRestock = false;
-    public static boolean stunned = false;
-    public static Integer foodItemId = null;
     public static final int HP_THRESHOLD = 50;
 
-    public static Area thievingArea;
-    public static Area bankArea;
-    public static WorldPosition anchorTile;
-    public static String locationLabel = "Unknown";
-    public static FarmerLocation selectedLocation;
-
     public static final Set<Integer> DEFAULT_KEEP_ITEMS = Set.of(
             ItemID.DODGY_NECKLACE,
             ItemID.SALMON,
@@ -121,16 +102,20 @@ public class MasterFarmersScript extends Script {
             ItemID.COIN_POUCH_24703,
             ItemID.COIN_POUCH_28822
     );
-    public static Set<Integer> keepItemIds = new HashSet<>();
+    private final Session session = new Session();
+    // Every id a task reads from the inventory, searched once per poll by FrameSnapshot
+    private Set<Integer> frameItemIds = Set.of();
 
     public static final Font ARIAL = new Font("Arial", Font.PLAIN, 14);
     public static final Font ARIAL_BOLD = new Font("Arial", Font.BOLD, 14);
     public static final Font ARIAL_ITALIC = new Font("Arial", Font.ITALIC, 14);
 
     private List<Task> tasks;
+    private final TaskTimings taskTimings = new TaskTimings();
+    private final Metrics metrics = new Metrics("master-farmers", this::log);
+    private final ChatStream chat = new ChatStream(this);
     private GUI gui;
     private volatile boolean settingsConfirmed = false;
-    public static long startTime = System.currentTimeMillis();
     private static final double THIEVING_XP_PER_PICKPOCKET = 43.0;
     private XPTracking xpTracking;
     private double thievingXpGained = 0.0;
@@ -167,40 +152,46 @@ public class MasterFarmersScript extends Script {
         xpTracking = new XPTracking(this);
 
         gui.setOnStart(() -> {
-            selectedLocation = gui.getSelectedLocation();
-            keepItemIds = new HashSet<>(DEFAULT_KEEP_ITEMS);
-            foodItemId = gui.getFoodItemId();
-            if (foodItemId != null) {
-                keepItemIds.add(foodItemId);
+            session.selectedLocation = gui.getSelectedLocation();
+            session.keepItemIds = new HashSet<>(DEFAULT_KEEP_ITEMS);
+            session.foodItemId = gui.getFoodItemId();
+            if (session.foodItemId != null) {
+                session.keepItemIds.add(session.foodItemId);
             }
+            Set<Integer> trackedIds = new HashSet<>(session.keepItemIds);
+            trackedIds.addAll(COIN_POUCH_IDS);
+            frameItemIds = trackedIds;
 
-            if (selectedLocation != null) {
-                applyLocation(selectedLocation);
+            if (session.selectedLocation != null) {
+                session.applyLocation(session.selectedLocation);
                 tasks = new ArrayList<>();
-                tasks.add(new SetupTask(this));
-                tasks.add(new StunHandlerTask(this));
-                tasks.add(new EatTask(this));
-                tasks.add(new CoinPouchTask(this));
-                tasks.add(new BankTask(this));
-                tasks.add(new PickpocketTask(this));
+                tasks.add(new SetupTask(this, session));
+                tasks.add(new StunHandlerTask(this, session));
+                tasks.add(new EatTask(this, session));
+                tasks.add(new CoinPouchTask(this, session));
+                tasks.add(new BankTask(this, session));
+                tasks.add(new PickpocketTask(this, session, chat));
                 settingsConfirmed = true;
                 gui.closeWindow();
             } else {
-                state = State.STOPPED;
+                session.state = State.STOPPED;
                 log(getClass().getSimpleName(), "No location selected. Please configure a location before starting.");
                 stop();
             }
         });
         Scene scene = new Scene(gui);
         getStageController().show(scene, "Master Farmers Settings", false);
+        registerMetrics();
     }
 
-    public void applyLocation(FarmerLocation loc) {
-        if (loc == null) return;
-        thievingArea = loc.thievingArea();
-        bankArea = loc.bankArea();
-        anchorTile = loc.anchor();
-        locationLabel = loc.name();
+    private void registerMetrics() {
+        metrics
+                .counter("osmb_pickpockets_total", "Successful pickpockets this session", () -> successfulPickpockets)
+                .counter("osmb_xp_gained_total", "Thieving XP gained this session", () -> thievingXpGained)
+                .gauge("osmb_xp_per_hour", "Thieving XP per hour", () -> thievingXpPerHour)
+                .gauge("osmb_runtime_seconds", "Seconds since the script started", () -> (System.currentTimeMillis() - session.startTime) / 1000)
+                .state("osmb_state", "Current script state", () -> session.state.name())
+                .start();
     }
 
     @Override
@@ -208,16 +199,18 @@ public class MasterFarmersScript extends Script {
         if (!settingsConfirmed) {
             return 200;
         }
-        if (getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
+        FrameSnapshot frame = new FrameSnapshot(this, frameItemIds);
+        if (!frame.isLoggedIn()) {
             return 200;
         }
         ensureZoomConfigured();
         updateThievingStats();
+        metrics.sampleIfDue();
 
         if (tasks != null) {
             for (Task task : tasks) {
-                if (task.activate()) {
-                    task.execute();
+                if (taskTimings.activate(task, frame)) {
+                    taskTimings.execute(task, frame);
                     return 0;
                 }
             }
@@ -252,12 +245,13 @@ public class MasterFarmersScript extends Script {
         try {
             int x = 6;
             int y = 32;
-            int width = 180;
+            int timingLines = taskTimings.size();
+            int width = timingLines > 0 ? 240 : 180;
             int padding = 8;
             int lineHeight = 16;
-            int height = padding * 2 + lineHeight * 7;
+            int height = padding * 2 + lineHeight * (7 + timingLines);
 
-            long elapsed = System.currentTimeMillis() - startTime;
+            long elapsed = System.currentTimeMillis() - session.startTime;
             String runtime = formatRuntime(elapsed);
 
             c.fillRect(x, y, width, height, new Color(10, 10, 10, 190).getRGB(), 1);
@@ -266,9 +260,9 @@ public class MasterFarmersScript extends Script {
             int textY = y + padding + 12;
             c.drawText("Master Farmers - v" + getClass().getAnnotation(ScriptDefinition.class).version(), x + padding, textY, Color.YELLOW.getRGB(), new Font("Arial", Font.BOLD, 12));
             textY += lineHeight;
-            c.drawText("Location: " + locationLabel, x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+            c.drawText("Location: " + session.locationLabel, x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
             textY += lineHeight;
-            c.drawText("State: " + state.name(), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+            c.drawText("State: " + session.state.name(), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
             textY += lineHeight;
             c.drawText("Runtime: " + runtime, x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 12));
             textY += lineHeight;
@@ -277,10 +271,21 @@ public class MasterFarmersScript extends Script {
             c.drawText("Thieving XP: " + formatNumber(thievingXpGained), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
             textY += lineHeight;
             c.drawText("XP/hr: " + formatNumber(thievingXpPerHour), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+            for (int i = 0; i < timingLines; i++) {
+                textY += lineHeight;
+                c.drawText(taskTimings.overlayLine(i), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 11));
+            }
         } catch (Exception ignored) {
         }
     }
 
+    @Override
+    public void stop() {
+        taskTimings.dump(this);
+        metrics.close();
+        super.stop();
+    }
+
     private String formatRuntime(long millis) {
         long seconds = millis / 1000;
         long hours = (seconds % 86400) / 3600;
@@ -1,10 +1,13 @@
 package tasks;
 
+import data.Session;
+import data.State;
 import main.MasterFarmersScript;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.scene.RSObject;
 import com.osmb.api.script.Script;
 import com.osmb.api.walker.WalkConfig;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Arrays;
@@ -25,31 +28,34 @@ public class BankTask extends Task {
                 && gameObject.canReach();
     };
 
-    public BankTask(Script script) {
+    private final Session session;
+
+    public BankTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        if (!MasterFarmersScript.setupComplete) return false;
-        return MasterFarmersScript.needToBank;
+    public boolean activate(FrameSnapshot frame) {
+        if (!session.setupComplete) return false;
+        return session.needToBank;
     }
 
     @Override
-    public boolean execute() {
-        MasterFarmersScript.state = MasterFarmersScript.State.BANK;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.BANK;
 
         if (script.getWidgetManager().getBank().isVisible()) {
             return handleBanking();
         }
 
         if (!isInBankArea()) {
-            if (MasterFarmersScript.bankArea == null) return false;
+            if (session.bankArea == null) return false;
             WalkConfig cfg = new WalkConfig.Builder()
                     .enableRun(true)
                     .breakCondition(this::isInBankArea)
                     .build();
-            return script.getWalker().walkTo(MasterFarmersScript.bankArea.getRandomPosition(), cfg);
+            return script.getWalker().walkTo(session.bankArea.getRandomPosition(), cfg);
         }
 
         openBank();
@@ -58,7 +64,7 @@ public class BankTask extends Task {
 
     private boolean isInBankArea() {
         var pos = script.getWorldPosition();
-        return pos != null && MasterFarmersScript.bankArea != null && MasterFarmersScript.bankArea.contains(pos);
+        return pos != null && session.bankArea != null && session.bankArea.contains(pos);
     }
 
     private void openBank() {
@@ -88,27 +94,27 @@ public class BankTask extends Task {
         ItemGroupResult inv = script.getWidgetManager().getInventory().search(Collections.emptySet());
         if (inv == null) return false;
 
-        if (MasterFarmersScript.keepItemIds == null || MasterFarmersScript.keepItemIds.isEmpty()) {
-            MasterFarmersScript.keepItemIds = new java.util.HashSet<>(MasterFarmersScript.DEFAULT_KEEP_ITEMS);
+        if (session.keepItemIds == null || session.keepItemIds.isEmpty()) {
+            session.keepItemIds = new java.util.HashSet<>(MasterFarmersScript.DEFAULT_KEEP_ITEMS);
         }
 
-        boolean deposited = script.getWidgetManager().getBank().depositAll(MasterFarmersScript.keepItemIds);
+        boolean deposited = script.getWidgetManager().getBank().depositAll(session.keepItemIds);
         if (!deposited) return false;
 
         boolean cleared = script.pollFramesUntil(() -> !hasUnkeptItems(), script.random(600, 1200));
         if (!cleared) {
-            MasterFarmersScript.needToBank = true;
+            session.needToBank = true;
             return false;
         }
 
-        if (MasterFarmersScript.needsFoodRestock && MasterFarmersScript.foodItemId != null) {
+        if (session.needsFoodRestock && session.foodItemId != null) {
             boolean restocked = restockFood();
             if (!restocked) {
                 return false;
             }
         }
 
-        MasterFarmersScript.needToBank = false;
+        session.needToBank = false;
         return finalizeBanking();
     }
 
@@ -116,12 +122,12 @@ public class BankTask extends Task {
         ItemGroupResult refreshed = script.getWidgetManager().getInventory().search(Collections.emptySet());
         if (refreshed == null) return true;
 
-        if (MasterFarmersScript.keepItemIds == null || MasterFarmersScript.keepItemIds.isEmpty()) {
-            MasterFarmersScript.keepItemIds = new java.util.HashSet<>(MasterFarmersScript.DEFAULT_KEEP_ITEMS);
+        if (session.keepItemIds == null || session.keepItemIds.isEmpty()) {
+            session.keepItemIds = new java.util.HashSet<>(MasterFarmersScript.DEFAULT_KEEP_ITEMS);
         }
 
         return refreshed.getOneOfEachItem().stream()
-                .anyMatch(item -> !MasterFarmersScript.keepItemIds.contains(item.getId()));
+                .anyMatch(item -> !session.keepItemIds.contains(item.getId()));
     }
 
     private boolean restockFood() {
@@ -133,63 +139,63 @@ public class BankTask extends Task {
         int maxAttempts = 3;
 
         while (searchAttempts < maxAttempts) {
-            bankFood = bank.search(Set.of(MasterFarmersScript.foodItemId));
-            if (bankFood != null && bankFood.contains(MasterFarmersScript.foodItemId)) {
+            bankFood = bank.search(Set.of(session.foodItemId));
+            if (bankFood != null && bankFood.contains(session.foodItemId)) {
                 break;
             }
 
             searchAttempts++;
 
             if (searchAttempts >= maxAttempts) {
-                MasterFarmersScript.state = MasterFarmersScript.State.STOPPED;
-                script.log(getClass().getSimpleName(), "Food not found in bank (itemId=" + MasterFarmersScript.foodItemId + ") after " + searchAttempts + " attempts. Stopping script.");
+                session.state = State.STOPPED;
+                script.log(getClass().getSimpleName(), "Food not found in bank (itemId=" + session.foodItemId + ") after " + searchAttempts + " attempts. Stopping script.");
                 script.stop();
                 return false;
             }
 
-            script.log(getClass().getSimpleName(), "Food not found in bank (itemId=" + MasterFarmersScript.foodItemId + ") attempt " + searchAttempts + "/" + maxAttempts + ". Retrying...");
+            script.log(getClass().getSimpleName(), "Food not found in bank (itemId=" + session.foodItemId + ") attempt " + searchAttempts + "/" + maxAttempts + ". Retrying...");
             script.pollFramesHuman(() -> false, script.random(250, 600));
         }
 
-        int withdrawAmount = Math.min(5, bankFood.getAmount(MasterFarmersScript.foodItemId));
+        int withdrawAmount = Math.min(5, bankFood.getAmount(session.foodItemId));
         ItemGroupResult invSnapshot = script.getWidgetManager().getInventory().search(Collections.emptySet());
-        int beforeInvCount = invSnapshot != null ? invSnapshot.getAmount(MasterFarmersScript.foodItemId) : 0;
+        int beforeInvCount = invSnapshot != null ? invSnapshot.getAmount(session.foodItemId) : 0;
 
-        if (!bank.withdraw(MasterFarmersScript.foodItemId, withdrawAmount)) {
-            MasterFarmersScript.needToBank = true;
+        if (!bank.withdraw(session.foodItemId, withdrawAmount)) {
+            session.needToBank = true;
             return false;
         }
 
         boolean received = script.pollFramesUntil(() -> {
             ItemGroupResult refreshed = script.getWidgetManager().getInventory().search(Collections.emptySet());
             if (refreshed == null) return false;
-            return refreshed.getAmount(MasterFarmersScript.foodItemId) >= beforeInvCount + withdrawAmount;
+            return refreshed.getAmount(session.foodItemId) >= beforeInvCount + withdrawAmount;
         }, script.random(600, 1200));
 
         if (!received) {
-            MasterFarmersScript.needToBank = true;
+            session.needToBank = true;
             return false;
         }
 
-        MasterFarmersScript.needsFoodRestock = false;
+        session.needsFoodRestock = false;
         return true;
     }
 
     private boolean finalizeBanking() {
-        MasterFarmersScript.state = MasterFarmersScript.State.PICKPOCKET;
+        session.state = State.PICKPOCKET;
 
         script.getWidgetManager().getBank().close();
         script.pollFramesHuman(() -> !script.getWidgetManager().getBank().isVisible(), script.random(2000, 4000));
 
-        if (MasterFarmersScript.thievingArea != null && !MasterFarmersScript.thievingArea.contains(script.getWorldPosition()) && MasterFarmersScript.anchorTile != null) {
+        if (session.thievingArea != null && !session.thievingArea.contains(script.getWorldPosition()) && session.anchorTile != null) {
             WalkConfig cfg = new WalkConfig.Builder()
                     .enableRun(true)
-                    .breakCondition(() -> MasterFarmersScript.thievingArea.contains(script.getWorldPosition()))
+                    .breakCondition(() -> session.thievingArea.contains(script.getWorldPosition()))
                     .build();
-            script.getWalker().walkTo(MasterFarmersScript.anchorTile, cfg);
+            script.getWalker().walkTo(session.anchorTile, cfg);
         }
 
-        MasterFarmersScript.needToBank = false;
+        session.needToBank = false;
         return false;
     }
 }
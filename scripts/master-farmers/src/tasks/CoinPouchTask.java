@@ -1,10 +1,13 @@
 package tasks;
 
+import data.Session;
+import data.State;
 import main.MasterFarmersScript;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.item.ItemSearchResult;
 import com.osmb.api.script.Script;
 import com.osmb.api.ui.tabs.Tab;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Optional;
@@ -18,23 +21,26 @@ public class CoinPouchTask extends Task {
     private static final int POST_OPEN_DELAY_MIN = 200;
     private static final int POST_OPEN_DELAY_MAX = 360;
 
-    public CoinPouchTask(Script script) {
+    private final Session session;
+
+    public CoinPouchTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        if (!MasterFarmersScript.setupComplete || MasterFarmersScript.stunned || MasterFarmersScript.needToBank) return false;
+    public boolean activate(FrameSnapshot frame) {
+        if (!session.setupComplete || session.stunned || session.needToBank) return false;
 
-        ItemGroupResult inv = script.getWidgetManager().getInventory().search(MasterFarmersScript.COIN_POUCH_IDS);
+        ItemGroupResult inv = frame.getInventory();
         if (inv == null) return false;
 
         return findPouchToOpen(inv).isPresent();
     }
 
     @Override
-    public boolean execute() {
-        MasterFarmersScript.state = MasterFarmersScript.State.PICKPOCKET;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.PICKPOCKET;
 
         if (!ensureInventoryTabOpen()) {
             return false;
@@ -71,7 +77,7 @@ public class CoinPouchTask extends Task {
 
         script.pollFramesHuman(() -> false, script.random(POST_OPEN_DELAY_MIN, POST_OPEN_DELAY_MAX));
 
-        MasterFarmersScript.state = MasterFarmersScript.needToBank ? MasterFarmersScript.State.BANK : MasterFarmersScript.State.PICKPOCKET;
+        session.state = session.needToBank ? State.BANK : State.PICKPOCKET;
         return false;
     }
 
@@ -1,10 +1,13 @@
 package tasks;
 
+import data.Session;
+import data.State;
 import main.MasterFarmersScript;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.item.ItemSearchResult;
 import com.osmb.api.script.Script;
 import com.osmb.api.ui.tabs.Tab;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Set;
@@ -17,29 +20,32 @@ public class EatTask extends Task {
     private static final int POST_EAT_DELAY_MIN = 140;
     private static final int POST_EAT_DELAY_MAX = 260;
 
-    public EatTask(Script script) {
+    private final Session session;
+
+    public EatTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        if (!MasterFarmersScript.setupComplete || MasterFarmersScript.stunned) return false;
+    public boolean activate(FrameSnapshot frame) {
+        if (!session.setupComplete || session.stunned) return false;
 
-        handleLowHpWithoutFood();
+        handleLowHpWithoutFood(frame);
 
-        if (MasterFarmersScript.needToBank) return false;
-        if (MasterFarmersScript.foodItemId == null) return false;
+        if (session.needToBank) return false;
+        if (session.foodItemId == null) return false;
 
-        Integer hpPerc = getHitpointsPercentage();
+        Integer hpPerc = frame.getHitpointsPercentage();
         if (hpPerc == null || hpPerc >= MasterFarmersScript.HP_THRESHOLD) return false;
 
-        ItemGroupResult inv = script.getWidgetManager().getInventory().search(Set.of(MasterFarmersScript.foodItemId));
-        return inv != null && inv.contains(MasterFarmersScript.foodItemId);
+        ItemGroupResult inv = frame.getInventory();
+        return inv != null && inv.contains(session.foodItemId);
     }
 
     @Override
-    public boolean execute() {
-        MasterFarmersScript.state = MasterFarmersScript.State.EATING;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.EATING;
 
         if (!ensureInventoryTabOpen()) {
             return false;
@@ -56,22 +62,22 @@ public class EatTask extends Task {
                 break;
             }
 
-            ItemGroupResult inv = script.getWidgetManager().getInventory().search(Set.of(MasterFarmersScript.foodItemId));
-            if (inv == null || !inv.contains(MasterFarmersScript.foodItemId)) {
+            ItemGroupResult inv = script.getWidgetManager().getInventory().search(Set.of(session.foodItemId));
+            if (inv == null || !inv.contains(session.foodItemId)) {
                 break;
             }
 
-            ItemSearchResult food = inv.getItem(MasterFarmersScript.foodItemId);
+            ItemSearchResult food = inv.getItem(session.foodItemId);
             if (food == null || !food.interact()) {
                 script.pollFramesHuman(() -> false, script.random(EAT_INTERACT_DELAY_MIN, EAT_INTERACT_DELAY_MAX));
                 continue;
             }
 
-            int beforeCount = inv.getAmount(MasterFarmersScript.foodItemId);
+            int beforeCount = inv.getAmount(session.foodItemId);
             boolean consumed = script.pollFramesUntil(() -> {
                 Integer updatedHp = getHitpointsPercentage();
-                ItemGroupResult refreshed = script.getWidgetManager().getInventory().search(Set.of(MasterFarmersScript.foodItemId));
-                int afterCount = refreshed != null ? refreshed.getAmount(MasterFarmersScript.foodItemId) : 0;
+                ItemGroupResult refreshed = script.getWidgetManager().getInventory().search(Set.of(session.foodItemId));
+                int afterCount = refreshed != null ? refreshed.getAmount(session.foodItemId) : 0;
                 return (updatedHp != null && updatedHp > hp) || afterCount < beforeCount;
             }, script.random(320, 780));
 
@@ -82,28 +88,28 @@ public class EatTask extends Task {
             }
         }
 
-        MasterFarmersScript.state = MasterFarmersScript.needToBank ? MasterFarmersScript.State.BANK : MasterFarmersScript.State.PICKPOCKET;
+        session.state = session.needToBank ? State.BANK : State.PICKPOCKET;
         return false;
     }
 
-    private void handleLowHpWithoutFood() {
-        Integer hpPerc = getHitpointsPercentage();
-        if (hpPerc == null || MasterFarmersScript.foodItemId == null || hpPerc >= MasterFarmersScript.HP_THRESHOLD) {
+    private void handleLowHpWithoutFood(FrameSnapshot frame) {
+        Integer hpPerc = frame.getHitpointsPercentage();
+        if (hpPerc == null || session.foodItemId == null || hpPerc >= MasterFarmersScript.HP_THRESHOLD) {
             return;
         }
 
-        ItemGroupResult inv = script.getWidgetManager().getInventory().search(Set.of(MasterFarmersScript.foodItemId));
-        boolean hasFood = inv != null && inv.contains(MasterFarmersScript.foodItemId);
+        ItemGroupResult inv = frame.getInventory();
+        boolean hasFood = inv != null && inv.contains(session.foodItemId);
         if (hasFood) {
             return;
         }
 
-        MasterFarmersScript.needToBank = true;
-        MasterFarmersScript.state = MasterFarmersScript.State.BANK;
+        session.needToBank = true;
+        session.state = State.BANK;
 
-        if (!MasterFarmersScript.needsFoodRestock) {
-            MasterFarmersScript.needsFoodRestock = true;
-            script.log(getClass().getSimpleName(), "HP at " + hpPerc + "% and no food (itemId=" + MasterFarmersScript.foodItemId + ") available. Banking to restock.");
+        if (!session.needsFoodRestock) {
+            session.needsFoodRestock = true;
+            script.log(getClass().getSimpleName(), "HP at " + hpPerc + "% and no food (itemId=" + session.foodItemId + ") available. Banking to restock.");
         }
     }
 
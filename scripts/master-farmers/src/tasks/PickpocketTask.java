@@ -1,24 +1,22 @@
 package tasks;
 
-import main.MasterFarmersScript;
+import data.Session;
+import data.State;
 import com.osmb.api.location.position.types.LocalPosition;
 import com.osmb.api.location.position.types.WorldPosition;
 import com.osmb.api.script.Script;
 import com.osmb.api.shape.Polygon;
 import com.osmb.api.shape.Rectangle;
-import com.osmb.api.ui.chatbox.Chatbox;
-import com.osmb.api.ui.chatbox.ChatboxFilterTab;
 import com.osmb.api.utils.UIResultList;
 import com.osmb.api.walker.WalkConfig;
 import com.osmb.api.visual.SearchablePixel;
 import com.osmb.api.visual.color.ColorModel;
 import com.osmb.api.visual.color.tolerance.impl.SingleThresholdComparator;
+import utils.ChatStream;
+import utils.FrameSnapshot;
 import utils.Task;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 public class PickpocketTask extends Task {
 
@@ -28,39 +26,41 @@ public class PickpocketTask extends Task {
             new SingleThresholdComparator(2),
             ColorModel.RGB
     );
-    private List<String> previousChatLines = new ArrayList<>();
 
-    public PickpocketTask(Script script) {
+    private final Session session;
+    private final ChatStream chat;
+    private boolean stunSeen = false;
+    private boolean pickpocketSeen = false;
+
+    public PickpocketTask(Script script, Session session, ChatStream chat) {
         super(script);
+        this.session = session;
+        this.chat = chat;
+        chat.on("you've been stunned", line -> stunSeen = true)
+                .on("you attempt to pick the master farmer's pocket", line -> pickpocketSeen = true)
+                .on("you fail to pick the master farmer's pocket", line -> pickpocketSeen = true)
+                .on("you pick the master farmer's pocket", line -> pickpocketSeen = true);
     }
 
     @Override
-    public boolean activate() {
-        if (!MasterFarmersScript.setupComplete) return false;
-        if (MasterFarmersScript.needToBank || MasterFarmersScript.stunned) return false;
-        var inv = script.getWidgetManager().getInventory().search(Set.of());
+    public boolean activate(FrameSnapshot frame) {
+        if (!session.setupComplete) return false;
+        if (session.needToBank || session.stunned) return false;
+        var inv = frame.getInventory();
         if (inv == null) return false;
         if (inv.isFull()) {
-            MasterFarmersScript.needToBank = true;
-            MasterFarmersScript.state = MasterFarmersScript.State.BANK;
+            session.needToBank = true;
+            session.state = State.BANK;
             return false;
         }
         return true;
     }
 
     @Override
-    public boolean execute() {
-        MasterFarmersScript.state = MasterFarmersScript.State.PICKPOCKET;
-
-        var inv = script.getWidgetManager().getInventory().search(Set.of());
-        if (inv == null) return false;
-
-        if (inv.isFull()) {
-            MasterFarmersScript.needToBank = true;
-            MasterFarmersScript.state = MasterFarmersScript.State.BANK;
-            return false;
-        }
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.PICKPOCKET;
 
+        // activate() already rejected a full inventory from this frame
         if (!script.getWidgetManager().getInventory().unSelectItemIfSelected()) {
             return false;
         }
@@ -70,14 +70,14 @@ public class PickpocketTask extends Task {
             return false;
         }
 
-        WorldPosition me = script.getWorldPosition();
+        WorldPosition me = frame.getWorldPosition();
         if (me == null) return false;
-        if (!MasterFarmersScript.thievingArea.contains(me)) {
+        if (!session.thievingArea.contains(me)) {
             WalkConfig cfg = new WalkConfig.Builder()
                     .enableRun(true)
-                    .breakCondition(() -> MasterFarmersScript.thievingArea.contains(script.getWorldPosition()))
+                    .breakCondition(() -> session.thievingArea.contains(script.getWorldPosition()))
                     .build();
-            return script.getWalker().walkTo(MasterFarmersScript.anchorTile, cfg);
+            return script.getWalker().walkTo(session.anchorTile, cfg);
         }
 
         Optional<WorldPosition> target = findTarget();
@@ -124,7 +124,7 @@ public class PickpocketTask extends Task {
         for (WorldPosition pos : npcPositions) {
             if (pos == null) continue;
             if (pos.getPlane() != me.getPlane()) continue;
-            if (!MasterFarmersScript.thievingArea.contains(pos)) continue;
+            if (!session.thievingArea.contains(pos)) continue;
             if (!withinRadius(pos, me, MAX_RADIUS)) continue;
             if (!isHighlighted(pos)) continue;
             if (getHighlightBoundsFromPos(pos) == null) continue;
@@ -199,84 +199,16 @@ public class PickpocketTask extends Task {
     }
 
     private void evaluateChatbox() {
-        Chatbox chatbox = script.getWidgetManager().getChatbox();
-        if (chatbox == null) return;
+        stunSeen = false;
+        pickpocketSeen = false;
+        if (!chat.update()) return;
 
-        ChatboxFilterTab activeTab = chatbox.getActiveFilterTab();
-        if (activeTab == null) return;
-
-        if (activeTab != ChatboxFilterTab.GAME) {
-            if (!chatbox.openFilterTab(ChatboxFilterTab.GAME)) {
-                return;
-            }
-            return;
+        if (stunSeen) {
+            session.stunned = true;
+            session.state = State.STUNNED;
+        } else if (pickpocketSeen) {
+            session.stunned = false;
+            session.state = State.PICKPOCKET;
         }
-
-        UIResultList<String> result = chatbox.getText();
-        if (result == null || !result.isFound() || result.isEmpty()) return;
-
-        List<String> lines = result.asList();
-        if (lines.isEmpty()) return;
-
-        List<String> newLines = getNewChatLines(lines);
-        if (newLines.isEmpty()) return;
-
-        boolean stunDetected = false;
-        boolean actionDetected = false;
-
-        for (String line : newLines) {
-            String lower = line.toLowerCase();
-            if (lower.contains("you've been stunned")) {
-                stunDetected = true;
-            } else if (lower.contains("you attempt to pick the master farmer's pocket")) {
-                actionDetected = true;
-            } else if (lower.contains("you fail to pick the master farmer's pocket")) {
-                actionDetected = true;
-            } else if (lower.contains("you pick the master farmer's pocket")) {
-                actionDetected = true;
-            }
-        }
-
-        if (stunDetected) {
-            MasterFarmersScript.stunned = true;
-            MasterFarmersScript.state = MasterFarmersScript.State.STUNNED;
-        } else if (actionDetected) {
-            MasterFarmersScript.stunned = false;
-            MasterFarmersScript.state = MasterFarmersScript.State.PICKPOCKET;
-        }
-    }
-
-    private List<String> getNewChatLines(List<String> currentLines) {
-        if (currentLines == null || currentLines.isEmpty()) return List.of();
-
-        if (previousChatLines.isEmpty()) {
-            previousChatLines = new ArrayList<>(currentLines);
-            return List.of();
-        }
-
-        if (currentLines.equals(previousChatLines)) return List.of();
-
-        int firstDifference = currentLines.size();
-        for (int i = 0; i < currentLines.size(); i++) {
-            int suffixLen = currentLines.size() - i;
-            if (suffixLen > previousChatLines.size()) continue;
-
-            boolean match = true;
-            for (int j = 0; j < suffixLen; j++) {
-                if (!currentLines.get(i + j).equals(previousChatLines.get(j))) {
-                    match = false;
-                    break;
-                }
-            }
-
-            if (match) {
-                firstDifference = i;
-                break;
-            }
-        }
-
-        List<String> newLines = currentLines.subList(0, firstDifference);
-        previousChatLines = new ArrayList<>(currentLines);
-        return newLines;
     }
 }
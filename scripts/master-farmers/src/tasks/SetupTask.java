@@ -1,5 +1,7 @@
 package tasks;
 
+import data.Session;
+import data.State;
 import main.MasterFarmersScript;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.location.position.types.WorldPosition;
@@ -8,41 +10,45 @@ import com.osmb.api.ui.tabs.Tab;
 import com.osmb.api.walker.WalkConfig;
 
 import java.util.Set;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class SetupTask extends Task {
 
-    public SetupTask(Script script) {
+    private final Session session;
+
+    public SetupTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        return !MasterFarmersScript.setupComplete;
+    public boolean activate(FrameSnapshot frame) {
+        return !session.setupComplete;
     }
 
     @Override
-    public boolean execute() {
-        MasterFarmersScript.state = MasterFarmersScript.State.SETUP;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.SETUP;
 
         if (!ensureInventoryTabOpen()) {
             return false;
         }
 
-        if (MasterFarmersScript.thievingArea == null || MasterFarmersScript.bankArea == null || MasterFarmersScript.anchorTile == null) {
-            if (MasterFarmersScript.selectedLocation != null) {
-                ((MasterFarmersScript) script).applyLocation(MasterFarmersScript.selectedLocation);
+        if (session.thievingArea == null || session.bankArea == null || session.anchorTile == null) {
+            if (session.selectedLocation != null) {
+                session.applyLocation(session.selectedLocation);
             }
         }
 
-        if (MasterFarmersScript.thievingArea == null || MasterFarmersScript.bankArea == null || MasterFarmersScript.anchorTile == null) {
-            MasterFarmersScript.state = MasterFarmersScript.State.STOPPED;
+        if (session.thievingArea == null || session.bankArea == null || session.anchorTile == null) {
+            session.state = State.STOPPED;
             script.log(getClass().getSimpleName(), "Location not configured. Stop the script and select a location.");
             script.stop();
             return false;
         }
 
-        WorldPosition me = script.getWorldPosition();
+        WorldPosition me = frame.getWorldPosition();
         if (me == null) {
             boolean hasPos = script.pollFramesUntil(() -> script.getWorldPosition() != null, script.random(600, 1200));
             if (!hasPos) {
@@ -52,36 +58,36 @@ public class SetupTask extends Task {
             me = script.getWorldPosition();
         }
 
-        if (handleLowHpWithoutFood()) {
+        if (handleLowHpWithoutFood(frame)) {
             return false;
         }
 
         ItemGroupResult inv = script.getWidgetManager().getInventory().search(java.util.Collections.emptySet());
         if (inv != null && inv.isFull()) {
-            MasterFarmersScript.needToBank = true;
-            MasterFarmersScript.state = MasterFarmersScript.State.BANK;
+            session.needToBank = true;
+            session.state = State.BANK;
         }
 
-        if (!MasterFarmersScript.thievingArea.contains(me) && !MasterFarmersScript.needToBank) {
-            if (MasterFarmersScript.anchorTile == null) {
+        if (!session.thievingArea.contains(me) && !session.needToBank) {
+            if (session.anchorTile == null) {
                 script.stop();
                 return false;
             }
-            script.getWalker().walkTo(MasterFarmersScript.anchorTile);
+            script.getWalker().walkTo(session.anchorTile);
             return false;
         }
 
-        MasterFarmersScript.setupComplete = true;
-        MasterFarmersScript.state = MasterFarmersScript.needToBank ? MasterFarmersScript.State.BANK : MasterFarmersScript.State.PICKPOCKET;
+        session.setupComplete = true;
+        session.state = session.needToBank ? State.BANK : State.PICKPOCKET;
         return false;
     }
 
-    private boolean handleLowHpWithoutFood() {
-        if (MasterFarmersScript.foodItemId == null) {
+    private boolean handleLowHpWithoutFood(FrameSnapshot frame) {
+        if (session.foodItemId == null) {
             return false;
         }
 
-        Integer hpPerc = MasterFarmersScript.getHitpointsPercentage(script);
+        Integer hpPerc = frame.getHitpointsPercentage();
         if (hpPerc == null || hpPerc >= MasterFarmersScript.HP_THRESHOLD) {
             return false;
         }
@@ -91,27 +97,27 @@ public class SetupTask extends Task {
             return false;
         }
 
-        ItemGroupResult inv = widgets.getInventory().search(Set.of(MasterFarmersScript.foodItemId));
-        boolean hasFood = inv != null && inv.contains(MasterFarmersScript.foodItemId);
+        ItemGroupResult inv = widgets.getInventory().search(Set.of(session.foodItemId));
+        boolean hasFood = inv != null && inv.contains(session.foodItemId);
         if (hasFood) {
             return false;
         }
 
-        MasterFarmersScript.needToBank = true;
-        boolean firstNotice = !MasterFarmersScript.needsFoodRestock;
-        MasterFarmersScript.needsFoodRestock = true;
-        MasterFarmersScript.state = MasterFarmersScript.State.BANK;
+        session.needToBank = true;
+        boolean firstNotice = !session.needsFoodRestock;
+        session.needsFoodRestock = true;
+        session.state = State.BANK;
 
         if (firstNotice) {
-            script.log(getClass().getSimpleName(), "HP at " + hpPerc + "% and no food (itemId=" + MasterFarmersScript.foodItemId + ") available. Banking to restock.");
+            script.log(getClass().getSimpleName(), "HP at " + hpPerc + "% and no food (itemId=" + session.foodItemId + ") available. Banking to restock.");
         }
 
-        if (!isInBankArea() && MasterFarmersScript.bankArea != null) {
+        if (!isInBankArea() && session.bankArea != null) {
             WalkConfig cfg = new WalkConfig.Builder()
                     .enableRun(true)
                     .breakCondition(() -> isInBankArea() || script.getWidgetManager().getBank().isVisible())
                     .build();
-            script.getWalker().walkTo(MasterFarmersScript.bankArea.getRandomPosition(), cfg);
+            script.getWalker().walkTo(session.bankArea.getRandomPosition(), cfg);
         }
 
         return true;
@@ -119,7 +125,7 @@ public class SetupTask extends Task {
 
     private boolean isInBankArea() {
         var pos = script.getWorldPosition();
-        return pos != null && MasterFarmersScript.bankArea != null && MasterFarmersScript.bankArea.contains(pos);
+        return pos != null && session.bankArea != null && session.bankArea.contains(pos);
     }
 
     private boolean ensureInventoryTabOpen() {
@@ -1,30 +1,35 @@
 package tasks;
 
-import main.MasterFarmersScript;
+import data.Session;
+import data.State;
 import com.osmb.api.script.Script;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class StunHandlerTask extends Task {
 
-    public StunHandlerTask(Script script) {
+    private final Session session;
+
+    public StunHandlerTask(Script script, Session session) {
         super(script);
+        this.session = session;
     }
 
     @Override
-    public boolean activate() {
-        return MasterFarmersScript.setupComplete && MasterFarmersScript.stunned;
+    public boolean activate(FrameSnapshot frame) {
+        return session.setupComplete && session.stunned;
     }
 
     @Override
-    public boolean execute() {
-        MasterFarmersScript.state = MasterFarmersScript.State.STUNNED;
+    public boolean execute(FrameSnapshot frame) {
+        session.state = State.STUNNED;
         int stunDurationMs = script.random(4950, 5450);
 
         long start = System.currentTimeMillis();
         script.pollFramesHuman(() -> System.currentTimeMillis() - start >= stunDurationMs, stunDurationMs);
 
-        MasterFarmersScript.stunned = false;
-        MasterFarmersScript.state = MasterFarmersScript.State.PICKPOCKET;
+        session.stunned = false;
+        session.state = State.PICKPOCKET;
         return false;
     }
 }
@@ -3,29 +3,45 @@ package main;
 import com.osmb.api.script.Script;
 import com.osmb.api.script.ScriptDefinition;
 import com.osmb.api.script.SkillCategory;
-import com.osmb.api.visual.color.HSLPalette;
 
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JTextArea;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingUtilities;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.Insets;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 @ScriptDefinition(
         author = "eqp48",
@@ -36,18 +52,39 @@ import java.util.List;
 )
 public class PixelGrabber extends Script {
     private static final long CAPTURE_INTERVAL_MS = 200;
+    private static final int LIVE_INTERVAL_MS = 33;
+    private static final int BURST_FRAMES = 16;
     private static final String WINDOW_TITLE = "Pixel Grabber";
+    private static final String HSL_NOTE = "//   HSL figures use this tool's own scale, not the client's";
+    private static final int MAGNIFIER_VIEW_SIZE = 128;
+    private static final int MAGNIFIER_ZOOM = 8;
+    private static final Integer[] MAGNIFIER_ZOOM_LEVELS = {2, 4, 8, 16};
 
     private JFrame frame;
     private ScreenImagePanel imagePanel;
     private MagnifierPanel magnifierPanel;
     private JComboBox<ColorMode> colorModeSelector;
     private JTextArea outputArea;
-    private final List<Integer> clickedPixels = new ArrayList<>();
+    private final List<ClusterPixel> clickedPixels = new ArrayList<>();
     private long lastCaptureMs = 0L;
     private ColorMode selectedColorMode = ColorMode.HSL;
     private BufferedImage snapshotImage;
     private boolean snapshotRequested = true;
+    private volatile boolean liveMode;
+    private int tolerance;
+    private int heatmapGeneration;
+    private String heatmapSummary;
+    private Rectangle targetRegion;
+    private Rectangle negativeRegion;
+    private int solveGeneration;
+    private String solverSummary;
+    private int burstSize = BURST_FRAMES;
+    private final FrameRing burst = new FrameRing();
+    private final AtomicBoolean burstRunning = new AtomicBoolean();
+    private volatile List<ClusterPixel> burstCluster;
+    private volatile ColorMode burstMode;
+    private String stabilitySummary;
+    private final LiveFrames liveFrames = new LiveFrames();
 
     public PixelGrabber(Object scriptCore) {
         super(scriptCore);
@@ -61,12 +98,13 @@ public class PixelGrabber extends Script {
                 initialImage = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
             }
             imagePanel = new ScreenImagePanel(initialImage);
-            magnifierPanel = new MagnifierPanel(16, 8);
+            magnifierPanel = new MagnifierPanel(MAGNIFIER_VIEW_SIZE, MAGNIFIER_ZOOM);
             colorModeSelector = buildColorModeSelector();
             outputArea = buildOutputArea();
             imagePanel.setHoverListener(this::updateHoverInfo);
             imagePanel.setHoverExitListener(this::clearHoverInfo);
             imagePanel.setClickListener(this::recordPixelClick);
+            imagePanel.setRegionListener(this::recordRegion);
             snapshotImage = initialImage;
 
             frame = new JFrame(WINDOW_TITLE);
@@ -84,6 +122,12 @@ public class PixelGrabber extends Script {
         if (frame == null || imagePanel == null || !frame.isDisplayable()) {
             return 200;
         }
+        if (burstRunning.get() && !burst.isFull()) {
+            return pollBurst();
+        }
+        if (liveMode) {
+            return pollLive();
+        }
 
         long now = System.currentTimeMillis();
         long elapsed = now - lastCaptureMs;
@@ -107,6 +151,34 @@ public class PixelGrabber extends Script {
         return (int) CAPTURE_INTERVAL_MS;
     }
 
+    private int pollLive() {
+        if (liveFrames.isSwapPending()) {
+            return LIVE_INTERVAL_MS / 3;
+        }
+        BufferedImage frame = captureScreenImage();
+        if (frame != null && liveFrames.load(frame)) {
+            SwingUtilities.invokeLater(this::applyLiveFrame);
+        }
+        return LIVE_INTERVAL_MS;
+    }
+
+    private int pollBurst() {
+        BufferedImage frame = captureScreenImage();
+        if (frame == null) {
+            return LIVE_INTERVAL_MS;
+        }
+        burst.add(frame);
+        if (burst.isFull()) {
+            List<ClusterPixel> cluster = burstCluster;
+            ColorMode mode = burstMode;
+            ForkJoinPool.commonPool().execute(() -> {
+                List<Stability> report = Stability.analyze(burst, cluster, mode);
+                SwingUtilities.invokeLater(() -> showStability(report, cluster));
+            });
+        }
+        return LIVE_INTERVAL_MS;
+    }
+
     @Override
     public void stop() {
         SwingUtilities.invokeLater(() -> {
@@ -140,10 +212,12 @@ public class PixelGrabber extends Script {
         gbc.gridy = 0;
         gbc.weightx = 1;
         gbc.weighty = 1;
-        gbc.anchor = GridBagConstraints.CENTER;
+        gbc.anchor = GridBagConstraints.SOUTH;
         magnifierContainer.add(magnifierPanel, gbc);
-        Dimension magnifierSize = magnifierPanel.getPreferredSize();
-        magnifierContainer.setPreferredSize(new Dimension(magnifierSize.width + 12, magnifierSize.height + 12));
+        gbc.gridy = 1;
+        gbc.anchor = GridBagConstraints.NORTH;
+        gbc.insets = new Insets(6, 0, 0, 0);
+        magnifierContainer.add(buildMagnifierControls(), gbc);
 
         JPanel content = new JPanel(new BorderLayout());
         content.add(scrollPane, BorderLayout.CENTER);
@@ -151,6 +225,34 @@ public class PixelGrabber extends Script {
         return content;
     }
 
+    private JPanel buildMagnifierControls() {
+        JComboBox<Integer> zoomSelector = new JComboBox<>(MAGNIFIER_ZOOM_LEVELS);
+        zoomSelector.setSelectedItem(MAGNIFIER_ZOOM);
+        zoomSelector.addActionListener(e -> {
+            Object selection = zoomSelector.getSelectedItem();
+            if (selection instanceof Integer zoom && magnifierPanel != null) {
+                magnifierPanel.setZoom(zoom);
+            }
+        });
+        JLabel label = new JLabel("Zoom:");
+        label.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 6));
+        JPanel zoomRow = new JPanel(new BorderLayout());
+        zoomRow.add(label, BorderLayout.WEST);
+        zoomRow.add(zoomSelector, BorderLayout.CENTER);
+
+        JCheckBox gridToggle = new JCheckBox("Grid", true);
+        gridToggle.addActionListener(e -> {
+            if (magnifierPanel != null) {
+                magnifierPanel.setGridVisible(gridToggle.isSelected());
+            }
+        });
+
+        JPanel controls = new JPanel(new BorderLayout());
+        controls.add(zoomRow, BorderLayout.NORTH);
+        controls.add(gridToggle, BorderLayout.SOUTH);
+        return controls;
+    }
+
     private JPanel buildOutputPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
@@ -168,6 +270,10 @@ public class PixelGrabber extends Script {
         label.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 6));
         left.add(label, BorderLayout.WEST);
         left.add(colorModeSelector, BorderLayout.CENTER);
+        JPanel settings = new JPanel(new BorderLayout());
+        settings.add(buildToleranceSelector(), BorderLayout.WEST);
+        settings.add(buildBurstSizeSelector(), BorderLayout.EAST);
+        left.add(settings, BorderLayout.EAST);
 
         JPanel right = new JPanel(new BorderLayout());
         right.add(buildOutputActions(), BorderLayout.EAST);
@@ -180,16 +286,32 @@ public class PixelGrabber extends Script {
 
     private JPanel buildOutputActions() {
         JPanel panel = new JPanel(new BorderLayout());
+        JCheckBox liveToggle = new JCheckBox("Live");
+        liveToggle.addActionListener(e -> setLiveMode(liveToggle.isSelected()));
         javax.swing.JButton snapshotButton = new javax.swing.JButton("Take Snapshot");
         snapshotButton.addActionListener(e -> requestSnapshot());
+        javax.swing.JButton solveButton = new javax.swing.JButton("Solve");
+        solveButton.addActionListener(e -> solveCluster());
+        javax.swing.JButton burstButton = new javax.swing.JButton("Burst");
+        burstButton.addActionListener(e -> startBurst());
+        javax.swing.JButton analyzeButton = new javax.swing.JButton("Analyze");
+        analyzeButton.addActionListener(e -> analyzeCluster());
         javax.swing.JButton copyButton = new javax.swing.JButton("Copy");
         copyButton.addActionListener(e -> copyOutput());
         javax.swing.JButton clearButton = new javax.swing.JButton("Clear");
         clearButton.addActionListener(e -> clearOutput());
+        JPanel analysis = new JPanel(new BorderLayout());
+        analysis.add(solveButton, BorderLayout.WEST);
+        analysis.add(burstButton, BorderLayout.CENTER);
+        analysis.add(analyzeButton, BorderLayout.EAST);
         JPanel buttons = new JPanel(new BorderLayout());
-        buttons.add(copyButton, BorderLayout.WEST);
+        buttons.add(analysis, BorderLayout.WEST);
+        buttons.add(copyButton, BorderLayout.CENTER);
         buttons.add(clearButton, BorderLayout.EAST);
-        panel.add(snapshotButton, BorderLayout.WEST);
+        JPanel capture = new JPanel(new BorderLayout());
+        capture.add(liveToggle, BorderLayout.WEST);
+        capture.add(snapshotButton, BorderLayout.EAST);
+        panel.add(capture, BorderLayout.WEST);
         panel.add(buttons, BorderLayout.EAST);
         return panel;
     }
@@ -201,12 +323,42 @@ public class PixelGrabber extends Script {
             Object selection = comboBox.getSelectedItem();
             if (selection instanceof ColorMode mode) {
                 selectedColorMode = mode;
+                clearHeatmap();
                 updateOutputArea();
             }
         });
         return comboBox;
     }
 
+    private JPanel buildToleranceSelector() {
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(0, 0, 255, 1));
+        spinner.addChangeListener(e -> {
+            tolerance = (Integer) spinner.getValue();
+            // The spinner sets every pixel's tolerance, including ones the solver picked
+            clickedPixels.replaceAll(pixel -> pixel.withTolerance(tolerance));
+            solverSummary = null;
+            stabilitySummary = null;
+            clearHeatmap();
+            updateOutputArea();
+        });
+        return labeled("Tolerance:", spinner);
+    }
+
+    private JPanel buildBurstSizeSelector() {
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(BURST_FRAMES, 4, 64, 1));
+        spinner.addChangeListener(e -> burstSize = (Integer) spinner.getValue());
+        return labeled("Frames:", spinner);
+    }
+
+    private static JPanel labeled(String text, JSpinner spinner) {
+        JLabel label = new JLabel(text);
+        label.setBorder(BorderFactory.createEmptyBorder(0, 12, 0, 6));
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(label, BorderLayout.WEST);
+        panel.add(spinner, BorderLayout.CENTER);
+        return panel;
+    }
+
     private JTextArea buildOutputArea() {
         JTextArea area = new JTextArea(6, 60);
         area.setEditable(false);
@@ -220,7 +372,27 @@ public class PixelGrabber extends Script {
         if (imagePanel == null) {
             return;
         }
+        clearHeatmap();
         imagePanel.setImage(image);
+        liveFrames.invalidate();
+        Point lastHover = imagePanel.getLastHoverPoint();
+        if (lastHover != null) {
+            updateHoverInfo(lastHover.x, lastHover.y);
+        }
+    }
+
+    private void applyLiveFrame() {
+        BufferedImage front = liveFrames.swap(imagePanel);
+        if (imagePanel == null) {
+            return;
+        }
+        snapshotImage = front;
+        // Also drops a scan still running on the previous frame
+        boolean hadHeatmap = heatmapSummary != null;
+        clearHeatmap();
+        if (hadHeatmap) {
+            updateOutputArea();
+        }
         Point lastHover = imagePanel.getLastHoverPoint();
         if (lastHover != null) {
             updateHoverInfo(lastHover.x, lastHover.y);
@@ -235,30 +407,6 @@ public class PixelGrabber extends Script {
         if (image == null) {
             return;
         }
-        if (x < 0 || y < 0 || x >= image.getWidth() || y >= image.getHeight()) {
-            magnifierPanel.update(image, x, y);
-            return;
-        }
-
-        int argb = image.getRGB(x, y);
-        int r = (argb >> 16) & 0xFF;
-        int g = (argb >> 8) & 0xFF;
-        int b = argb & 0xFF;
-        String hex = String.format("#%02X%02X%02X", r, g, b);
-        double[] hsl = HSLPalette.rgbToHsl(argb);
-        String text = String.format(
-                "x=%d y=%d  rgb=(%d,%d,%d)  hex=%s  argb=%d  hsl=(%.2f, %.2f, %.2f)",
-                x,
-                y,
-                r,
-                g,
-                b,
-                hex,
-                argb,
-                hsl[0],
-                hsl[1],
-                hsl[2]
-        );
         magnifierPanel.update(image, x, y);
     }
 
@@ -277,7 +425,9 @@ public class PixelGrabber extends Script {
             return;
         }
         int argb = image.getRGB(x, y);
-        clickedPixels.add(argb);
+        clickedPixels.add(new ClusterPixel(argb, tolerance, x, y));
+        stabilitySummary = null;
+        clearHeatmap();
         updateOutputArea();
     }
 
@@ -291,27 +441,204 @@ public class PixelGrabber extends Script {
         }
         StringBuilder sb = new StringBuilder();
         sb.append("private static final SearchablePixel[] PIXEL_CLUSTER = new SearchablePixel[] {\n");
-        for (Integer rgb : clickedPixels) {
+        for (ClusterPixel pixel : clickedPixels) {
             sb.append("    new SearchablePixel(")
-                    .append(rgb)
-                    .append(", new SingleThresholdComparator(0), ColorModel.")
+                    .append(pixel.argb())
+                    .append(", new SingleThresholdComparator(")
+                    .append(pixel.tolerance())
+                    .append("), ColorModel.")
                     .append(selectedColorMode.name())
                     .append("),\n");
         }
         sb.append("};");
+        if (solverSummary != null) {
+            sb.append("\n\n").append(solverSummary);
+        }
+        if (stabilitySummary != null) {
+            sb.append("\n\n").append(stabilitySummary);
+        }
+        if (heatmapSummary != null) {
+            sb.append("\n\n").append(heatmapSummary);
+        }
         outputArea.setText(sb.toString());
         outputArea.setCaretPosition(0);
     }
 
     private void clearOutput() {
         clickedPixels.clear();
+        targetRegion = null;
+        negativeRegion = null;
+        solveGeneration++;
+        solverSummary = null;
+        stabilitySummary = null;
+        if (imagePanel != null) {
+            imagePanel.setRegions(null, null);
+        }
+        clearHeatmap();
+        updateOutputArea();
+    }
+
+    private void recordRegion(Rectangle region, boolean negative) {
+        if (imagePanel == null || imagePanel.getImage() == null) {
+            return;
+        }
+        BufferedImage image = imagePanel.getImage();
+        Rectangle clipped = region.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        if (clipped.isEmpty()) {
+            return;
+        }
+        if (negative) {
+            negativeRegion = clipped;
+        } else {
+            targetRegion = clipped;
+        }
+        imagePanel.setRegions(targetRegion, negativeRegion);
+    }
+
+    /**
+     * Replaces the cluster with the solver's pick for the target region, off the EDT like {@link #analyzeCluster}.
+     */
+    private void solveCluster() {
+        if (imagePanel == null || targetRegion == null) {
+            if (outputArea != null) {
+                outputArea.setText(
+                        "Drag over the target to solve for it; right- or shift-drag marks a negative region.");
+            }
+            return;
+        }
+        BufferedImage image = snapshotImage != null ? snapshotImage : imagePanel.getImage();
+        if (image == null) {
+            return;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        // Regions were drawn on an earlier image, which may have had another size
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+        Rectangle target = targetRegion.intersection(bounds);
+        Rectangle negative = negativeRegion != null ? negativeRegion.intersection(bounds) : null;
+        if (target.isEmpty()) {
+            return;
+        }
+        if (negative != null && negative.isEmpty()) {
+            negative = null;
+        }
+        Rectangle negativeArea = negative;
+        int generation = ++solveGeneration;
+        ForkJoinPool.commonPool().execute(() -> {
+            ClusterSolver.Result result = ClusterSolver.solve(pixels, width, height, target, negativeArea);
+            SwingUtilities.invokeLater(() -> showSolution(result, generation));
+        });
+    }
+
+    private void showSolution(ClusterSolver.Result result, int generation) {
+        if (generation != solveGeneration) {
+            return;
+        }
+        // The solved tolerances are RGB ones, so the cluster has to be written out as RGB
+        boolean switched = selectedColorMode != ColorMode.RGB;
+        if (colorModeSelector != null) {
+            colorModeSelector.setSelectedItem(ColorMode.RGB);
+        }
+        selectedColorMode = ColorMode.RGB;
+        clickedPixels.clear();
+        clickedPixels.addAll(result.cluster());
+        solverSummary = switched
+                ? result.summary() + "\n// Colour model switched to RGB; the solver has no HSL mode"
+                : result.summary();
+        stabilitySummary = null;
+        clearHeatmap();
+        updateOutputArea();
+    }
+
+    /**
+     * Captures the next frames into the burst ring from the poll loop; once it is full the cluster is checked
+     * against every frame and only the pixels that held up are kept.
+     */
+    private void startBurst() {
+        if (clickedPixels.isEmpty() || burstRunning.get()) {
+            return;
+        }
+        burst.reset(burstSize);
+        burstCluster = List.copyOf(clickedPixels);
+        burstMode = selectedColorMode;
+        burstRunning.set(true);
+        if (outputArea != null) {
+            outputArea.setText("Capturing " + burstSize + " frames...");
+        }
+    }
+
+    private void showStability(List<Stability> report, List<ClusterPixel> cluster) {
+        burstRunning.set(false);
+        // A cluster edited during the burst keeps its edits; the report still describes the old one
+        if (clickedPixels.equals(cluster)) {
+            clickedPixels.clear();
+            for (Stability entry : report) {
+                if (entry.isStable()) {
+                    clickedPixels.add(entry.pixel());
+                }
+            }
+            clearHeatmap();
+        }
+        stabilitySummary = Stability.summary(report);
+        updateOutputArea();
+    }
+
+    /**
+     * Scans the whole snapshot for the clicked pixels off the EDT and overlays where they match. Results that come
+     * back after the cluster, model, tolerance or image changed are dropped.
+     */
+    private void analyzeCluster() {
+        if (imagePanel == null || clickedPixels.isEmpty()) {
+            return;
+        }
+        BufferedImage image = snapshotImage != null ? snapshotImage : imagePanel.getImage();
+        if (image == null) {
+            return;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        // Copied here since a live front buffer is recycled once it leaves the screen
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] targets = clickedPixels.stream().mapToInt(ClusterPixel::argb).toArray();
+        int[] tolerances = clickedPixels.stream().mapToInt(ClusterPixel::tolerance).toArray();
+        ColorMode mode = selectedColorMode;
+        int generation = ++heatmapGeneration;
+        ForkJoinPool.commonPool().execute(() -> {
+            Heatmap heatmap = Heatmap.scan(pixels, width, height, targets, tolerances, mode);
+            SwingUtilities.invokeLater(() -> showHeatmap(heatmap, generation));
+        });
+    }
+
+    private void showHeatmap(Heatmap heatmap, int generation) {
+        if (generation != heatmapGeneration || imagePanel == null) {
+            return;
+        }
+        imagePanel.setOverlay(heatmap.overlay());
+        heatmapSummary = heatmap.summary(clickedPixels);
         updateOutputArea();
     }
 
+    private void clearHeatmap() {
+        heatmapGeneration++;
+        heatmapSummary = null;
+        if (imagePanel != null) {
+            imagePanel.setOverlay(null);
+        }
+    }
+
     private void requestSnapshot() {
         snapshotRequested = true;
     }
 
+    private void setLiveMode(boolean enabled) {
+        if (enabled) {
+            // The panel may be showing a snapshot, so the first live frame repaints in full
+            liveFrames.invalidate();
+        }
+        liveMode = enabled;
+    }
+
     private void copyOutput() {
         if (outputArea == null) {
             return;
@@ -329,12 +656,88 @@ public class PixelGrabber extends Script {
         RGB
     }
 
+    /**
+     * A cluster colour with its tolerance, and where on screen it was taken from.
+     */
+    private record ClusterPixel(int argb, int tolerance, int x, int y) {
+        private ClusterPixel withTolerance(int tolerance) {
+            return new ClusterPixel(argb, tolerance, x, y);
+        }
+    }
+
+    /**
+     * A colour in the selected model, packed like RGB: 0-255 hue, saturation and lightness for HSL, the RGB
+     * channels otherwise.
+     */
+    private static int toModel(int rgb, boolean hsl) {
+        return hsl ? toHsl(rgb) : rgb & 0xFFFFFF;
+    }
+
+    /**
+     * The largest per-channel difference between two packed colours, which is what a single threshold bounds. For
+     * HSL the top channel is hue, which wraps around.
+     */
+    private static int channelDistance(int a, int b, boolean hsl) {
+        int first = Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF));
+        if (hsl) {
+            first = Math.min(first, 256 - first);
+        }
+        int second = Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF));
+        int third = Math.abs((a & 0xFF) - (b & 0xFF));
+        return Math.max(first, Math.max(second, third));
+    }
+
+    /**
+     * Hue, saturation and lightness of an RGB colour, each scaled to 0-255 and packed like RGB. This scale is our own:
+     * the client doesn't expose how its comparator scales HSL, so every HSL match, tolerance and spread this tool
+     * reports only approximates what the client would do.
+     */
+    private static int toHsl(int rgb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        int sum = max + min;
+        int lightness = sum / 2;
+        int delta = max - min;
+        if (delta == 0) {
+            return lightness;
+        }
+        int saturation = delta * 255 / (sum > 255 ? 510 - sum : sum);
+        // Hue in sixths of the circle, 256 steps around
+        int hue;
+        if (max == r) {
+            hue = (g - b) * 256 / (6 * delta);
+        } else if (max == g) {
+            hue = (2 * delta + b - r) * 256 / (6 * delta);
+        } else {
+            hue = (4 * delta + r - g) * 256 / (6 * delta);
+        }
+        hue &= 0xFF;
+        return (hue << 16) | (saturation << 8) | lightness;
+    }
+
     private static final class ScreenImagePanel extends JPanel {
+        // Shorter drags are treated as clicks
+        private static final int MIN_DRAG = 4;
+        private static final Color TARGET_COLOR = new Color(0, 220, 0);
+        private static final Color NEGATIVE_COLOR = new Color(230, 0, 0);
+
         private BufferedImage image;
+        private BufferedImage overlay;
         private HoverListener hoverListener;
         private Runnable hoverExitListener;
         private ClickListener clickListener;
-        private Point lastHoverPoint;
+        private RegionListener regionListener;
+        private final Point lastHoverPoint = new Point();
+        private boolean hovering;
+        private Point dragStart;
+        private final Rectangle dragRegion = new Rectangle();
+        private boolean dragging;
+        private boolean dragNegative;
+        private Rectangle targetRegion;
+        private Rectangle negativeRegion;
 
         private ScreenImagePanel(BufferedImage image) {
             setImage(image);
@@ -347,6 +750,7 @@ public class PixelGrabber extends Script {
                 @Override
                 public void mouseDragged(MouseEvent e) {
                     handleHover(e.getX(), e.getY());
+                    handleDrag(e.getX(), e.getY());
                 }
             });
             addMouseListener(new MouseAdapter() {
@@ -357,9 +761,27 @@ public class PixelGrabber extends Script {
                     }
                 }
 
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragStart = e.getPoint();
+                    dragNegative = SwingUtilities.isRightMouseButton(e) || e.isShiftDown();
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    if (dragging && regionListener != null) {
+                        regionListener.onRegion(new Rectangle(dragRegion), dragNegative);
+                    }
+                    if (dragging) {
+                        dragging = false;
+                        repaint();
+                    }
+                    dragStart = null;
+                }
+
                 @Override
                 public void mouseExited(MouseEvent e) {
-                    lastHoverPoint = null;
+                    hovering = false;
                     if (hoverExitListener != null) {
                         hoverExitListener.run();
                     }
@@ -368,12 +790,25 @@ public class PixelGrabber extends Script {
         }
 
         private void handleHover(int x, int y) {
-            lastHoverPoint = new Point(x, y);
+            lastHoverPoint.setLocation(x, y);
+            hovering = true;
             if (hoverListener != null) {
                 hoverListener.onHover(x, y);
             }
         }
 
+        private void handleDrag(int x, int y) {
+            if (dragStart == null) {
+                return;
+            }
+            dragRegion.setBounds(Math.min(dragStart.x, x), Math.min(dragStart.y, y),
+                    Math.abs(x - dragStart.x), Math.abs(y - dragStart.y));
+            dragging = dragging || dragRegion.width >= MIN_DRAG || dragRegion.height >= MIN_DRAG;
+            if (dragging) {
+                repaint();
+            }
+        }
+
         private void setHoverListener(HoverListener listener) {
             this.hoverListener = listener;
         }
@@ -386,14 +821,38 @@ public class PixelGrabber extends Script {
             this.clickListener = listener;
         }
 
+        private void setRegionListener(RegionListener listener) {
+            this.regionListener = listener;
+        }
+
+        private void setRegions(Rectangle target, Rectangle negative) {
+            this.targetRegion = target;
+            this.negativeRegion = negative;
+            repaint();
+        }
+
         private Point getLastHoverPoint() {
-            return lastHoverPoint;
+            return hovering ? lastHoverPoint : null;
         }
 
         private BufferedImage getImage() {
             return image;
         }
 
+        /**
+         * Shows {@code image} in place of a same-sized image without relayout; the caller repaints what changed.
+         */
+        private void swapImage(BufferedImage image) {
+            this.image = image;
+        }
+
+        private void setOverlay(BufferedImage overlay) {
+            if (this.overlay != overlay) {
+                this.overlay = overlay;
+                repaint();
+            }
+        }
+
         private void setImage(BufferedImage image) {
             this.image = image;
             if (image != null) {
@@ -409,6 +868,21 @@ public class PixelGrabber extends Script {
             if (image != null) {
                 g.drawImage(image, 0, 0, null);
             }
+            if (overlay != null) {
+                g.drawImage(overlay, 0, 0, null);
+            }
+            drawRegion(g, targetRegion, TARGET_COLOR);
+            drawRegion(g, negativeRegion, NEGATIVE_COLOR);
+            if (dragging) {
+                drawRegion(g, dragRegion, dragNegative ? NEGATIVE_COLOR : TARGET_COLOR);
+            }
+        }
+
+        private static void drawRegion(Graphics g, Rectangle region, Color color) {
+            if (region != null) {
+                g.setColor(color);
+                g.drawRect(region.x, region.y, region.width, region.height);
+            }
         }
     }
 
@@ -420,22 +894,643 @@ public class PixelGrabber extends Script {
         void onClick(int x, int y);
     }
 
-    
+    private interface RegionListener {
+        void onRegion(Rectangle region, boolean negative);
+    }
+
+    /**
+     * Where a cluster's pixels match across a whole frame. Each screen pixel is compared with every cluster pixel
+     * using that pixel's single threshold per channel, like SingleThresholdComparator, in 0-255 RGB or
+     * {@linkplain PixelGrabber#toHsl HSL}, and the overlay colours it from yellow (one clicked pixel matches) to red
+     * (all of them do). Row bands are scanned in parallel on the common fork-join pool; every band writes its own
+     * overlay rows and returns its own counts.
+     */
+    private static final class Heatmap {
+        private static final int BAND_ROWS = 16;
+        private static final int CELL_SIZE = 16;
+        private static final int OVERLAY_ALPHA = 170;
+
+        private final BufferedImage overlay;
+        // Per clicked pixel, then the total of screen pixels matching any of them
+        private final int[] counts;
+        private final int cellsHit;
+        private final int cellCount;
+        private final boolean hsl;
+
+        private Heatmap(BufferedImage overlay, int[] counts, int cellsHit, int cellCount, boolean hsl) {
+            this.overlay = overlay;
+            this.counts = counts;
+            this.cellsHit = cellsHit;
+            this.cellCount = cellCount;
+            this.hsl = hsl;
+        }
+
+        private static Heatmap scan(int[] pixels, int width, int height, int[] targets, int[] tolerances,
+                                    ColorMode mode) {
+            BufferedImage overlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            int[] heat = ((DataBufferInt) overlay.getRaster().getDataBuffer()).getData();
+            int[] packedTargets = new int[targets.length];
+            for (int i = 0; i < targets.length; i++) {
+                packedTargets[i] = toModel(targets[i], mode == ColorMode.HSL);
+            }
+            int[] palette = new int[targets.length + 1];
+            for (int matched = 1; matched <= targets.length; matched++) {
+                int green = targets.length == 1 ? 0 : 255 - 255 * (matched - 1) / (targets.length - 1);
+                palette[matched] = (OVERLAY_ALPHA << 24) | (255 << 16) | (green << 8);
+            }
+            int cellsX = (width + CELL_SIZE - 1) / CELL_SIZE;
+            int cellsY = (height + CELL_SIZE - 1) / CELL_SIZE;
+            boolean[] cells = new boolean[cellsX * cellsY];
+
+            int[] counts = ForkJoinPool.commonPool().invoke(new BandScan(pixels, heat, cells, width, cellsX,
+                    packedTargets, tolerances, palette, mode == ColorMode.HSL, 0, height));
+            int cellsHit = 0;
+            for (boolean cell : cells) {
+                if (cell) {
+                    cellsHit++;
+                }
+            }
+            return new Heatmap(overlay, counts, cellsHit, cells.length, mode == ColorMode.HSL);
+        }
+
+        private BufferedImage overlay() {
+            return overlay;
+        }
+
+        private String summary(List<ClusterPixel> targets) {
+            int pixels = overlay.getWidth() * overlay.getHeight();
+            int total = counts[targets.size()];
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("// Matches: %d of %d pixels (%.2f%%), in %d of %d %dpx cells%n",
+                    total, pixels, 100.0 * total / pixels, cellsHit, cellCount, CELL_SIZE));
+            if (hsl) {
+                sb.append(HSL_NOTE).append('\n');
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                sb.append(String.format("//   %d: %d%n", targets.get(i).argb(), counts[i]));
+            }
+            return sb.toString().trim();
+        }
+
+        private static final class BandScan extends RecursiveTask<int[]> {
+            private final int[] pixels;
+            private final int[] heat;
+            private final boolean[] cells;
+            private final int width;
+            private final int cellsX;
+            private final int[] targets;
+            private final int[] tolerances;
+            private final int[] palette;
+            private final boolean hsl;
+            private final int fromRow;
+            private final int toRow;
+
+            private BandScan(int[] pixels, int[] heat, boolean[] cells, int width, int cellsX, int[] targets,
+                             int[] tolerances, int[] palette, boolean hsl, int fromRow, int toRow) {
+                this.pixels = pixels;
+                this.heat = heat;
+                this.cells = cells;
+                this.width = width;
+                this.cellsX = cellsX;
+                this.targets = targets;
+                this.tolerances = tolerances;
+                this.palette = palette;
+                this.hsl = hsl;
+                this.fromRow = fromRow;
+                this.toRow = toRow;
+            }
+
+            @Override
+            protected int[] compute() {
+                if (toRow - fromRow > BAND_ROWS) {
+                    int middle = (fromRow + toRow) >>> 1;
+                    BandScan top = new BandScan(pixels, heat, cells, width, cellsX, targets, tolerances, palette, hsl,
+                            fromRow, middle);
+                    top.fork();
+                    int[] bottom = new BandScan(pixels, heat, cells, width, cellsX, targets, tolerances, palette, hsl,
+                            middle, toRow).compute();
+                    int[] counts = top.join();
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += bottom[i];
+                    }
+                    return counts;
+                }
+                return scanRows();
+            }
+
+            private int[] scanRows() {
+                int[] counts = new int[targets.length + 1];
+                for (int y = fromRow; y < toRow; y++) {
+                    int row = y * width;
+                    int cellRow = (y / CELL_SIZE) * cellsX;
+                    for (int x = 0; x < width; x++) {
+                        int color = toModel(pixels[row + x], hsl);
+                        int matched = 0;
+                        for (int i = 0; i < targets.length; i++) {
+                            if (channelDistance(color, targets[i], hsl) <= tolerances[i]) {
+                                counts[i]++;
+                                matched++;
+                            }
+                        }
+                        if (matched > 0) {
+                            counts[targets.length]++;
+                            heat[row + x] = palette[matched];
+                            cells[cellRow + x / CELL_SIZE] = true;
+                        }
+                    }
+                }
+                return counts;
+            }
+        }
+    }
+
+    /**
+     * Picks the fewest colours, each with the largest tolerance, that match a target region and nothing in the
+     * negative region (the rest of the frame by default). It works in RGB only, since a tolerance solved on our
+     * {@linkplain PixelGrabber#toHsl HSL scale} would not carry over to the client. Both regions are reduced to colour
+     * histograms. The most common target colours are candidates; each one's tolerance is one less than its distance
+     * to the nearest negative colour, so it can't match anything outside the target. Candidates are then taken
+     * greedily by how many still-uncovered target pixels they add. Tolerances and coverage are evaluated in parallel
+     * across candidates.
+     */
+    private static final class ClusterSolver {
+        private static final int MAX_CANDIDATES = 512;
+        private static final int MAX_COLORS = 8;
+        private static final int MAX_TOLERANCE = 255;
+        // After the first colour, one that adds less than this share of the target is not worth a comparison
+        private static final double MIN_GAIN = 0.01;
+
+        private record Result(List<ClusterPixel> cluster, int covered, int targetPixels, int negativePixels) {
+            private String summary() {
+                if (cluster.isEmpty()) {
+                    return "// Solver (RGB): every colour in the target also appears outside it; try a tighter region";
+                }
+                return String.format(
+                        "// Solver (RGB): %d colour%s match %.1f%% of the target's %d pixels and none of the %d others",
+                        cluster.size(), cluster.size() == 1 ? "" : "s", 100.0 * covered / targetPixels, targetPixels,
+                        negativePixels);
+            }
+        }
+
+        /**
+         * Distinct colours of a region, most common first, with the index of one pixel showing each.
+         */
+        private record Histogram(int[] colors, int[] counts, int[] samples, int total) {
+        }
+
+        private static Result solve(int[] pixels, int width, int height, Rectangle target, Rectangle negative) {
+            Histogram wanted = histogram(pixels, width, target, null);
+            Histogram unwanted = negative != null
+                    ? histogram(pixels, width, negative, target)
+                    : histogram(pixels, width, new Rectangle(0, 0, width, height), target);
+
+            int candidates = Math.min(MAX_CANDIDATES, wanted.colors().length);
+            int[] limits = new int[candidates];
+            IntStream.range(0, candidates).parallel()
+                    .forEach(i -> limits[i] = cleanTolerance(wanted.colors()[i], unwanted.colors()));
+            BitSet[] covers = new BitSet[candidates];
+            IntStream.range(0, candidates).parallel().forEach(i -> {
+                if (limits[i] >= 0) {
+                    covers[i] = coverage(wanted.colors()[i], limits[i], wanted.colors());
+                }
+            });
+
+            List<ClusterPixel> cluster = new ArrayList<>();
+            BitSet covered = new BitSet();
+            int coveredPixels = 0;
+            double minGain = MIN_GAIN * wanted.total();
+            while (cluster.size() < MAX_COLORS) {
+                int best = -1;
+                int bestGain = 0;
+                for (int i = 0; i < candidates; i++) {
+                    int gain = covers[i] == null ? 0 : uncoveredPixels(covers[i], covered, wanted.counts());
+                    if (gain > bestGain) {
+                        best = i;
+                        bestGain = gain;
+                    }
+                }
+                if (best < 0 || (!cluster.isEmpty() && bestGain < minGain)) {
+                    break;
+                }
+                int sample = wanted.samples()[best];
+                cluster.add(new ClusterPixel(pixels[sample], limits[best], sample % width, sample / width));
+                covered.or(covers[best]);
+                coveredPixels += bestGain;
+            }
+            return new Result(cluster, coveredPixels, wanted.total(), unwanted.total());
+        }
+
+        private static Histogram histogram(int[] pixels, int width, Rectangle region, Rectangle excluded) {
+            // RGB in the high half, pixel index in the low half, so sorting groups by colour
+            long[] keys = new long[region.width * region.height];
+            int size = 0;
+            for (int y = region.y; y < region.y + region.height; y++) {
+                for (int x = region.x; x < region.x + region.width; x++) {
+                    if (excluded != null && excluded.contains(x, y)) {
+                        continue;
+                    }
+                    int index = y * width + x;
+                    keys[size++] = ((long) toModel(pixels[index], false) << 32) | index;
+                }
+            }
+            Arrays.parallelSort(keys, 0, size);
+
+            int distinct = 0;
+            int[] colors = new int[size];
+            int[] counts = new int[size];
+            int[] samples = new int[size];
+            for (int i = 0; i < size; i++) {
+                int color = (int) (keys[i] >>> 32);
+                if (distinct == 0 || colors[distinct - 1] != color) {
+                    colors[distinct] = color;
+                    samples[distinct] = (int) keys[i];
+                    distinct++;
+                }
+                counts[distinct - 1]++;
+            }
+            Integer[] order = IntStream.range(0, distinct).boxed().toArray(Integer[]::new);
+            Arrays.sort(order, Comparator.comparingInt((Integer i) -> counts[i]).reversed());
+            int[] sortedColors = new int[distinct];
+            int[] sortedCounts = new int[distinct];
+            int[] sortedSamples = new int[distinct];
+            for (int i = 0; i < distinct; i++) {
+                sortedColors[i] = colors[order[i]];
+                sortedCounts[i] = counts[order[i]];
+                sortedSamples[i] = samples[order[i]];
+            }
+            return new Histogram(sortedColors, sortedCounts, sortedSamples, size);
+        }
+
+        // The largest threshold that keeps every negative colour out, or -1 if the colour itself is one
+        private static int cleanTolerance(int color, int[] negatives) {
+            int nearest = MAX_TOLERANCE + 1;
+            for (int negative : negatives) {
+                nearest = Math.min(nearest, channelDistance(color, negative, false));
+                if (nearest == 0) {
+                    break;
+                }
+            }
+            return nearest - 1;
+        }
+
+        private static BitSet coverage(int color, int tolerance, int[] colors) {
+            BitSet cover = new BitSet(colors.length);
+            for (int i = 0; i < colors.length; i++) {
+                if (channelDistance(color, colors[i], false) <= tolerance) {
+                    cover.set(i);
+                }
+            }
+            return cover;
+        }
+
+        private static int uncoveredPixels(BitSet cover, BitSet covered, int[] counts) {
+            int pixels = 0;
+            for (int i = cover.nextSetBit(0); i >= 0; i = cover.nextSetBit(i + 1)) {
+                if (!covered.get(i)) {
+                    pixels += counts[i];
+                }
+            }
+            return pixels;
+        }
+    }
+
+    /**
+     * The last few captured frames as reusable pixel arrays; adding to a full ring overwrites the oldest frame.
+     */
+    private static final class FrameRing {
+        private int[][] slots = new int[0][];
+        private int width;
+        private int height;
+        private int head;
+        private int size;
+
+        private void reset(int capacity) {
+            if (slots.length != capacity) {
+                slots = new int[capacity][];
+            }
+            head = 0;
+            size = 0;
+        }
+
+        private void add(BufferedImage frame) {
+            int frameWidth = frame.getWidth();
+            int frameHeight = frame.getHeight();
+            if (frameWidth != width || frameHeight != height) {
+                // Frames of another size can't be compared pixel for pixel
+                width = frameWidth;
+                height = frameHeight;
+                Arrays.fill(slots, null);
+                head = 0;
+                size = 0;
+            }
+            if (slots[head] == null) {
+                slots[head] = new int[width * height];
+            }
+            frame.getRGB(0, 0, width, height, slots[head], 0, width);
+            head = (head + 1) % slots.length;
+            size = Math.min(size + 1, slots.length);
+        }
+
+        private boolean isFull() {
+            return size == slots.length;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        /**
+         * The {@code index}th frame, oldest first.
+         */
+        private int[] frame(int index) {
+            return slots[(head - size + index + slots.length) % slots.length];
+        }
+    }
+
+    /**
+     * How a cluster pixel held up over a burst: the number of frames in which its colour matched anywhere within its
+     * tolerance, and the standard deviation of each channel, in RGB and in HSL, at the spot it was taken from. Only
+     * pixels present in every frame are stable. Frames are checked in parallel. HSL is measured on the
+     * {@linkplain PixelGrabber#toHsl tool's own scale}.
+     */
+    private record Stability(ClusterPixel pixel, int present, int frames, double[] rgbSpread, double[] hslSpread) {
+        private boolean isStable() {
+            return present == frames;
+        }
+
+        private static List<Stability> analyze(FrameRing ring, List<ClusterPixel> cluster, ColorMode mode) {
+            boolean hsl = mode == ColorMode.HSL;
+            int frames = ring.size();
+            int[] targets = new int[cluster.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = toModel(cluster.get(i).argb(), hsl);
+            }
+            boolean[][] found = new boolean[frames][];
+            IntStream.range(0, frames).parallel()
+                    .forEach(f -> found[f] = presentIn(ring.frame(f), targets, cluster, hsl));
+
+            List<Stability> report = new ArrayList<>();
+            for (int i = 0; i < targets.length; i++) {
+                ClusterPixel pixel = cluster.get(i);
+                int present = 0;
+                for (boolean[] frame : found) {
+                    if (frame[i]) {
+                        present++;
+                    }
+                }
+                int[] rgb = new int[frames];
+                int[] hslSamples = new int[frames];
+                boolean inside = pixel.x() >= 0 && pixel.y() >= 0 && pixel.x() < ring.width && pixel.y() < ring.height;
+                for (int f = 0; inside && f < frames; f++) {
+                    int argb = ring.frame(f)[pixel.y() * ring.width + pixel.x()];
+                    rgb[f] = toModel(argb, false);
+                    hslSamples[f] = toModel(argb, true);
+                }
+                report.add(new Stability(pixel, present, frames, inside ? spread(rgb, false) : null,
+                        inside ? spread(hslSamples, true) : null));
+            }
+            return report;
+        }
+
+        private static boolean[] presentIn(int[] pixels, int[] targets, List<ClusterPixel> cluster, boolean hsl) {
+            boolean[] found = new boolean[targets.length];
+            int missing = targets.length;
+            for (int p = 0; p < pixels.length && missing > 0; p++) {
+                int color = toModel(pixels[p], hsl);
+                for (int i = 0; i < targets.length; i++) {
+                    if (!found[i] && channelDistance(color, targets[i], hsl) <= cluster.get(i).tolerance()) {
+                        found[i] = true;
+                        missing--;
+                    }
+                }
+            }
+            return found;
+        }
+
+        // Per-channel standard deviation of packed colours; a wrapping first channel is measured from the first sample
+        private static double[] spread(int[] samples, boolean wrapFirst) {
+            double[] deviation = new double[3];
+            for (int channel = 0; channel < 3; channel++) {
+                int shift = 16 - channel * 8;
+                int origin = (samples[0] >> shift) & 0xFF;
+                double sum = 0;
+                double sumSquares = 0;
+                for (int sample : samples) {
+                    int value = ((sample >> shift) & 0xFF) - origin;
+                    if (wrapFirst && channel == 0) {
+                        value = (byte) value;
+                    }
+                    sum += value;
+                    sumSquares += (double) value * value;
+                }
+                double mean = sum / samples.length;
+                deviation[channel] = Math.sqrt(Math.max(0, sumSquares / samples.length - mean * mean));
+            }
+            return deviation;
+        }
+
+        private static String summary(List<Stability> report) {
+            int kept = 0;
+            for (Stability entry : report) {
+                if (entry.isStable()) {
+                    kept++;
+                }
+            }
+            int frames = report.isEmpty() ? 0 : report.get(0).frames();
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("// Stability over %d frames: kept %d of %d%n", frames, kept, report.size()));
+            sb.append(HSL_NOTE).append('\n');
+            for (Stability entry : report) {
+                sb.append(String.format("//   %d tol %d: present %d/%d, RGB sd %s, HSL sd %s%s%n",
+                        entry.pixel().argb(), entry.pixel().tolerance(), entry.present(), frames,
+                        format(entry.rgbSpread()), format(entry.hslSpread()), entry.isStable() ? "" : "  (dropped)"));
+            }
+            return sb.toString().trim();
+        }
+
+        private static String format(double[] spread) {
+            return spread == null ? "n/a" : String.format("%.1f/%.1f/%.1f", spread[0], spread[1], spread[2]);
+        }
+    }
+
+    /**
+     * The two frame buffers behind live mode. The capture thread copies each frame into the back buffer and compares
+     * it with the front one in tiles; the EDT then swaps them and repaints only the changed tiles, merged into runs
+     * along each tile row. No capture starts while a swap is pending, so the buffer on screen is never written.
+     */
+    private static final class LiveFrames {
+        private static final int TILE_SIZE = 32;
+
+        private final AtomicBoolean swapPending = new AtomicBoolean();
+        private BufferedImage front;
+        private BufferedImage back;
+        private int[] frontPixels;
+        private int[] backPixels;
+        // x, y, width, height of each changed run
+        private int[] dirtyRuns = new int[0];
+        private int dirtyRunCount;
+        // Whether the panel is showing the front buffer; if not, the next swap repaints in full
+        private volatile boolean valid;
+
+        private boolean isSwapPending() {
+            return swapPending.get();
+        }
+
+        private void invalidate() {
+            valid = false;
+        }
+
+        /**
+         * Copies {@code frame} into the back buffer. Returns true if it needs to be shown, in which case a swap is
+         * pending until {@link #swap} runs.
+         */
+        private boolean load(BufferedImage frame) {
+            int width = frame.getWidth();
+            int height = frame.getHeight();
+            int type = frame.getType() == BufferedImage.TYPE_INT_RGB
+                    ? BufferedImage.TYPE_INT_RGB
+                    : BufferedImage.TYPE_INT_ARGB;
+            if (back == null || back.getWidth() != width || back.getHeight() != height || back.getType() != type) {
+                allocate(width, height, type);
+            }
+            copy(frame, width, height);
+
+            boolean changed = !valid || diff(width, height);
+            if (changed) {
+                swapPending.set(true);
+            }
+            return changed;
+        }
+
+        /**
+         * Runs on the EDT: makes the back buffer the front one and shows it. Returns the new front buffer.
+         */
+        private BufferedImage swap(ScreenImagePanel panel) {
+            BufferedImage shown = back;
+            back = front;
+            front = shown;
+            int[] pixels = backPixels;
+            backPixels = frontPixels;
+            frontPixels = pixels;
+
+            if (panel != null) {
+                if (!valid) {
+                    panel.setImage(front);
+                } else {
+                    panel.swapImage(front);
+                    for (int i = 0; i < dirtyRunCount; i++) {
+                        int run = i * 4;
+                        panel.repaint(dirtyRuns[run], dirtyRuns[run + 1], dirtyRuns[run + 2], dirtyRuns[run + 3]);
+                    }
+                }
+                valid = true;
+            }
+            swapPending.set(false);
+            return front;
+        }
 
+        private void allocate(int width, int height, int type) {
+            // The front buffer may be on screen; it is replaced by the full repaint this forces
+            front = new BufferedImage(width, height, type);
+            back = new BufferedImage(width, height, type);
+            frontPixels = ((DataBufferInt) front.getRaster().getDataBuffer()).getData();
+            backPixels = ((DataBufferInt) back.getRaster().getDataBuffer()).getData();
+            int tiles = ((width + TILE_SIZE - 1) / TILE_SIZE) * ((height + TILE_SIZE - 1) / TILE_SIZE);
+            dirtyRuns = new int[tiles * 4];
+            valid = false;
+        }
+
+        private void copy(BufferedImage frame, int width, int height) {
+            WritableRaster raster = frame.getRaster();
+            if (frame.getType() == back.getType()
+                    && raster.getDataBuffer() instanceof DataBufferInt buffer
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel model
+                    && model.getScanlineStride() == width
+                    && buffer.getOffset() == 0
+                    && raster.getSampleModelTranslateX() == 0
+                    && raster.getSampleModelTranslateY() == 0) {
+                System.arraycopy(buffer.getData(), 0, backPixels, 0, width * height);
+            } else {
+                frame.getRGB(0, 0, width, height, backPixels, 0, width);
+            }
+        }
+
+        private boolean diff(int width, int height) {
+            dirtyRunCount = 0;
+            int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+            for (int y0 = 0; y0 < height; y0 += TILE_SIZE) {
+                int y1 = Math.min(height, y0 + TILE_SIZE);
+                int runStart = -1;
+                for (int tile = 0; tile <= tilesX; tile++) {
+                    int x0 = tile * TILE_SIZE;
+                    boolean changed = tile < tilesX && tileChanged(width, x0, Math.min(width, x0 + TILE_SIZE), y0, y1);
+                    if (changed && runStart < 0) {
+                        runStart = x0;
+                    } else if (!changed && runStart >= 0) {
+                        int run = dirtyRunCount++ * 4;
+                        dirtyRuns[run] = runStart;
+                        dirtyRuns[run + 1] = y0;
+                        dirtyRuns[run + 2] = Math.min(width, x0) - runStart;
+                        dirtyRuns[run + 3] = y1 - y0;
+                        runStart = -1;
+                    }
+                }
+            }
+            return dirtyRunCount > 0;
+        }
+
+        private boolean tileChanged(int width, int x0, int x1, int y0, int y1) {
+            for (int y = y0; y < y1; y++) {
+                int row = y * width;
+                if (!Arrays.equals(frontPixels, row + x0, row + x1, backPixels, row + x0, row + x1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Shows the pixels around the hovered point at a fixed on-screen size; the zoom decides how many source pixels
+     * that covers. The source window is copied row by row out of the image's int buffer into a reused image that is
+     * scaled up in a single nearest-neighbour draw, so a hover costs a few array copies and no allocations.
+     */
     private static final class MagnifierPanel extends JPanel {
-        private final int sourceSize;
-        private final int zoomFactor;
+        // Opaque black for pixels outside the image, and the alpha to add to RGB pixels
+        private static final int OPAQUE = 0xFF000000;
+        private static final Color GRID_COLOR = new Color(0, 0, 0, 70);
+        // Below this the grid lines cover more of the view than the pixels do
+        private static final int MIN_GRID_ZOOM = 4;
+
+        private final int viewSize;
+        private int zoomFactor;
+        private int sourceSize;
+        private boolean gridVisible = true;
+        private BufferedImage window;
+        private int[] windowPixels;
         private BufferedImage image;
         private int centerX;
         private int centerY;
 
-        private MagnifierPanel(int sourceSize, int zoomFactor) {
-            this.sourceSize = sourceSize;
-            this.zoomFactor = zoomFactor;
-            int size = sourceSize * zoomFactor;
-            setPreferredSize(new Dimension(size, size));
-            setMinimumSize(new Dimension(size, size));
+        private MagnifierPanel(int viewSize, int zoomFactor) {
+            this.viewSize = viewSize;
+            setPreferredSize(new Dimension(viewSize, viewSize));
+            setMinimumSize(new Dimension(viewSize, viewSize));
             setBorder(BorderFactory.createLineBorder(Color.DARK_GRAY));
+            setZoom(zoomFactor);
+        }
+
+        private void setZoom(int zoomFactor) {
+            this.zoomFactor = zoomFactor;
+            this.sourceSize = Math.max(1, viewSize / zoomFactor);
+            window = new BufferedImage(sourceSize, sourceSize, BufferedImage.TYPE_INT_ARGB);
+            windowPixels = ((DataBufferInt) window.getRaster().getDataBuffer()).getData();
+            repaint();
+        }
+
+        private void setGridVisible(boolean gridVisible) {
+            this.gridVisible = gridVisible;
+            repaint();
         }
 
         private void update(BufferedImage image, int x, int y) {
@@ -448,23 +1543,72 @@ public class PixelGrabber extends Script {
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
-            int half = sourceSize / 2;
-            for (int sx = 0; sx < sourceSize; sx++) {
-                for (int sy = 0; sy < sourceSize; sy++) {
-                    int srcX = centerX - half + sx;
-                    int srcY = centerY - half + sy;
-                    Color color = Color.BLACK;
-                    if (image != null && srcX >= 0 && srcY >= 0 && srcX < image.getWidth() && srcY < image.getHeight()) {
-                        color = new Color(image.getRGB(srcX, srcY), true);
-                    }
-                    g.setColor(color);
-                    g.fillRect(sx * zoomFactor, sy * zoomFactor, zoomFactor, zoomFactor);
+            copyWindow();
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            int size = sourceSize * zoomFactor;
+            g2.drawImage(window, 0, 0, size, size, null);
+
+            if (gridVisible && zoomFactor >= MIN_GRID_ZOOM) {
+                g2.setColor(GRID_COLOR);
+                for (int i = 1; i < sourceSize; i++) {
+                    int offset = i * zoomFactor;
+                    g2.drawLine(offset, 0, offset, size - 1);
+                    g2.drawLine(0, offset, size - 1, offset);
                 }
             }
 
             int centerIndex = sourceSize / 2;
-            g.setColor(Color.RED);
-            g.drawRect(centerIndex * zoomFactor, centerIndex * zoomFactor, zoomFactor, zoomFactor);
+            g2.setColor(Color.RED);
+            g2.drawRect(centerIndex * zoomFactor, centerIndex * zoomFactor, zoomFactor, zoomFactor);
+        }
+
+        private void copyWindow() {
+            Arrays.fill(windowPixels, OPAQUE);
+            if (image == null) {
+                return;
+            }
+            int left = centerX - sourceSize / 2;
+            int top = centerY - sourceSize / 2;
+            int x0 = Math.max(0, left);
+            int y0 = Math.max(0, top);
+            int x1 = Math.min(image.getWidth(), left + sourceSize);
+            int y1 = Math.min(image.getHeight(), top + sourceSize);
+            if (x0 >= x1 || y0 >= y1) {
+                return;
+            }
+
+            int type = image.getType();
+            WritableRaster raster = image.getRaster();
+            if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                    && raster.getDataBuffer() instanceof DataBufferInt buffer
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel model) {
+                int[] source = buffer.getData();
+                int stride = model.getScanlineStride();
+                // Subimages share their parent's buffer through a translated raster
+                int base = buffer.getOffset() - raster.getSampleModelTranslateX()
+                        - raster.getSampleModelTranslateY() * stride;
+                int width = x1 - x0;
+                boolean opaque = type == BufferedImage.TYPE_INT_RGB;
+                for (int y = y0; y < y1; y++) {
+                    int src = base + y * stride + x0;
+                    int dst = (y - top) * sourceSize + (x0 - left);
+                    if (opaque) {
+                        for (int i = 0; i < width; i++) {
+                            windowPixels[dst + i] = source[src + i] | OPAQUE;
+                        }
+                    } else {
+                        System.arraycopy(source, src, windowPixels, dst, width);
+                    }
+                }
+                return;
+            }
+
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    windowPixels[(y - top) * sourceSize + (x - left)] = image.getRGB(x, y);
+                }
+            }
         }
     }
 }
@@ -25,9 +25,13 @@ import javafx.scene.Scene;
 import tasks.BankTask;
 import tasks.HumidifyTask;
 import tasks.MineTask;
+import utils.FrameSnapshot;
+import utils.Metrics;
 import utils.Task;
+import utils.TaskTimings;
 import utils.WaterskinTracker;
 import utils.Webhook;
+import utils.WebhookOutbox;
 import utils.Webhook.WebhookData;
 
 import java.awt.Color;
@@ -57,6 +61,7 @@ public class SandstoneMinerScript extends Script {
   private GUI gui;
   private boolean settingsConfirmed = false;
   private Webhook webhook;
+  private final Metrics metrics = new Metrics("sandstone-miner", this::log);
   private Webhook.MiningLocation miningLocation = Webhook.MiningLocation.NORTH;
   private Webhook.MiningLocation lastMiningLocation = Webhook.MiningLocation.NORTH;
   private WorldPosition lastMovePosition = null;
@@ -68,7 +73,11 @@ public class SandstoneMinerScript extends Script {
   private long lastHopAttemptMs = 0;
   private final Set<WorldPosition> waitingRespawn = new HashSet<>();
   private boolean lastMineGainedXp = false;
-  private ItemGroupResult inventorySnapshot = null;
+  private static final Set<Integer> RUNE_IDS = Set.of(
+    ItemID.ASTRAL_RUNE,
+    ItemID.WATER_RUNE,
+    ItemID.FIRE_RUNE
+  );
   private Integer waterskinCharges = null;
   private boolean zoomConfigured = false;
   private long lastZoomAttemptMs = 0;
@@ -76,11 +85,12 @@ public class SandstoneMinerScript extends Script {
 
   private final WaterskinTracker waterskinTracker;
   private final List<Task> tasks = new ArrayList<>();
+  private final TaskTimings taskTimings = new TaskTimings();
 
   public SandstoneMinerScript(Object scriptCore) {
     super(scriptCore);
     waterskinTracker = new WaterskinTracker(this, SandstoneData.WATERSKIN_IDS);
-    webhook = new Webhook(this::buildWebhookData, this::log);
+    webhook = new Webhook(this::buildWebhookData, this::log, WebhookOutbox.defaultDirectory("sandstone-miner"));
     tasks.add(new HumidifyTask(this));
     tasks.add(new BankTask(this));
     tasks.add(new MineTask(this));
@@ -104,6 +114,16 @@ public class SandstoneMinerScript extends Script {
     });
     Scene scene = new Scene(gui);
     getStageController().show(scene, "Sandstone Miner Settings", false);
+    registerMetrics();
+  }
+
+  private void registerMetrics() {
+    metrics
+      .counter("osmb_items_mined_total", "Sandstone mined this session", () -> sandstoneMined)
+      .counter("osmb_xp_gained_total", "Mining XP gained this session", () -> Math.max(0, getMiningXp() - startMiningXp))
+      .gauge("osmb_runtime_seconds", "Seconds since the script started", () -> startTimeMs > 0 ? (System.currentTimeMillis() - startTimeMs) / 1000 : 0)
+      .gauge("osmb_waterskin_charges", "Waterskin charges left, -1 when unknown", () -> waterskinCharges != null ? waterskinCharges : -1)
+      .start();
   }
 
   @Override
@@ -123,17 +143,14 @@ public class SandstoneMinerScript extends Script {
     ensureZoomConfigured();
     isPlayerMoving();
 
-    inventorySnapshot = getWidgetManager().getInventory().search(Set.of(
-      ItemID.ASTRAL_RUNE,
-      ItemID.WATER_RUNE,
-      ItemID.FIRE_RUNE
-    ));
+    FrameSnapshot frame = new FrameSnapshot(this, RUNE_IDS);
 
     webhook.ensureStarted(() -> webhook.enqueueEvent("Stopped"));
     webhook.queuePeriodicWebhookIfDue();
     webhook.dispatchPendingWebhooks();
+    metrics.sampleIfDue();
 
-    if (inventorySnapshot == null) {
+    if (frame.getInventory() == null) {
       return 800;
     }
 
@@ -150,8 +167,8 @@ public class SandstoneMinerScript extends Script {
     waterskinCharges = waterskinTracker.getCharges();
 
     for (Task task : tasks) {
-      if (task.activate()) {
-        int delay = task.execute();
+      if (taskTimings.activate(task, frame)) {
+        int delay = taskTimings.execute(task, frame);
         if (delay >= 0) {
           return delay;
         }
@@ -188,14 +205,6 @@ public class SandstoneMinerScript extends Script {
     zoomConfigured = true;
   }
 
-  public boolean isInventoryFull() {
-    ItemGroupResult inv = inventorySnapshot;
-    if (inv == null) {
-      inv = getWidgetManager().getInventory().search(Collections.emptySet());
-    }
-    return inv != null && inv.isFull();
-  }
-
   public int handleFullInventory() {
     RSObject grinder = findGrinder();
 
@@ -500,18 +509,14 @@ public class SandstoneMinerScript extends Script {
     }, 6_000);
   }
 
-  private boolean canCastHumidify() {
+  private boolean canCastHumidify(FrameSnapshot frame) {
     try {
       var spellbook = getWidgetManager().getSpellbook();
       if (spellbook == null) {
         return false;
       }
 
-      ItemGroupResult inv = inventorySnapshot != null ? inventorySnapshot : getWidgetManager().getInventory().search(Set.of(
-        ItemID.ASTRAL_RUNE,
-        ItemID.WATER_RUNE,
-        ItemID.FIRE_RUNE
-      ));
+      ItemGroupResult inv = frame.getInventory();
       if (inv == null) {
         return false;
       }
@@ -540,8 +545,8 @@ public class SandstoneMinerScript extends Script {
     }
   }
 
-  public boolean shouldCastHumidify() {
-    if (!canCastHumidify()) {
+  public boolean shouldCastHumidify(FrameSnapshot frame) {
+    if (!canCastHumidify(frame)) {
       return false;
     }
     long now = System.currentTimeMillis();
@@ -594,10 +599,11 @@ public class SandstoneMinerScript extends Script {
     try {
       int x = 6;
       int y = 32;
-      int width = 180;
+      int timingLines = taskTimings.size();
+      int width = timingLines > 0 ? 240 : 180;
       int padding = 8;
       int lineHeight = 16;
-      int height = padding * 2 + lineHeight * 4;
+      int height = padding * 2 + lineHeight * (4 + timingLines);
 
       c.fillRect(x, y, width, height, new Color(10, 10, 10, 190).getRGB(), 1);
       c.drawRect(x, y, width, height, Color.WHITE.getRGB());
@@ -608,6 +614,10 @@ public class SandstoneMinerScript extends Script {
       c.drawText("Sandstone: " + sandstoneMined, x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
       textY += lineHeight;
       c.drawText("Runtime: " + formatRuntime(System.currentTimeMillis() - startTimeMs), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 12));
+      for (int i = 0; i < timingLines; i++) {
+        textY += lineHeight;
+        c.drawText(taskTimings.overlayLine(i), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 11));
+      }
     } catch (Exception e) {
       log("PAINT", "Skipping paint: " + e.getMessage());
     }
@@ -637,9 +647,12 @@ public class SandstoneMinerScript extends Script {
 
   @Override
   public void stop() {
+    taskTimings.dump(this);
+    metrics.close();
     try {
       webhook.enqueueEvent("Stopped");
       webhook.dispatchPendingWebhooks();
+      webhook.shutdown();
     } catch (Exception ignored) {
     }
     super.stop();
@@ -1,5 +1,6 @@
 package tasks;
 
+import utils.FrameSnapshot;
 import utils.Task;
 import main.SandstoneMinerScript;
 
@@ -9,12 +10,12 @@ public class BankTask extends Task {
   }
 
   @Override
-  public boolean activate() {
-    return script.isInventoryFull();
+  public boolean activate(FrameSnapshot frame) {
+    return frame.isInventoryFull();
   }
 
   @Override
-  public int execute() {
+  public int execute(FrameSnapshot frame) {
     return script.handleFullInventory();
   }
 }
@@ -1,5 +1,6 @@
 package tasks;
 
+import utils.FrameSnapshot;
 import utils.Task;
 import main.SandstoneMinerScript;
 
@@ -9,12 +10,12 @@ public class HumidifyTask extends Task {
   }
 
   @Override
-  public boolean activate() {
-    return script.shouldCastHumidify();
+  public boolean activate(FrameSnapshot frame) {
+    return script.shouldCastHumidify(frame);
   }
 
   @Override
-  public int execute() {
+  public int execute(FrameSnapshot frame) {
     if (script.castHumidify()) {
       script.markHumidifyCast();
       return script.random(200, 350);
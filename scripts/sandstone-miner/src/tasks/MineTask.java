@@ -3,6 +3,7 @@ package tasks;
 import com.osmb.api.scene.RSObject;
 import com.osmb.api.location.position.types.WorldPosition;
 import data.SandstoneData;
+import utils.FrameSnapshot;
 import utils.Task;
 import main.SandstoneMinerScript;
 
@@ -15,12 +16,12 @@ public class MineTask extends Task {
   }
 
   @Override
-  public boolean activate() {
-    return !script.isInventoryFull();
+  public boolean activate(FrameSnapshot frame) {
+    return !frame.isInventoryFull();
   }
 
   @Override
-  public int execute() {
+  public int execute(FrameSnapshot frame) {
     WorldPosition myPos = script.getWorldPosition();
     if (myPos == null) {
       return 800;
@@ -0,0 +1,225 @@
+package utils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Local counters and gauges for one script session. Values are read on the poll thread by {@link #sampleIfDue()},
+ * so suppliers may touch script state and the game API freely; the immutable {@link Sample} is then handed to the
+ * sinks on a daemon writer thread, which keeps file and socket I/O off the poll thread.
+ * <p>
+ * Configured through system properties so every session on a machine can share one launcher setting:
+ * {@code osmb.metrics.dir} (JSONL directory, default {@code ~/.osmb/script-data/<script>/metrics}),
+ * {@code osmb.metrics.files=false} to disable the files, {@code osmb.metrics.port} to serve a scrape endpoint on
+ * the first free localhost port from that value, and {@code osmb.metrics.intervalSeconds} (default 10). Other
+ * sinks can be added with {@link #sink} before {@link #start()}.
+ */
+public final class Metrics {
+  public static final String TYPE_COUNTER = "counter";
+  public static final String TYPE_GAUGE = "gauge";
+
+  private static final long DEFAULT_INTERVAL_MS = 10_000;
+  private static final int QUEUE_CAPACITY = 16;
+  private static final long CLOSE_TIMEOUT_MS = 2_000;
+  private static final Sample END = new Sample(0, "", "", List.of());
+
+  public interface Sink {
+    void publish(Sample sample);
+
+    void close();
+  }
+
+  /**
+   * One metric at sampling time. {@code label} is only set for state metrics, which always have the value 1.
+   */
+  public record Value(String name, String type, String help, double value, String label) {}
+
+  public record Sample(long timeMs, String script, String session, List<Value> values) {}
+
+  private record Registration(String name, String type, String help, DoubleSupplier value, Supplier<String> label) {}
+
+  private final String script;
+  private final String session;
+  private final Consumer<String> logger;
+  private final List<Registration> registrations = new ArrayList<>();
+  private final List<Sink> sinks = new ArrayList<>();
+  private final BlockingQueue<Sample> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final long intervalMs;
+  private Thread writer;
+  private long lastSampleMs = 0;
+  private boolean started = false;
+  private volatile boolean closed = false;
+
+  public Metrics(String script, Consumer<String> logger) {
+    this.script = Objects.requireNonNull(script);
+    this.logger = logger != null ? logger : s -> {};
+    this.session = ProcessHandle.current().pid() + "-" + Long.toString(System.currentTimeMillis(), 36);
+    this.intervalMs = Math.max(1, Long.getLong("osmb.metrics.intervalSeconds", DEFAULT_INTERVAL_MS / 1000)) * 1000;
+  }
+
+  public Metrics counter(String name, String help, DoubleSupplier value) {
+    registrations.add(new Registration(name, TYPE_COUNTER, help, value, null));
+    return this;
+  }
+
+  public Metrics gauge(String name, String help, DoubleSupplier value) {
+    registrations.add(new Registration(name, TYPE_GAUGE, help, value, null));
+    return this;
+  }
+
+  /**
+   * A gauge whose current value is a name, such as the script state; exported as {@code name{state="..."} 1}.
+   */
+  public Metrics state(String name, String help, Supplier<String> value) {
+    registrations.add(new Registration(name, TYPE_GAUGE, help, () -> 1, value));
+    return this;
+  }
+
+  public String session() {
+    return session;
+  }
+
+  /**
+   * Adds a sink next to the ones the system properties enable. Call before {@link #start()}; the writer thread
+   * then owns it.
+   */
+  public Metrics sink(Sink sink) {
+    if (started) {
+      throw new IllegalStateException("Metrics already started");
+    }
+    sinks.add(Objects.requireNonNull(sink));
+    return this;
+  }
+
+  /**
+   * Opens the sinks enabled by the system properties. Call once, after every metric is registered.
+   */
+  public void start() {
+    if (started) {
+      return;
+    }
+    started = true;
+    if (!"false".equalsIgnoreCase(System.getProperty("osmb.metrics.files"))) {
+      String dir = System.getProperty("osmb.metrics.dir");
+      Path directory = dir != null && !dir.isBlank()
+        ? Path.of(dir)
+        : Path.of(System.getProperty("user.home"), ".osmb", "script-data", script, "metrics");
+      sinks.add(new MetricsFileSink(directory, script + "-" + session));
+      log("Writing metrics to " + directory);
+    }
+    Integer port = Integer.getInteger("osmb.metrics.port");
+    if (port != null) {
+      MetricsEndpoint endpoint = MetricsEndpoint.open(port);
+      if (endpoint != null) {
+        sinks.add(endpoint);
+        log("Serving metrics on http://127.0.0.1:" + endpoint.port() + "/metrics");
+      } else {
+        log("No free metrics port from " + port + "; endpoint disabled");
+      }
+    }
+    if (sinks.isEmpty()) {
+      return;
+    }
+    writer = new Thread(this::drain, "metrics-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Takes a sample when the interval has elapsed. Cheap enough to call every poll.
+   */
+  public void sampleIfDue() {
+    if (writer == null || closed) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    if (now - lastSampleMs < intervalMs) {
+      return;
+    }
+    lastSampleMs = now;
+    // A writer stuck on a slow disk loses samples rather than holding up the poll
+    queue.offer(sample(now));
+  }
+
+  /**
+   * Publishes a last sample and has the writer thread close every sink. Call from the script's stop(). If the
+   * writer is still busy after the timeout, the sinks are left to it rather than closed under its feet.
+   */
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (writer == null) {
+      return;
+    }
+    queue.clear();
+    queue.offer(sample(System.currentTimeMillis()));
+    queue.offer(END);
+    try {
+      writer.join(CLOSE_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (writer.isAlive()) {
+      log("Metrics writer still busy; it closes the sinks when it finishes");
+    }
+  }
+
+  private Sample sample(long now) {
+    List<Value> values = new ArrayList<>(registrations.size());
+    for (Registration registration : registrations) {
+      try {
+        String label = registration.label() != null ? registration.label().get() : null;
+        values.add(new Value(registration.name(), registration.type(), registration.help(),
+          registration.value().getAsDouble(), label));
+      } catch (RuntimeException e) {
+        // A supplier that cannot answer right now (e.g. logged out) is left out of this sample
+      }
+    }
+    return new Sample(now, script, session, values);
+  }
+
+  // Sinks are only ever touched from here, closing included
+  private void drain() {
+    try {
+      while (true) {
+        Sample sample;
+        try {
+          sample = queue.take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        if (sample == END) {
+          return;
+        }
+        for (Sink sink : sinks) {
+          try {
+            sink.publish(sample);
+          } catch (RuntimeException e) {
+            log("Metrics sink failed: " + e.getMessage());
+          }
+        }
+      }
+    } finally {
+      for (Sink sink : sinks) {
+        try {
+          sink.close();
+        } catch (RuntimeException e) {
+          log("Metrics sink failed to close: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void log(String message) {
+    logger.accept("METRICS: " + message);
+  }
+}
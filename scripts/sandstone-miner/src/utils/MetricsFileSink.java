@@ -0,0 +1,131 @@
+package utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends one JSON object per sample to {@code <name>.jsonl}, e.g.
+ * {@code {"ts":1700000000000,"script":"gem-miner","session":"4242-lq0x","osmb_items_mined_total":57,"osmb_state":"MINING"}}.
+ * When the file passes {@link #MAX_FILE_BYTES} it is rotated to {@code <name>.1.jsonl} and older files shift up,
+ * keeping at most {@link #MAX_ROTATED_FILES}. Only the metrics writer thread calls in here.
+ */
+public final class MetricsFileSink implements Metrics.Sink {
+  private static final long MAX_FILE_BYTES = 1024 * 1024;
+  private static final int MAX_ROTATED_FILES = 4;
+
+  private final Path directory;
+  private final String name;
+  private BufferedWriter writer;
+  private long bytesWritten;
+  private boolean failed = false;
+
+  public MetricsFileSink(Path directory, String name) {
+    this.directory = directory;
+    this.name = name;
+  }
+
+  @Override
+  public void publish(Metrics.Sample sample) {
+    if (failed) {
+      return;
+    }
+    String line = toJson(sample) + "\n";
+    try {
+      if (writer == null) {
+        open();
+      } else if (bytesWritten + line.length() > MAX_FILE_BYTES) {
+        rotate();
+      }
+      writer.write(line);
+      writer.flush();
+      bytesWritten += line.length();
+    } catch (IOException e) {
+      // Stop trying rather than failing every sample; the endpoint, if any, keeps working
+      failed = true;
+      close();
+      throw new IllegalStateException("metrics file disabled: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      writer.close();
+    } catch (IOException ignored) {
+    }
+    writer = null;
+  }
+
+  private void open() throws IOException {
+    Files.createDirectories(directory);
+    Path file = file(0);
+    writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+      StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    bytesWritten = Files.size(file);
+  }
+
+  private void rotate() throws IOException {
+    close();
+    Files.deleteIfExists(file(MAX_ROTATED_FILES));
+    for (int i = MAX_ROTATED_FILES - 1; i >= 0; i--) {
+      Path from = file(i);
+      if (Files.exists(from)) {
+        Files.move(from, file(i + 1), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    open();
+  }
+
+  private Path file(int index) {
+    return directory.resolve(index == 0 ? name + ".jsonl" : name + "." + index + ".jsonl");
+  }
+
+  static String toJson(Metrics.Sample sample) {
+    StringBuilder sb = new StringBuilder(64 + sample.values().size() * 32);
+    sb.append("{\"ts\":").append(sample.timeMs());
+    sb.append(",\"script\":\"").append(escape(sample.script())).append('"');
+    sb.append(",\"session\":\"").append(escape(sample.session())).append('"');
+    for (Metrics.Value value : sample.values()) {
+      sb.append(",\"").append(escape(value.name())).append("\":");
+      if (value.label() != null) {
+        sb.append('"').append(escape(value.label())).append('"');
+      } else {
+        sb.append(formatNumber(value.value()));
+      }
+    }
+    return sb.append('}').toString();
+  }
+
+  static String formatNumber(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return "null";
+    }
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  private static String escape(String text) {
+    StringBuilder sb = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char ch = text.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        sb.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        sb.append(String.format("\\u%04x", (int) ch));
+      } else {
+        sb.append(ch);
+      }
+    }
+    return sb.toString();
+  }
+}
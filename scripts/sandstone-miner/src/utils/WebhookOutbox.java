@@ -0,0 +1,197 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Append-only log of webhook embeds that have not been delivered yet, so a crash or JVM exit does not lose them.
+ * Each record is one line: {@code A <seq> <base64 embed>} when queued, {@code D <seq>} once delivered or dropped.
+ * {@link #append} and {@link #ack} only buffer the line; {@link #sync} writes everything buffered with a single
+ * fsync and is called from the dispatcher thread, so the poll thread never touches the disk.
+ * <p>
+ * Delivery is at-least-once. Discord webhooks take no idempotency key, so an embed that was accepted just before a
+ * crash or kill, with its {@code D} record not yet synced, is sent again by the next run.
+ */
+public final class WebhookOutbox {
+  private static final int MAX_FILES = 8;
+  private static final long COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+  public record Pending(long seq, String embed) {}
+
+  private final FileChannel channel;
+  private final FileLock lock;
+  private final Path file;
+  private final ConcurrentLinkedQueue<String> unwritten = new ConcurrentLinkedQueue<>();
+  private final List<Pending> replay;
+
+  private WebhookOutbox(FileChannel channel, FileLock lock, Path file, List<Pending> replay) {
+    this.channel = channel;
+    this.lock = lock;
+    this.file = file;
+    this.replay = replay;
+  }
+
+  /**
+   * Default location: {@code ~/.osmb/script-data/<scriptId>/webhook-outbox.log}.
+   */
+  public static Path defaultDirectory(String scriptId) {
+    return Path.of(System.getProperty("user.home"), ".osmb", "script-data", scriptId);
+  }
+
+  /**
+   * Opens the first outbox in {@code directory} that no other session holds. Returns null when none can be
+   * opened; the webhook then keeps events in memory only.
+   */
+  public static WebhookOutbox open(Path directory) {
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      return null;
+    }
+    for (int i = 0; i < MAX_FILES; i++) {
+      Path file = directory.resolve(i == 0 ? "webhook-outbox.log" : "webhook-outbox-" + i + ".log");
+      FileChannel channel = null;
+      try {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock = channel.tryLock();
+        if (lock == null) {
+          channel.close();
+          continue;
+        }
+        List<Pending> pending = readPending(channel);
+        WebhookOutbox outbox = new WebhookOutbox(channel, lock, file, pending);
+        outbox.rewrite(pending);
+        return outbox;
+      } catch (OverlappingFileLockException e) {
+        // Held by another session in this JVM
+        closeQuietly(channel);
+      } catch (IOException e) {
+        closeQuietly(channel);
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Embeds left undelivered by the previous run, oldest first.
+   */
+  public List<Pending> takeReplay() {
+    List<Pending> pending = new ArrayList<>(replay);
+    replay.clear();
+    return pending;
+  }
+
+  public void append(long seq, String embed) {
+    String encoded = Base64.getEncoder().encodeToString(embed.getBytes(StandardCharsets.UTF_8));
+    unwritten.add("A " + seq + " " + encoded + "\n");
+  }
+
+  public void ack(long seq) {
+    unwritten.add("D " + seq + "\n");
+  }
+
+  /**
+   * Writes every buffered record and forces it to disk once. When nothing is outstanding and the log has grown,
+   * it is truncated instead.
+   */
+  public synchronized void sync(boolean nothingOutstanding) throws IOException {
+    if (unwritten.isEmpty()) {
+      return;
+    }
+    StringBuilder batch = new StringBuilder();
+    String line;
+    while ((line = unwritten.poll()) != null) {
+      batch.append(line);
+    }
+    // Only acks in this batch, nothing left to deliver: the whole log is dead weight
+    boolean onlyAcks = batch.indexOf("A ") < 0;
+    if (nothingOutstanding && onlyAcks && channel.size() + batch.length() > COMPACT_THRESHOLD_BYTES) {
+      channel.truncate(0);
+      channel.force(true);
+      return;
+    }
+    ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.US_ASCII));
+    channel.position(channel.size());
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+    channel.force(false);
+  }
+
+  public synchronized void close() {
+    try {
+      lock.release();
+    } catch (IOException ignored) {
+    }
+    closeQuietly(channel);
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  private void rewrite(List<Pending> pending) throws IOException {
+    StringBuilder compacted = new StringBuilder();
+    for (Pending entry : pending) {
+      compacted.append("A ").append(entry.seq()).append(' ')
+        .append(Base64.getEncoder().encodeToString(entry.embed().getBytes(StandardCharsets.UTF_8))).append('\n');
+    }
+    channel.truncate(0);
+    ByteBuffer bytes = ByteBuffer.wrap(compacted.toString().getBytes(StandardCharsets.US_ASCII));
+    channel.position(0);
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+    channel.force(true);
+  }
+
+  // Read through the locked channel; a second handle would be refused where file locks are mandatory
+  private static List<Pending> readPending(FileChannel channel) throws IOException {
+    ByteBuffer content = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, channel.size()));
+    channel.position(0);
+    while (content.hasRemaining() && channel.read(content) >= 0) {
+      // keep reading until the buffer is full or EOF
+    }
+    String text = new String(content.array(), 0, content.position(), StandardCharsets.US_ASCII);
+    Map<Long, String> pending = new LinkedHashMap<>();
+    for (String line : text.split("\n")) {
+      String[] parts = line.split(" ");
+      try {
+        if (parts.length == 3 && parts[0].equals("A")) {
+          pending.put(Long.parseLong(parts[1]), new String(Base64.getDecoder().decode(parts[2]), StandardCharsets.UTF_8));
+        } else if (parts.length == 2 && parts[0].equals("D")) {
+          pending.remove(Long.parseLong(parts[1]));
+        }
+      } catch (IllegalArgumentException ignored) {
+        // Torn last line from a crash mid-write; everything before it is intact
+      }
+    }
+    List<Pending> result = new ArrayList<>(pending.size());
+    pending.forEach((seq, embed) -> result.add(new Pending(seq, embed)));
+    return result;
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException ignored) {
+    }
+  }
+}
@@ -6,16 +6,22 @@ import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import utils.ItemSearch;
+
+import java.util.List;
 
 public class GUI extends VBox {
     private static final String HOP_OUT_OF_STOCK = "Out of stock";
     private static final String HOP_STOCK_IS = "Stock is";
+    private static final int MAX_SUGGESTIONS = 8;
 
     private final TextField itemInputField = new TextField();
     private final TextField targetAmountField = new TextField("1");
@@ -27,6 +33,8 @@ public class GUI extends VBox {
     private final TextField regionIdField = new TextField();
     private final CheckBox enableHoppingCheck = new CheckBox("Enable world hopping");
     private final CheckBox openPacksCheck = new CheckBox("Open packs");
+    private final ContextMenu itemSuggestions = new ContextMenu();
+    private boolean applyingSuggestion = false;
 
     public GUI() {
         setSpacing(8);
@@ -113,6 +121,65 @@ public class GUI extends VBox {
         stockThresholdField.setPromptText("amount");
 
         openPacksCheck.setSelected(false);
+
+        itemInputField.textProperty().addListener((obs, oldVal, newVal) -> updateItemSuggestions(newVal));
+        itemInputField.focusedProperty().addListener((obs, oldVal, focused) -> {
+            if (!focused) {
+                itemSuggestions.hide();
+            }
+        });
+        warmUpItemSearch();
+    }
+
+    private void updateItemSuggestions(String input) {
+        if (applyingSuggestion || input == null || input.isBlank() || isNumeric(input.trim())) {
+            itemSuggestions.hide();
+            return;
+        }
+
+        List<ItemSearch.Match> matches;
+        try {
+            matches = ItemSearch.get().search(input, MAX_SUGGESTIONS);
+        } catch (java.io.IOException e) {
+            itemSuggestions.hide();
+            return;
+        }
+        if (matches.isEmpty()) {
+            itemSuggestions.hide();
+            return;
+        }
+
+        itemSuggestions.getItems().clear();
+        for (ItemSearch.Match match : matches) {
+            MenuItem item = new MenuItem(match.displayName() + " (" + match.id() + ")");
+            item.setOnAction(event -> {
+                applyingSuggestion = true;
+                itemInputField.setText(match.displayName());
+                itemInputField.positionCaret(itemInputField.getText().length());
+                applyingSuggestion = false;
+            });
+            itemSuggestions.getItems().add(item);
+        }
+        if (!itemSuggestions.isShowing() && itemInputField.getScene() != null) {
+            itemSuggestions.show(itemInputField, javafx.geometry.Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void warmUpItemSearch() {
+        // Builds the word index off the FX thread so the first keystroke does not pay for it
+        Thread warmUp = new Thread(() -> {
+            try {
+                ItemSearch.get();
+            } catch (java.io.IOException ignored) {
+                // suggestions stay disabled; item IDs still work
+            }
+        }, "shopper-item-search-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    private boolean isNumeric(String value) {
+        return !value.isEmpty() && value.chars().allMatch(Character::isDigit);
     }
 
     public String getItemInput() {
@@ -1,5 +1,6 @@
 package main;
 
+import com.osmb.api.item.ItemID;
 import com.osmb.api.location.position.types.WorldPosition;
 import com.osmb.api.script.Script;
 import com.osmb.api.script.ScriptDefinition;
@@ -7,8 +8,13 @@ import com.osmb.api.script.SkillCategory;
 import com.osmb.api.visual.drawing.Canvas;
 import javafx.scene.Scene;
 import data.State;
+import utils.FrameSnapshot;
+import utils.Metrics;
+import utils.ItemCategories;
+import utils.ItemSearch;
 import utils.ShopInterface;
 import utils.Task;
+import utils.TaskTimings;
 import tasks.BuyTask;
 import tasks.HopTask;
 import tasks.OpenPacksTask;
@@ -21,8 +27,8 @@ import java.awt.Font;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Collections;
-import java.util.Set;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.ArrayList;
 import java.util.List;
 import com.osmb.api.utils.RandomUtils;
@@ -40,6 +46,8 @@ public class ShopperScript extends Script {
 
     private String npcAction = "Trade";
     private int targetItemId;
+    // Inventory ids searched once per poll by FrameSnapshot (coins and the configured item)
+    private Set<Integer> frameItemIds = Set.of();
     private int targetAmount;
     private Mode mode = Mode.BUY;
     private HopWhen hopWhen = HopWhen.OUT_OF_STOCK;
@@ -58,13 +66,15 @@ public class ShopperScript extends Script {
     private State state = State.SETUP;
     private boolean initialised = false;
     private boolean npcInteractionStubLogged = false;
-    private final java.util.Map<String, Integer> itemNameCache = new java.util.HashMap<>();
-    private boolean itemNameCacheBuilt = false;
+    private boolean itemCategoriesFailureLogged = false;
     private boolean zoomConfigured = false;
     private long lastZoomAttemptMs = 0;
     private static final long ZOOM_RETRY_MS = 4_000;
+    private static final int NAME_SUGGESTIONS = 5;
 
     private List<Task> tasks = new ArrayList<>();
+    private final TaskTimings taskTimings = new TaskTimings();
+    private final Metrics metrics = new Metrics("shopper", this::log);
 
     private volatile boolean settingsConfirmed = false;
     private volatile String submittedNpcAction;
@@ -81,32 +91,6 @@ public class ShopperScript extends Script {
     private static final String VERSION = "1.3";
     private static final Font TEXT_BOLD = new Font("Arial", Font.BOLD, 12);
     private static final Font TEXT_REGULAR = new Font("Arial", Font.PLAIN, 12);
-    private static final Set<Integer> PACK_ITEM_IDS = new HashSet<>();
-
-    static {
-        buildPackIds();
-    }
-
-    private static void buildPackIds() {
-        try {
-            for (java.lang.reflect.Field field : data.ItemID.class.getFields()) {
-                if (!java.lang.reflect.Modifier.isStatic(field.getModifiers())
-                    || !java.lang.reflect.Modifier.isFinal(field.getModifiers())
-                    || field.getType() != int.class) {
-                    continue;
-                }
-                String name = field.getName().toLowerCase();
-                if (!name.contains("pack")) {
-                    continue;
-                }
-                int id = field.getInt(null);
-                PACK_ITEM_IDS.add(id);
-            }
-        } catch (Exception ignored) {
-            // fallback is name-based detection only
-        }
-    }
-
     public ShopperScript(Object scriptCore) {
         super(scriptCore);
     }
@@ -120,6 +104,16 @@ public class ShopperScript extends Script {
 
         tasks.clear();
         tasks.add(new SetupTask(this));
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        metrics
+                .counter("osmb_items_bought_total", "Items bought this session", () -> mode == Mode.BUY ? bought : 0)
+                .counter("osmb_items_sold_total", "Items sold this session", () -> mode == Mode.SELL ? bought : 0)
+                .gauge("osmb_runtime_seconds", "Seconds since the script started", () -> startTime > 0 ? (System.currentTimeMillis() - startTime) / 1000 : 0)
+                .state("osmb_state", "Current script state", () -> state.name())
+                .start();
     }
 
     @Override
@@ -133,14 +127,16 @@ public class ShopperScript extends Script {
             return 200;
         }
 
-        if (getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
+        metrics.sampleIfDue();
+        FrameSnapshot frame = new FrameSnapshot(this, frameItemIds);
+        if (!frame.isLoggedIn()) {
             return 200;
         }
 
         if (tasks != null) {
             for (Task task : tasks) {
-                if (task.activate()) {
-                    task.execute();
+                if (taskTimings.activate(task, frame)) {
+                    taskTimings.execute(task, frame);
                     return 0;
                 }
             }
@@ -276,7 +272,25 @@ public class ShopperScript extends Script {
     }
 
     public Set<Integer> getPackItemIds() {
-        return PACK_ITEM_IDS;
+        ItemCategories categories = itemCategories();
+        return categories == null ? Set.of() : categories.idSet(ItemCategories.Category.PACKS);
+    }
+
+    public boolean isPackItem(int itemId) {
+        ItemCategories categories = itemCategories();
+        return categories != null && categories.contains(ItemCategories.Category.PACKS, itemId);
+    }
+
+    private ItemCategories itemCategories() {
+        try {
+            return ItemCategories.get();
+        } catch (java.io.IOException e) {
+            if (!itemCategoriesFailureLogged) {
+                itemCategoriesFailureLogged = true;
+                log(getClass().getSimpleName(), "Item categories unavailable: " + e.getMessage());
+            }
+            return null;
+        }
     }
 
     private int resolveItemId(String input) {
@@ -292,89 +306,43 @@ public class ShopperScript extends Script {
             return parsed;
         }
 
-        buildItemNameCache();
-        String normalized = normalizeName(trimmed);
-        Integer exact = itemNameCache.get(normalized);
-        if (exact != null) {
-            return exact;
+        List<ItemSearch.Match> matches;
+        try {
+            matches = ItemSearch.get().search(trimmed, NAME_SUGGESTIONS);
+        } catch (java.io.IOException e) {
+            log(getClass().getSimpleName(), "Item name index unavailable (" + e.getMessage() + "); use an item ID instead. Stopping.");
+            state = State.STOPPED;
+            return -1;
         }
 
-        for (java.util.Map.Entry<String, Integer> entry : itemNameCache.entrySet()) {
-            if (entry.getKey().contains(normalized)) {
-                return entry.getValue();
-            }
+        if (matches.isEmpty()) {
+            log(getClass().getSimpleName(), "Could not resolve item name \"" + input + "\" to an ID; stopping.");
+            state = State.STOPPED;
+            return -1;
         }
 
-        log(getClass().getSimpleName(), "Could not resolve item name \"" + input + "\" to an ID; stopping.");
-        state = State.STOPPED;
-        return -1;
-    }
-
-    private void buildItemNameCache() {
-        if (itemNameCacheBuilt) {
-            return;
+        // Buying the wrong item costs coins, so only an exact name or the one name it starts is taken on trust
+        ItemSearch.Match best = matches.get(0);
+        if (best.type() == ItemSearch.MatchType.EXACT) {
+            return best.id();
         }
-        // 1) Parse generated ItemID.java for comment display names + ids (first occurrence wins)
-        try {
-            java.nio.file.Path path = java.nio.file.Paths.get("shopper/data/ItemID.java");
-            if (java.nio.file.Files.exists(path)) {
-                String content = java.nio.file.Files.readString(path);
-                java.util.regex.Pattern p = java.util.regex.Pattern.compile(
-                    "/\\*\\*\\s*\\*\\s*(.+?)\\s*\\*/\\s*public static final int\\s+([A-Z0-9_]+)\\s*=\\s*(\\d+)\\s*;",
-                    java.util.regex.Pattern.DOTALL);
-                java.util.regex.Matcher m = p.matcher(content);
-                while (m.find()) {
-                    String displayName = m.group(1).trim();
-                    int id = Integer.parseInt(m.group(3));
-                    String normalized = normalizeName(displayName);
-                    itemNameCache.putIfAbsent(normalized, id);
-                }
-            }
-        } catch (Exception e) {
-            log(getClass().getSimpleName(), "Failed to parse ItemID.java: " + e.getMessage());
+        boolean uniquePrefix = best.type() == ItemSearch.MatchType.PREFIX
+            && (matches.size() == 1 || matches.get(1).type() != ItemSearch.MatchType.PREFIX);
+        if (uniquePrefix) {
+            log(getClass().getSimpleName(), "Resolved \"" + input + "\" to " + best.displayName() + " (" + best.id() + ").");
+            return best.id();
         }
 
-        // 2) Reflection fallback using field names and itemManager display names where available
-        try {
-            for (java.lang.reflect.Field field : data.ItemID.class.getFields()) {
-                if (!java.lang.reflect.Modifier.isStatic(field.getModifiers())
-                    || !java.lang.reflect.Modifier.isFinal(field.getModifiers())
-                    || field.getType() != int.class) {
-                    continue;
-                }
-                int id = field.getInt(null);
-                String displayName = null;
-                try {
-                    displayName = getItemManager() != null ? getItemManager().getItemName(id) : null;
-                } catch (Exception ignored) {
-                    // continue with fallback
-                }
-                if (displayName == null || displayName.isBlank()) {
-                    displayName = field.getName().replace("_", " ");
-                }
-                String normalized = normalizeName(displayName);
-                itemNameCache.putIfAbsent(normalized, id);
+        StringBuilder suggestions = new StringBuilder();
+        for (ItemSearch.Match match : matches) {
+            if (suggestions.length() > 0) {
+                suggestions.append(", ");
             }
-        } catch (Exception e) {
-            log(getClass().getSimpleName(), "Failed to build item name cache (reflection): " + e.getMessage());
-        }
-        itemNameCacheBuilt = true;
-    }
-
-    private String normalizeName(String name) {
-        String lowered = name.toLowerCase();
-        // replace any non-alphanumeric with underscore, then collapse multiple underscores
-        String underscored = lowered.replaceAll("[^a-z0-9]+", "_");
-        while (underscored.contains("__")) {
-            underscored = underscored.replace("__", "_");
+            suggestions.append(match.displayName()).append(" (").append(match.id()).append(')');
         }
-        if (underscored.startsWith("_")) {
-            underscored = underscored.substring(1);
-        }
-        if (underscored.endsWith("_")) {
-            underscored = underscored.substring(0, underscored.length() - 1);
-        }
-        return underscored;
+        log(getClass().getSimpleName(), "Item name \"" + input + "\" is not exact; did you mean " + suggestions + "? Enter the full name or an item ID. Stopping.");
+        state = State.STOPPED;
+        return -1;
     }
 
     private Integer parseIntOrNull(String value) {
@@ -405,10 +373,11 @@ public class ShopperScript extends Script {
 
             int x = 6;
             int y = 32;
-            int width = 180;
+            int timingLines = taskTimings.size();
+            int width = timingLines > 0 ? 240 : 180;
             int padding = 8;
             int lineHeight = 16;
-            int lines = 6;
+            int lines = 6 + timingLines;
             int height = padding * 2 + lineHeight * lines;
 
             c.fillRect(x, y, width, height, new Color(10, 10, 10, 190).getRGB(), 1);
@@ -428,10 +397,21 @@ public class ShopperScript extends Script {
             c.drawText("Runtime: " + formatTime(elapsed), x + padding, textY, Color.LIGHT_GRAY.getRGB(), TEXT_REGULAR);
             textY += lineHeight;
             c.drawText("Start tile: " + startTileLabel, x + padding, textY, Color.LIGHT_GRAY.getRGB(), TEXT_REGULAR);
+            for (int i = 0; i < timingLines; i++) {
+                textY += lineHeight;
+                c.drawText(taskTimings.overlayLine(i), x + padding, textY, Color.LIGHT_GRAY.getRGB(), TEXT_REGULAR);
+            }
         } catch (Exception ignored) {
         }
     }
 
+    @Override
+    public void stop() {
+        taskTimings.dump(this);
+        metrics.close();
+        super.stop();
+    }
+
     private void handleStartClicked() {
         submittedNpcAction = "Trade";
         submittedItemInput = gui.getItemInput();
@@ -452,6 +432,12 @@ public class ShopperScript extends Script {
     public void initialiseConfig() {
         npcAction = "Trade";
         targetItemId = resolveItemId(submittedItemInput);
+        Set<Integer> trackedIds = new HashSet<>();
+        trackedIds.add(ItemID.COINS_995);
+        if (targetItemId > 0) {
+            trackedIds.add(targetItemId);
+        }
+        frameItemIds = trackedIds;
         targetAmount = submittedTargetAmount;
         mode = submittedMode == null ? Mode.BUY : submittedMode;
         hopWhen = submittedHopWhen == null ? HopWhen.OUT_OF_STOCK : submittedHopWhen;
@@ -5,6 +5,7 @@ import com.osmb.api.item.ItemID;
 import com.osmb.api.item.ItemSearchResult;
 import data.State;
 import main.ShopperScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Set;
@@ -22,7 +23,7 @@ public class BuyTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         return shopper.isInitialised()
             && shopper.getMode() == ShopperScript.Mode.BUY
             && shopper.isShopVisible()
@@ -30,7 +31,7 @@ public class BuyTask extends Task {
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         shopper.setState(State.BUYING);
         shopper.setHopRequested(false);
 
@@ -38,7 +39,7 @@ public class BuyTask extends Task {
             return false;
         }
 
-        ItemGroupResult inventorySnapshot = shopper.getWidgetManager().getInventory().search(Set.of(ItemID.COINS_995, shopper.getTargetItemId()));
+        ItemGroupResult inventorySnapshot = frame.getInventory();
         if (inventorySnapshot == null) {
             return false;
         }
@@ -79,7 +80,7 @@ public class BuyTask extends Task {
             return true;
         }
 
-        int before = shopper.getWidgetManager().getInventory().search(Set.of(shopper.getTargetItemId())).getAmount(shopper.getTargetItemId());
+        int before = inventorySnapshot.getAmount(shopper.getTargetItemId());
         int freeSlots = inventorySnapshot.getFreeSlots();
 
         int actionQuantity = resolveBuyQuantity(remainingTarget, shopStock);
@@ -4,6 +4,7 @@ import com.osmb.api.world.World;
 import com.osmb.api.world.WorldType;
 import data.State;
 import main.ShopperScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.ArrayList;
@@ -20,12 +21,12 @@ public class HopTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         return shopper.isHopRequested();
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         triggerWorldHop();
         shopper.setHopRequested(false);
         return true;
@@ -6,6 +6,7 @@ import com.osmb.api.shape.Rectangle;
 import com.osmb.api.utils.UIResult;
 import data.State;
 import main.ShopperScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.ArrayList;
@@ -21,7 +22,7 @@ public class OpenPacksTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         if (!shopper.isInitialised() || !shopper.isOpenPacksEnabled()) {
             return false;
         }
@@ -32,7 +33,7 @@ public class OpenPacksTask extends Task {
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         if (shopper.isWaitingForPacksToClear()) {
             boolean cleared = shopper.pollFramesHuman(
                 () -> !hasPacksInInventory(),
@@ -105,13 +106,9 @@ public class OpenPacksTask extends Task {
         if (shopper.getWidgetManager() == null || shopper.getItemManager() == null) {
             return false;
         }
-        Set<Integer> idsToCheck = new java.util.HashSet<>();
-        if (shopper.getWaitingPackId() > 0) {
-            idsToCheck.add(shopper.getWaitingPackId());
-        }
-        if (idsToCheck.isEmpty()) {
-            idsToCheck = shopper.getPackItemIds();
-        }
+        Set<Integer> idsToCheck = shopper.getWaitingPackId() > 0
+            ? Set.of(shopper.getWaitingPackId())
+            : shopper.getPackItemIds();
         ItemGroupResult inventoryScan = shopper.getItemManager()
             .scanItemGroup(shopper.getWidgetManager().getInventory(), idsToCheck);
         if (inventoryScan == null) {
@@ -137,14 +134,7 @@ public class OpenPacksTask extends Task {
     }
 
     private boolean isPackItem(ItemSearchResult item) {
-        if (item == null) {
-            return false;
-        }
-        if (shopper.getPackItemIds().contains(item.getId())) {
-            return true;
-        }
-        String name = safeItemName(item.getId());
-        return name != null && name.toLowerCase().contains("pack");
+        return item != null && shopper.isPackItem(item.getId());
     }
 
     private String safeItemName(int id) {
@@ -6,6 +6,7 @@ import com.osmb.api.visual.color.ColorModel;
 import com.osmb.api.visual.color.tolerance.impl.SingleThresholdComparator;
 import data.State;
 import main.ShopperScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class OpenShopTask extends Task {
@@ -20,7 +21,7 @@ public class OpenShopTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         return shopper.isInitialised()
             && !shopper.isShopVisible()
             && !shopper.isHopRequested()
@@ -29,9 +30,9 @@ public class OpenShopTask extends Task {
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         shopper.setState(State.OPENING_SHOP);
-        if (shopper.getWorldPosition() == null) {
+        if (frame.getWorldPosition() == null) {
             shopper.log(getClass().getSimpleName(), "Player position unavailable; waiting.");
             return false;
         }
@@ -4,6 +4,7 @@ import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.item.ItemSearchResult;
 import data.State;
 import main.ShopperScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Set;
@@ -17,7 +18,7 @@ public class SellTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         return shopper.isInitialised()
             && shopper.getMode() == ShopperScript.Mode.SELL
             && shopper.isShopVisible()
@@ -25,7 +26,7 @@ public class SellTask extends Task {
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         shopper.setState(State.SELLING);
         shopper.setHopRequested(false);
 
@@ -33,7 +34,7 @@ public class SellTask extends Task {
             return false;
         }
 
-        ItemGroupResult inventorySnapshot = shopper.getWidgetManager().getInventory().search(Set.of(shopper.getTargetItemId()));
+        ItemGroupResult inventorySnapshot = frame.getInventory();
         if (inventorySnapshot == null) {
             return false;
         }
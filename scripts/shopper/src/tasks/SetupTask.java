@@ -2,6 +2,7 @@ package tasks;
 
 import data.State;
 import main.ShopperScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class SetupTask extends Task {
@@ -13,7 +14,7 @@ public class SetupTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         if (!shopper.isSettingsConfirmed()) {
             return false;
         }
@@ -24,21 +25,21 @@ public class SetupTask extends Task {
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         shopper.setState(State.SETUP);
         if (!shopper.isInitialised()) {
             shopper.initialiseConfig();
             return true;
         }
-        ensureZoomConfigured();
+        ensureZoomConfigured(frame);
         return true;
     }
 
-    private void ensureZoomConfigured() {
+    private void ensureZoomConfigured(FrameSnapshot frame) {
         if (shopper.isZoomConfigured()) {
             return;
         }
-        if (shopper.getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
+        if (!frame.isLoggedIn()) {
             return;
         }
         long now = System.currentTimeMillis();
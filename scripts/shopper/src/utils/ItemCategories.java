@@ -0,0 +1,112 @@
+package utils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Item category tags generated at build time from data/ItemID.java (see generateItemCategories in build.gradle).
+ * Membership is a single bitset probe, so callers never need data.ItemID loaded or an item name lookup.
+ */
+public final class ItemCategories {
+    private static final String RESOURCE = "/item-categories.bin";
+    private static final int MAGIC = 0x49544354;
+    private static final int VERSION = 1;
+
+    private static volatile ItemCategories instance;
+
+    public enum Category {
+        PACKS,
+        RUNES,
+        FOOD,
+        COIN_POUCHES,
+        SPICES
+    }
+
+    private final Map<Category, int[]> ids = new EnumMap<>(Category.class);
+    private final Map<Category, BitSet> members = new EnumMap<>(Category.class);
+    private final Map<Category, Set<Integer>> idSets = new EnumMap<>(Category.class);
+
+    private ItemCategories() {
+    }
+
+    public static ItemCategories get() throws IOException {
+        ItemCategories loaded = instance;
+        if (loaded == null) {
+            synchronized (ItemCategories.class) {
+                loaded = instance;
+                if (loaded == null) {
+                    loaded = load();
+                    instance = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private static ItemCategories load() throws IOException {
+        ItemCategories categories = new ItemCategories();
+        try (InputStream raw = ItemCategories.class.getResourceAsStream(RESOURCE)) {
+            if (raw == null) {
+                throw new IOException("Missing resource " + RESOURCE);
+            }
+            DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(raw));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported item category format");
+            }
+            int count = in.readInt();
+            for (int c = 0; c < count; c++) {
+                String name = in.readUTF();
+                int size = in.readInt();
+                int[] categoryIds = new int[size];
+                BitSet bits = new BitSet();
+                for (int i = 0; i < size; i++) {
+                    categoryIds[i] = in.readInt();
+                    bits.set(categoryIds[i]);
+                }
+                Category category;
+                try {
+                    category = Category.valueOf(name);
+                } catch (IllegalArgumentException unknown) {
+                    continue;
+                }
+                categories.ids.put(category, categoryIds);
+                categories.members.put(category, bits);
+            }
+        }
+        for (Category category : Category.values()) {
+            categories.ids.putIfAbsent(category, new int[0]);
+            categories.members.putIfAbsent(category, new BitSet());
+            Set<Integer> set = new LinkedHashSet<>();
+            for (int id : categories.ids.get(category)) {
+                set.add(id);
+            }
+            categories.idSets.put(category, Collections.unmodifiableSet(set));
+        }
+        return categories;
+    }
+
+    public boolean contains(Category category, int itemId) {
+        return itemId >= 0 && members.get(category).get(itemId);
+    }
+
+    /**
+     * Sorted ids in the category. The returned array is shared; do not modify it.
+     */
+    public int[] ids(Category category) {
+        return ids.get(category);
+    }
+
+    /**
+     * Boxed view for API calls that take item id sets, built once per category.
+     */
+    public Set<Integer> idSet(Category category) {
+        return idSets.get(category);
+    }
+}
@@ -0,0 +1,152 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sorted item-name index generated at build time from data/ItemID.java (see generateItemIndex in build.gradle).
+ * Names are stored normalized (lowercase, non-alphanumeric runs collapsed to '_') in one ASCII blob, so lookups
+ * are a binary search over byte ranges and allocate nothing.
+ */
+public final class ItemIndex {
+    private static final String RESOURCE = "/item-index.bin";
+    private static final int MAGIC = 0x49544958;
+    private static final int VERSION = 1;
+
+    private static volatile ItemIndex instance;
+
+    private final int[] ids;
+    private final int[] nameOffsets;
+    private final byte[] names;
+
+    private ItemIndex(int[] ids, int[] nameOffsets, byte[] names) {
+        this.ids = ids;
+        this.nameOffsets = nameOffsets;
+        this.names = names;
+    }
+
+    public static ItemIndex get() throws IOException {
+        ItemIndex loaded = instance;
+        if (loaded == null) {
+            synchronized (ItemIndex.class) {
+                loaded = instance;
+                if (loaded == null) {
+                    loaded = load();
+                    instance = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private static ItemIndex load() throws IOException {
+        byte[] raw;
+        try (InputStream in = ItemIndex.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + RESOURCE);
+            }
+            raw = in.readAllBytes();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Unsupported item index format");
+        }
+        int count = buffer.getInt();
+        int[] ids = new int[count];
+        buffer.asIntBuffer().get(ids);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        int[] offsets = new int[count + 1];
+        buffer.asIntBuffer().get(offsets);
+        buffer.position(buffer.position() + (count + 1) * Integer.BYTES);
+        byte[] names = new byte[offsets[count]];
+        buffer.get(names);
+        return new ItemIndex(ids, offsets, names);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    public String nameAt(int index) {
+        int start = nameOffsets[index];
+        return new String(names, start, nameOffsets[index + 1] - start, StandardCharsets.US_ASCII);
+    }
+
+    int nameStart(int index) {
+        return nameOffsets[index];
+    }
+
+    int nameEnd(int index) {
+        return nameOffsets[index + 1];
+    }
+
+    int byteAt(int position) {
+        return names[position] & 0xFF;
+    }
+
+    /**
+     * Looks up an already-normalized name. Returns the item id, or -1 when the name is not indexed.
+     */
+    public int findId(CharSequence normalized) {
+        int index = indexOf(normalized);
+        return index >= 0 ? ids[index] : -1;
+    }
+
+    /**
+     * Binary search for an exact normalized name. Returns its sorted position, or {@code -(insertionPoint + 1)}.
+     */
+    public int indexOf(CharSequence normalized) {
+        int low = 0;
+        int high = ids.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareAt(mid, normalized);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int compareAt(int index, CharSequence key) {
+        return compareRange(nameOffsets[index], nameOffsets[index + 1], key);
+    }
+
+    /**
+     * Compares the blob range [start, end) with a key, byte-wise.
+     */
+    int compareRange(int start, int end, CharSequence key) {
+        int length = end - start;
+        int keyLength = key.length();
+        int limit = Math.min(length, keyLength);
+        for (int i = 0; i < limit; i++) {
+            int diff = (names[start + i] & 0xFF) - key.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - keyLength;
+    }
+
+    public static String normalize(String name) {
+        String underscored = name.toLowerCase().replaceAll("[^a-z0-9]+", "_");
+        if (underscored.startsWith("_")) {
+            underscored = underscored.substring(1);
+        }
+        if (underscored.endsWith("_")) {
+            underscored = underscored.substring(0, underscored.length() - 1);
+        }
+        return underscored;
+    }
+}
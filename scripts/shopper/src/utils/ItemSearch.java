@@ -0,0 +1,277 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Ranked item-name search over {@link ItemIndex}: exact, then name prefix, then word prefix, then small typos.
+ * Prefix and word lookups are binary searches over sorted arrays, so typing into the GUI stays well under a millisecond.
+ * Queries shorter than {@link #MIN_RANKED_QUERY} characters prefix too many names to rank on every keystroke: they
+ * only list name prefixes, alphabetically, and stop as soon as enough items are found.
+ */
+public final class ItemSearch {
+    private static final int MAX_SCORE = 0xFF_FFFF;
+    private static final int MIN_RANKED_QUERY = 3;
+
+    private static volatile ItemSearch instance;
+
+    private final ItemIndex index;
+    // Blob positions of every word start after the first, sorted by the remaining name bytes
+    private final int[] tokenStarts;
+    private final int[] tokenOwners;
+
+    private ItemSearch(ItemIndex index) {
+        this.index = index;
+
+        int count = 0;
+        int[] starts = new int[index.size()];
+        int[] ends = new int[index.size()];
+        int[] owners = new int[index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            int end = index.nameEnd(i);
+            for (int pos = index.nameStart(i) + 1; pos < end; pos++) {
+                if (index.byteAt(pos - 1) != '_') {
+                    continue;
+                }
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                    owners = Arrays.copyOf(owners, count * 2);
+                }
+                starts[count] = pos;
+                ends[count] = end;
+                owners[count] = i;
+                count++;
+            }
+        }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        int[] unsortedStarts = starts;
+        int[] unsortedEnds = ends;
+        Arrays.sort(order, (a, b) -> compareSuffixes(unsortedStarts[a], unsortedEnds[a], unsortedStarts[b], unsortedEnds[b]));
+        tokenStarts = new int[count];
+        tokenOwners = new int[count];
+        for (int i = 0; i < count; i++) {
+            tokenStarts[i] = starts[order[i]];
+            tokenOwners[i] = owners[order[i]];
+        }
+    }
+
+    public static ItemSearch get() throws java.io.IOException {
+        ItemSearch loaded = instance;
+        if (loaded == null) {
+            synchronized (ItemSearch.class) {
+                loaded = instance;
+                if (loaded == null) {
+                    loaded = new ItemSearch(ItemIndex.get());
+                    instance = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public enum MatchType {
+        EXACT,
+        PREFIX,
+        TOKEN,
+        FUZZY
+    }
+
+    public record Match(int id, String name, MatchType type) {
+        public String displayName() {
+            String spaced = name.replace('_', ' ');
+            return spaced.isEmpty() ? spaced : Character.toUpperCase(spaced.charAt(0)) + spaced.substring(1);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} matches, best first. Ties break on shorter names, then alphabetically (short
+     * queries: alphabetically only), and each item id appears once, so the same input always produces the same list.
+     */
+    public List<Match> search(String input, int limit) {
+        if (input == null || limit <= 0) {
+            return List.of();
+        }
+        String query = ItemIndex.normalize(input.trim());
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        Candidates candidates = new Candidates();
+
+        int exact = index.indexOf(query);
+        if (exact >= 0) {
+            candidates.add(MatchType.EXACT, 0, exact);
+        }
+
+        boolean ranked = query.length() >= MIN_RANKED_QUERY;
+        int from = exact >= 0 ? exact + 1 : -(exact + 1);
+        for (int i = from; i < index.size() && startsWith(index.nameStart(i), index.nameEnd(i), query); i++) {
+            if (!ranked && candidates.ids >= limit) {
+                break;
+            }
+            candidates.add(MatchType.PREFIX, ranked ? index.nameEnd(i) - index.nameStart(i) : 0, i);
+        }
+        if (!ranked) {
+            return candidates.top(limit);
+        }
+
+        for (int t = lowerTokenBound(query); t < tokenStarts.length; t++) {
+            int owner = tokenOwners[t];
+            if (!startsWith(tokenStarts[t], index.nameEnd(owner), query)) {
+                break;
+            }
+            candidates.add(MatchType.TOKEN, index.nameEnd(owner) - index.nameStart(owner), owner);
+        }
+
+        if (candidates.size < limit) {
+            addFuzzy(query, candidates);
+        }
+
+        return candidates.top(limit);
+    }
+
+    private void addFuzzy(String query, Candidates candidates) {
+        int maxDistance = query.length() <= 5 ? 1 : 2;
+        int columns = query.length() + 1;
+        int[] previous2 = new int[columns];
+        int[] previous = new int[columns];
+        int[] current = new int[columns];
+
+        for (int i = 0; i < index.size(); i++) {
+            int start = index.nameStart(i);
+            int length = index.nameEnd(i) - start;
+            if (Math.abs(length - query.length()) > maxDistance) {
+                continue;
+            }
+            int distance = boundedDistance(start, length, query, maxDistance, previous2, previous, current);
+            if (distance <= maxDistance) {
+                candidates.add(MatchType.FUZZY, (distance << 8) | Math.min(length, 0xFF), i);
+            }
+        }
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions), abandoned once every cell
+     * of a row exceeds {@code maxDistance}.
+     */
+    private int boundedDistance(int start, int length, String query, int maxDistance,
+                                int[] previous2, int[] previous, int[] current) {
+        int columns = query.length() + 1;
+        for (int j = 0; j < columns; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= length; i++) {
+            int a = index.byteAt(start + i - 1);
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j < columns; j++) {
+                int b = query.charAt(j - 1);
+                int cost = a == b ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a == query.charAt(j - 2) && index.byteAt(start + i - 2) == b) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxDistance) {
+                return Integer.MAX_VALUE;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[columns - 1];
+    }
+
+    private int lowerTokenBound(String query) {
+        int low = 0;
+        int high = tokenStarts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.compareRange(tokenStarts[mid], index.nameEnd(tokenOwners[mid]), query) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (index.byteAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareSuffixes(int a, int aEnd, int b, int bEnd) {
+        int limit = Math.min(aEnd - a, bEnd - b);
+        for (int i = 0; i < limit; i++) {
+            int diff = index.byteAt(a + i) - index.byteAt(b + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        int lengths = (aEnd - a) - (bEnd - b);
+        return lengths != 0 ? lengths : Integer.compare(a, b);
+    }
+
+    /**
+     * Candidates packed as (type, score, name index) into sortable longs so ranking never boxes.
+     */
+    private final class Candidates {
+        private final BitSet seen = new BitSet(index.size());
+        private final BitSet seenIds = new BitSet();
+        private long[] keys = new long[64];
+        private int size;
+        // Distinct item ids among the candidates
+        private int ids;
+
+        void add(MatchType type, int score, int nameIndex) {
+            if (seen.get(nameIndex)) {
+                return;
+            }
+            seen.set(nameIndex);
+            int id = index.idAt(nameIndex);
+            if (!seenIds.get(id)) {
+                seenIds.set(id);
+                ids++;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = ((long) type.ordinal() << 56) | ((long) Math.min(score, MAX_SCORE) << 32) | nameIndex;
+        }
+
+        List<Match> top(int limit) {
+            Arrays.sort(keys, 0, size);
+            MatchType[] types = MatchType.values();
+            List<Match> results = new ArrayList<>(Math.min(limit, size));
+            BitSet seenIds = new BitSet();
+            for (int i = 0; i < size && results.size() < limit; i++) {
+                int nameIndex = (int) keys[i];
+                int id = index.idAt(nameIndex);
+                if (seenIds.get(id)) {
+                    continue;
+                }
+                seenIds.set(id);
+                results.add(new Match(id, index.nameAt(nameIndex), types[(int) (keys[i] >>> 56)]));
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the latest sample in the Prometheus text format on {@code http://127.0.0.1:<port>/metrics}. Bound to
+ * loopback only. Several sessions on one machine each take the next free port, so a scraper can list the range.
+ */
+public final class MetricsEndpoint implements Metrics.Sink {
+    private static final int PORT_RANGE = 64;
+
+    private final HttpServer server;
+    private volatile Metrics.Sample latest;
+
+    private MetricsEndpoint(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Binds the first free port in {@code [firstPort, firstPort + 64)}. Returns null when none is free.
+     */
+    public static MetricsEndpoint open(int firstPort) {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        for (int port = firstPort; port < firstPort + PORT_RANGE && port <= 65535; port++) {
+            HttpServer server;
+            try {
+                server = HttpServer.create(new InetSocketAddress(loopback, port), 0);
+            } catch (BindException e) {
+                continue;
+            } catch (IOException e) {
+                return null;
+            }
+            MetricsEndpoint endpoint = new MetricsEndpoint(server);
+            server.createContext("/metrics", endpoint::handle);
+            server.start();
+            return endpoint;
+        }
+        return null;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void publish(Metrics.Sample sample) {
+        latest = sample;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render(latest).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static String render(Metrics.Sample sample) {
+        if (sample == null) {
+            return "";
+        }
+        String labels = "script=\"" + escape(sample.script()) + "\",session=\"" + escape(sample.session()) + "\"";
+        StringBuilder sb = new StringBuilder(sample.values().size() * 96);
+        for (Metrics.Value value : sample.values()) {
+            sb.append("# HELP ").append(value.name()).append(' ').append(value.help()).append('\n');
+            sb.append("# TYPE ").append(value.name()).append(' ').append(value.type()).append('\n');
+            sb.append(value.name()).append('{').append(labels);
+            if (value.label() != null) {
+                sb.append(",state=\"").append(escape(value.label())).append('"');
+            }
+            sb.append("} ").append(formatValue(value.value())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        return MetricsFileSink.formatNumber(value);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
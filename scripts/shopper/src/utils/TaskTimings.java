@@ -0,0 +1,162 @@
+package utils;
+
+import com.osmb.api.script.Script;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Times each task's activate() and execute() into fixed-size latency histograms. Recording never allocates
+ * once a task has been seen, so it can wrap every poll. Percentiles are read from the paint thread without
+ * locking; a sample landing mid-read only shifts the overlay by one count.
+ */
+public final class TaskTimings {
+    private final Map<Task, Entry> byTask = new IdentityHashMap<>();
+    private volatile Entry[] entries = new Entry[0];
+    private long samplesAtLastDump = -1;
+
+    public boolean activate(Task task, FrameSnapshot frame) {
+        Entry entry = entryFor(task);
+        long start = System.nanoTime();
+        try {
+            return task.activate(frame);
+        } finally {
+            entry.activate.record(System.nanoTime() - start);
+        }
+    }
+
+    public boolean execute(Task task, FrameSnapshot frame) {
+        Entry entry = entryFor(task);
+        long start = System.nanoTime();
+        try {
+            return task.execute(frame);
+        } finally {
+            entry.execute.record(System.nanoTime() - start);
+        }
+    }
+
+    private Entry entryFor(Task task) {
+        Entry entry = byTask.get(task);
+        if (entry == null) {
+            entry = new Entry(task.getClass().getSimpleName());
+            byTask.put(task, entry);
+            Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+            grown[grown.length - 1] = entry;
+            entries = grown;
+        }
+        return entry;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * One overlay line: activate then execute p50/p99 in milliseconds.
+     */
+    public String overlayLine(int index) {
+        Entry entry = entries[index];
+        return entry.name + " a " + formatMs(entry.activate.percentile(0.50)) + "/" + formatMs(entry.activate.percentile(0.99))
+            + " e " + formatMs(entry.execute.percentile(0.50)) + "/" + formatMs(entry.execute.percentile(0.99)) + "ms";
+    }
+
+    /**
+     * Logs every histogram; skipped when nothing was recorded since the previous dump.
+     */
+    public void dump(Script script) {
+        Entry[] snapshot = entries;
+        long samples = 0;
+        for (Entry entry : snapshot) {
+            samples += entry.activate.count + entry.execute.count;
+        }
+        if (samples == samplesAtLastDump) {
+            return;
+        }
+        samplesAtLastDump = samples;
+        for (Entry entry : snapshot) {
+            script.log(getClass().getSimpleName(), entry.name + " activate " + entry.activate.summary());
+            script.log(getClass().getSimpleName(), entry.name + " execute " + entry.execute.summary());
+        }
+    }
+
+    static String formatMs(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        return ms < 10 ? String.format("%.2f", ms) : String.valueOf(Math.round(ms));
+    }
+
+    private static final class Entry {
+        final String name;
+        final LatencyHistogram activate = new LatencyHistogram();
+        final LatencyHistogram execute = new LatencyHistogram();
+
+        Entry(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Log-linear buckets: exact below 8ns, then 8 buckets per power of two (at most 12.5% error).
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 8;
+        private static final int BUCKETS = 61 * SUB_BUCKETS;
+
+        private final long[] counts = new long[BUCKETS];
+        volatile long count;
+        private volatile long max;
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts[bucketOf(value)]++;
+            if (value > max) {
+                max = value;
+            }
+            count++;
+        }
+
+        long percentile(double fraction) {
+            long total = count;
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(midpointOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        String summary() {
+            return "n=" + count
+                + " p50=" + formatMs(percentile(0.50))
+                + " p90=" + formatMs(percentile(0.90))
+                + " p99=" + formatMs(percentile(0.99))
+                + " p99.9=" + formatMs(percentile(0.999))
+                + " max=" + formatMs(max) + "ms";
+        }
+
+        static int bucketOf(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) ((value >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+            return Math.min(BUCKETS - 1, (exponent - 2) * SUB_BUCKETS + sub);
+        }
+
+        static long midpointOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + 2;
+            long width = 1L << (exponent - 3);
+            long lower = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+            return lower + width / 2;
+        }
+    }
+}
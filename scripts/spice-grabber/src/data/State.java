@@ -2,26 +2,22 @@ package data;
 
 import com.osmb.api.shape.Rectangle;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Cat sighting, chase and loot flags shared by the spice-grabber tasks.
+ */
 public final class State {
-    private State() {
-    }
-
-    public static volatile boolean highlightFound = false;
-    public static volatile Rectangle highlightBounds = null;
-    public static volatile Rectangle tapBounds = null;
-    public static volatile Double tileDistance = null;
-    public static volatile boolean isNextToUs = false;
-
-    public static volatile long lastChaseMs = 0L;
-    public static volatile boolean pendingChaseResult = false;
-    public static volatile boolean chaseExecutedThisPoll = false;
-    public static volatile boolean pendingLoot = false;
-    public static volatile boolean decanting = false;
-    public static volatile boolean decantCheckedFull = false;
-    public static volatile boolean setupComplete = false;
+    public volatile boolean highlightFound = false;
+    public volatile Rectangle highlightBounds = null;
+    public volatile Rectangle tapBounds = null;
+    public volatile Double tileDistance = null;
+    public volatile boolean isNextToUs = false;
 
-    public static List<String> previousChatLines = new ArrayList<>();
+    public volatile long lastChaseMs = 0L;
+    public volatile long chaseSettledMs = 0L;
+    public volatile boolean chaseInFlight = false;
+    public volatile boolean chaseSeenMoving = false;
+    public volatile boolean pendingLoot = false;
+    public volatile boolean decanting = false;
+    public volatile boolean decantCheckedFull = false;
+    public volatile boolean setupComplete = false;
 }
@@ -3,6 +3,7 @@ package main;
 import com.osmb.api.script.Script;
 import com.osmb.api.script.ScriptDefinition;
 import com.osmb.api.script.SkillCategory;
+import com.osmb.api.visual.drawing.Canvas;
 import data.State;
 import tasks.ChaseCatTask;
 import tasks.ChaseResultTask;
@@ -10,8 +11,15 @@ import tasks.EnsureInventoryTabTask;
 import tasks.DecantSpiceTask;
 import tasks.LootSpice;
 import tasks.FindCatTask;
+import utils.CatTracker;
+import utils.ChaseStats;
+import utils.ChatStream;
+import utils.FrameSnapshot;
 import utils.Task;
+import utils.TaskTimings;
 
+import java.awt.Color;
+import java.awt.Font;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,7 +32,12 @@ import java.util.List;
 )
 public class SpiceGrabberScript extends Script {
     private List<Task> tasks;
+    private final State state = new State();
+    private final ChatStream chat = new ChatStream(this);
+    private final CatTracker catTracker = new CatTracker(this, FindCatTask.CAT_CLUSTER);
+    private final ChaseStats chaseStats = new ChaseStats();
     private DecantSpiceTask decantTask;
+    private final TaskTimings taskTimings = new TaskTimings();
     private boolean zoomConfigured = false;
     private long lastZoomAttemptMs = 0;
     private static final long ZOOM_RETRY_MS = 2000;
@@ -41,12 +54,12 @@ public class SpiceGrabberScript extends Script {
     @Override
     public void onStart() {
         tasks = new ArrayList<>();
-        decantTask = new DecantSpiceTask(this);
-        tasks.add(new EnsureInventoryTabTask(this));
-        tasks.add(new LootSpice(this));
-        tasks.add(new FindCatTask(this));
-        tasks.add(new ChaseCatTask(this));
-        tasks.add(new ChaseResultTask(this));
+        decantTask = new DecantSpiceTask(this, state);
+        tasks.add(new EnsureInventoryTabTask(this, state));
+        tasks.add(new LootSpice(this, state, chaseStats));
+        tasks.add(new FindCatTask(this, state, catTracker));
+        tasks.add(new ChaseCatTask(this, state, catTracker, chaseStats));
+        tasks.add(new ChaseResultTask(this, state, chat, chaseStats));
     }
 
     @Override
@@ -56,30 +69,28 @@ public class SpiceGrabberScript extends Script {
         }
         ensureZoomConfigured();
 
-        var inventory = getWidgetManager().getInventory();
-        if (inventory != null) {
-            var invResult = inventory.search(java.util.Set.of());
-            if (invResult != null && invResult.isFull()) {
-                if (!State.decantCheckedFull) {
-                    State.decanting = true;
-                    State.decantCheckedFull = true;
-                }
-            } else {
-                State.decantCheckedFull = false;
-                State.decanting = false;
+        FrameSnapshot frame = new FrameSnapshot(this, DecantSpiceTask.SPICE_AND_EMPTY_IDS);
+        var invResult = frame.getInventory();
+        if (invResult != null && invResult.isFull()) {
+            if (!state.decantCheckedFull) {
+                state.decanting = true;
+                state.decantCheckedFull = true;
             }
+        } else {
+            state.decantCheckedFull = false;
+            state.decanting = false;
         }
 
-        if (State.decanting && decantTask != null) {
-            decantTask.execute();
+        if (state.decanting && decantTask != null) {
+            taskTimings.execute(decantTask, frame);
             return 0;
         }
 
         for (Task task : tasks) {
-            if (!task.activate()) {
+            if (!taskTimings.activate(task, frame)) {
                 continue;
             }
-            if (task.execute()) {
+            if (taskTimings.execute(task, frame)) {
                 return 0;
             }
         }
@@ -114,4 +125,41 @@ public class SpiceGrabberScript extends Script {
         zoomConfigured = true;
     }
 
+    @Override
+    public void onPaint(Canvas c) {
+        if (c == null) {
+            return;
+        }
+        try {
+            String[] statLines = chaseStats.overlayLines();
+            int timingLines = taskTimings.size();
+            int x = 6;
+            int y = 32;
+            int width = 240;
+            int padding = 8;
+            int lineHeight = 16;
+            int height = padding * 2 + lineHeight * (1 + statLines.length + timingLines);
+
+            c.fillRect(x, y, width, height, new Color(10, 10, 10, 190).getRGB(), 1);
+            c.drawRect(x, y, width, height, Color.WHITE.getRGB());
+
+            int textY = y + padding + 12;
+            c.drawText("Spice Grabber", x + padding, textY, Color.YELLOW.getRGB(), new Font("Arial", Font.BOLD, 12));
+            for (String line : statLines) {
+                textY += lineHeight;
+                c.drawText(line, x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
+            }
+            for (int i = 0; i < timingLines; i++) {
+                textY += lineHeight;
+                c.drawText(taskTimings.overlayLine(i), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 11));
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    @Override
+    public void stop() {
+        taskTimings.dump(this);
+        super.stop();
+    }
 }
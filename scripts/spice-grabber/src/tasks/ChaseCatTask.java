@@ -2,30 +2,42 @@ package tasks;
 
 import com.osmb.api.input.MenuEntry;
 import com.osmb.api.input.MenuHook;
+import com.osmb.api.shape.Rectangle;
 import data.State;
+import utils.CatTracker;
+import utils.ChaseStats;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class ChaseCatTask extends Task {
-    private static final long CHASE_COOLDOWN_MS = 4_000L;
+    // Roughly how long the finger takes to reach the cat after the frame was read
+    private static final long TAP_LEAD_MS = 150L;
 
-    public ChaseCatTask(com.osmb.api.script.Script script) {
+    private final State state;
+    private final CatTracker tracker;
+    private final ChaseStats stats;
+
+    public ChaseCatTask(com.osmb.api.script.Script script, State state, CatTracker tracker, ChaseStats stats) {
         super(script);
+        this.state = state;
+        this.tracker = tracker;
+        this.stats = stats;
     }
 
     @Override
-    public boolean activate() {
-        if (!State.highlightFound || !State.isNextToUs || State.tapBounds == null) {
+    public boolean activate(FrameSnapshot frame) {
+        if (state.chaseInFlight || !state.highlightFound || !state.isNextToUs || state.tapBounds == null) {
             return false;
         }
-        if (!isPlayerIdle()) {
+        if (!frame.isPlayerIdle()) {
             return false;
         }
         long nowMs = System.currentTimeMillis();
-        return nowMs - State.lastChaseMs >= CHASE_COOLDOWN_MS;
+        return nowMs - state.chaseSettledMs >= stats.cooldownMs();
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         MenuHook chaseHook = menuEntries -> {
             for (MenuEntry entry : menuEntries) {
                 if (entry == null) {
@@ -39,27 +51,17 @@ public class ChaseCatTask extends Task {
             return null;
         };
 
-        boolean chased = script.getFinger().tapGameScreen(State.tapBounds, chaseHook);
+        Rectangle tapBounds = tracker.lead(state.tapBounds, System.currentTimeMillis() + TAP_LEAD_MS);
+        boolean chased = script.getFinger().tapGameScreen(tapBounds, chaseHook);
         if (chased) {
-            State.lastChaseMs = System.currentTimeMillis();
-            State.chaseExecutedThisPoll = true;
-        }
-        return false;
-    }
-
-    private boolean isPlayerIdle() {
-        var playerPos = script.getWorldPosition();
-        if (playerPos == null) {
-            return false;
-        }
-        var tileCube = script.getSceneProjector().getTileCube(playerPos, 120);
-        if (tileCube == null) {
-            return false;
-        }
-        var resized = tileCube.getResized(0.7);
-        if (resized == null) {
-            return false;
+            state.lastChaseMs = System.currentTimeMillis();
+            stats.chaseStarted(state.lastChaseMs);
+            state.chaseInFlight = true;
+            state.chaseSeenMoving = false;
+        } else {
+            frame.invalidate();
         }
-        return !script.getPixelAnalyzer().isAnimating(0.2, resized);
+        // End the poll after a tap so the result is judged on frames taken after it
+        return chased;
     }
 }
@@ -1,167 +1,91 @@
 package tasks;
 
-import com.osmb.api.ui.chatbox.Chatbox;
-import com.osmb.api.ui.chatbox.ChatboxFilterTab;
 import data.State;
+import utils.ChaseStats;
+import utils.ChatStream;
+import utils.FrameSnapshot;
 import utils.Task;
 
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Settles a chase once the player has been seen chasing and a later poll finds them idle again. Chat is read on
+ * every poll in between, so an escape message that shows up mid-chase is not missed. A chase stays in flight while
+ * chat can't be read, for up to {@link #CHAT_READ_TIMEOUT_MS}, and then settles on whatever escape was seen.
+ */
 public class ChaseResultTask extends Task {
-    public ChaseResultTask(com.osmb.api.script.Script script) {
+    // A tap that hasn't set the player moving by then is taken as missed
+    private static final long CHASE_START_TIMEOUT_MS = 2_000L;
+    // How long after going idle a chase waits for chat to be readable before it settles on what is already known
+    private static final long CHAT_READ_TIMEOUT_MS = 2_000L;
+
+    private final State state;
+    private final ChatStream chat;
+    private final ChaseStats stats;
+    private long escapeSeenMs = 0L;
+    private long idleMs = 0L;
+
+    public ChaseResultTask(com.osmb.api.script.Script script, State state, ChatStream chat, ChaseStats stats) {
         super(script);
+        this.state = state;
+        this.chat = chat;
+        this.stats = stats;
+        chat.on("the rat manages to get away", line -> escapeSeenMs = System.currentTimeMillis());
     }
 
     @Override
-    public boolean activate() {
-        return State.chaseExecutedThisPoll && isPlayerIdle();
+    public boolean activate(FrameSnapshot frame) {
+        return state.chaseInFlight;
     }
 
     @Override
-    public boolean execute() {
-        if (State.pendingChaseResult) {
-            resolvePendingChase();
-        }
-
-        seedChatLines();
-        State.pendingChaseResult = true;
-        State.chaseExecutedThisPoll = false;
-        return true;
-    }
-
-    private void resolvePendingChase() {
-        Chatbox chatbox = script.getWidgetManager().getChatbox();
-        if (chatbox == null) {
-            return;
-        }
-
-        ChatboxFilterTab activeTab = chatbox.getActiveFilterTab();
-        if (activeTab == null) {
-            return;
-        }
-
-        if (activeTab != ChatboxFilterTab.GAME) {
-            if (!chatbox.openFilterTab(ChatboxFilterTab.GAME)) {
-                return;
+    public boolean execute(FrameSnapshot frame) {
+        if (!frame.isPlayerIdle()) {
+            if (!state.chaseSeenMoving) {
+                // Lines from before this chase are not its result; cleared before the read so one in it still counts
+                state.chaseSeenMoving = true;
+                escapeSeenMs = 0L;
             }
+            chat.update();
+            return false;
         }
 
-        var result = chatbox.getText();
-        if (result == null || !result.isFound() || result.isEmpty()) {
-            return;
-        }
-
-        List<String> lines = result.asList();
-        if (lines == null || lines.isEmpty()) {
-            return;
-        }
-
-        List<String> newLines = getNewChatLines(lines);
-        boolean failed = false;
-        String latestMessage = null;
-        for (String line : newLines) {
-            if (line == null) {
-                continue;
+        long nowMs = System.currentTimeMillis();
+        if (!state.chaseSeenMoving) {
+            if (nowMs - state.lastChaseMs >= CHASE_START_TIMEOUT_MS) {
+                settle(nowMs);
+                stats.chaseMissed();
             }
-            latestMessage = line;
-            break;
-        }
-
-        if (latestMessage != null) {
-            String lower = latestMessage.toLowerCase();
-            failed = lower.contains("the rat manages to get away");
-        }
-
-        if (!failed) {
-            State.pendingLoot = true;
-        }
-        State.pendingChaseResult = false;
-    }
-
-    private void seedChatLines() {
-        Chatbox chatbox = script.getWidgetManager().getChatbox();
-        if (chatbox == null) {
-            return;
+            return false;
         }
-
-        ChatboxFilterTab activeTab = chatbox.getActiveFilterTab();
-        if (activeTab == null) {
-            return;
+        if (idleMs == 0L) {
+            idleMs = nowMs;
+            stats.chaseIdle(idleMs);
         }
 
-        if (activeTab != ChatboxFilterTab.GAME) {
-            if (!chatbox.openFilterTab(ChatboxFilterTab.GAME)) {
-                return;
+        // The escape message can trail the chase animation; success is only known once it has had time to show
+        if (!chat.update()) {
+            if (nowMs - idleMs < CHAT_READ_TIMEOUT_MS) {
+                // Still in flight; the next poll reads again
+                return true;
             }
+        } else if (escapeSeenMs == 0L) {
+            script.pollFramesUntil(() -> chat.update() && escapeSeenMs != 0L, (int) stats.resultWaitMs());
         }
 
-        var result = chatbox.getText();
-        if (result == null || !result.isFound() || result.isEmpty()) {
-            return;
+        boolean escaped = escapeSeenMs != 0L;
+        long latencyMs = escaped ? Math.max(0L, escapeSeenMs - idleMs) : -1L;
+        settle(System.currentTimeMillis());
+        stats.chaseResolved(escaped, latencyMs);
+        if (!escaped) {
+            state.pendingLoot = true;
+            stats.lootQueued(System.currentTimeMillis());
         }
-
-        List<String> lines = result.asList();
-        if (lines == null || lines.isEmpty()) {
-            return;
-        }
-
-        State.previousChatLines = new ArrayList<>(lines);
-    }
-
-    private List<String> getNewChatLines(List<String> currentLines) {
-        if (currentLines == null || currentLines.isEmpty()) {
-            return List.of();
-        }
-
-        if (State.previousChatLines.isEmpty()) {
-            State.previousChatLines = new ArrayList<>(currentLines);
-            return List.of();
-        }
-
-        if (currentLines.equals(State.previousChatLines)) {
-            return List.of();
-        }
-
-        int firstDifference = currentLines.size();
-        for (int i = 0; i < currentLines.size(); i++) {
-            int suffixLen = currentLines.size() - i;
-            if (suffixLen > State.previousChatLines.size()) {
-                continue;
-            }
-
-            boolean match = true;
-            for (int j = 0; j < suffixLen; j++) {
-                if (!currentLines.get(i + j).equals(State.previousChatLines.get(j))) {
-                    match = false;
-                    break;
-                }
-            }
-
-            if (match) {
-                firstDifference = i;
-                break;
-            }
-        }
-
-        List<String> newLines = currentLines.subList(0, firstDifference);
-        State.previousChatLines = new ArrayList<>(currentLines);
-        return newLines;
+        return true;
     }
 
-    private boolean isPlayerIdle() {
-        var playerPos = script.getWorldPosition();
-        if (playerPos == null) {
-            return false;
-        }
-        var tileCube = script.getSceneProjector().getTileCube(playerPos, 120);
-        if (tileCube == null) {
-            return false;
-        }
-        var resized = tileCube.getResized(0.7);
-        if (resized == null) {
-            return false;
-        }
-        return !script.getPixelAnalyzer().isAnimating(0.2, resized);
+    private void settle(long nowMs) {
+        state.chaseInFlight = false;
+        state.chaseSeenMoving = false;
+        state.chaseSettledMs = nowMs;
+        idleMs = 0L;
     }
 }
@@ -3,14 +3,16 @@ package tasks;
 import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.item.ItemSearchResult;
 import data.State;
+import utils.BatchDropper;
+import utils.DecantPlanner;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 public class DecantSpiceTask extends Task {
     private enum SpiceColor {
@@ -52,13 +54,17 @@ public class DecantSpiceTask extends Task {
     };
 
     private static final int EMPTY_SPICE_SHAKER = 7496;
+    private static final int MAX_DOSE = 4;
+    // How long a move waits for the previous combine to show up in its slots
+    private static final int MOVE_READY_TIMEOUT_MS = 600;
+    private static final Set<Integer> EMPTY_SHAKER_IDS = Set.of(EMPTY_SPICE_SHAKER);
     private static final Set<Integer> SPICE_IDS = Set.of(
         7480, 7481, 7482, 7483,
         7484, 7485, 7486, 7487,
         7488, 7489, 7490, 7491,
         7492, 7493, 7494, 7495
     );
-    private static final Set<Integer> SPICE_AND_EMPTY_IDS = Set.of(
+    public static final Set<Integer> SPICE_AND_EMPTY_IDS = Set.of(
         7480, 7481, 7482, 7483,
         7484, 7485, 7486, 7487,
         7488, 7489, 7490, 7491,
@@ -66,18 +72,23 @@ public class DecantSpiceTask extends Task {
         EMPTY_SPICE_SHAKER
     );
 
-    public DecantSpiceTask(com.osmb.api.script.Script script) {
+    private final State state;
+    private final BatchDropper dropper;
+
+    public DecantSpiceTask(com.osmb.api.script.Script script, State state) {
         super(script);
+        this.state = state;
+        this.dropper = new BatchDropper(script);
     }
 
     @Override
-    public boolean activate() {
-        return State.decanting;
+    public boolean activate(FrameSnapshot frame) {
+        return state.decanting;
     }
 
     @Override
-    public boolean execute() {
-        if (!isPlayerIdle()) {
+    public boolean execute(FrameSnapshot frame) {
+        if (!frame.isPlayerIdle()) {
             return true;
         }
 
@@ -90,124 +101,139 @@ public class DecantSpiceTask extends Task {
             return true;
         }
 
-        ItemGroupResult snapshot = inventory.search(SPICE_AND_EMPTY_IDS);
+        ItemGroupResult snapshot = frame.getInventory();
         if (snapshot == null) {
             return true;
         }
 
-        Map<SpiceColor, Map<Integer, List<ItemSearchResult>>> byColorDose = new EnumMap<>(SpiceColor.class);
-        Map<Integer, SpiceDef> defById = new HashMap<>();
-        for (SpiceDef def : SPICES) {
-            defById.put(def.id, def);
-        }
-
+        List<ItemSearchResult> shakers = new ArrayList<>();
+        List<SpiceDef> defs = new ArrayList<>();
         for (SpiceDef def : SPICES) {
             List<ItemSearchResult> items = snapshot.getAllOfItem(def.id);
-            if (items == null || items.isEmpty()) {
+            if (items == null) {
                 continue;
             }
-            Map<Integer, List<ItemSearchResult>> doseMap = byColorDose.computeIfAbsent(def.color, key -> new HashMap<>());
-            List<ItemSearchResult> doseList = doseMap.computeIfAbsent(def.dose, key -> new ArrayList<>());
-            doseList.addAll(items);
+            for (ItemSearchResult item : items) {
+                if (item != null) {
+                    shakers.add(item);
+                    defs.add(def);
+                }
+            }
+        }
+        int[] colors = new int[shakers.size()];
+        int[] doses = new int[shakers.size()];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = defs.get(i).color.ordinal();
+            doses[i] = defs.get(i).dose;
         }
 
-        ItemSearchResult[] pair = findBestPair(byColorDose);
-        if (pair == null) {
+        DecantPlanner.Plan plan = DecantPlanner.plan(colors, doses, MAX_DOSE);
+        if (plan.isEmpty()) {
             if (dropEmptyShakers(snapshot)) {
                 return true;
             }
             if (snapshot.isFull()) {
                 script.stop();
             }
-            State.decanting = false;
+            state.decanting = false;
             return true;
         }
 
-        ItemSearchResult first = pair[0];
-        ItemSearchResult second = pair[1];
-        if (first == null || second == null) {
-            State.decanting = false;
-            return true;
+        // A combine changes the item in both slots, so a snapshot handle may no longer point at what the plan expects.
+        // Every move re-searches the inventory and only goes ahead once both of its slots hold the planned doses;
+        // anything else ends the sequence and the next poll replans from what is really there.
+        int[] slots = new int[shakers.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = shakers.get(i).getSlot();
+        }
+        int[] current = doses.clone();
+        List<DecantPlanner.Move> moves = plan.moves();
+        for (int i = 0; i < moves.size(); i++) {
+            DecantPlanner.Move move = moves.get(i);
+            SpiceColor color = defs.get(move.source()).color;
+            int sourceId = idOf(color, current[move.source()]);
+            int targetId = idOf(color, current[move.target()]);
+            ItemSearchResult[] pair = new ItemSearchResult[2];
+            int sourceSlot = slots[move.source()];
+            int targetSlot = slots[move.target()];
+            BooleanSupplier inPlace = () -> findPair(sourceSlot, sourceId, targetSlot, targetId, pair);
+            boolean ready = inPlace.getAsBoolean()
+                || (i > 0 && script.pollFramesUntil(inPlace, MOVE_READY_TIMEOUT_MS));
+            if (!ready) {
+                script.log(getClass().getSimpleName(), "Move " + (i + 1) + " of " + moves.size()
+                    + " no longer matches the inventory; replanning");
+                return true;
+            }
+            if (!pair[0].interact("Use") || !pair[1].interact()) {
+                return true;
+            }
+            int poured = Math.min(current[move.source()], MAX_DOSE - current[move.target()]);
+            current[move.source()] -= poured;
+            current[move.target()] += poured;
         }
-
-        if (!first.interact("Use")) {
-            return true;
+        int[] expectedShakers = new int[SpiceColor.values().length];
+        for (SpiceColor color : SpiceColor.values()) {
+            expectedShakers[color.ordinal()] = plan.remainingShakers(colors, color.ordinal());
+        }
+        boolean settled = script.pollFramesUntil(() -> matchesPlan(expectedShakers), script.random(1_200, 1_600));
+        if (!settled) {
+            script.log(getClass().getSimpleName(), "Decant sequence did not settle as planned (" + moves.size()
+                + " moves); replanning");
         }
-
-        second.interact();
         return true;
     }
 
-    private boolean dropEmptyShakers(ItemGroupResult snapshot) {
-        if (snapshot == null) {
-            return false;
-        }
-        List<ItemSearchResult> empties = snapshot.getAllOfItem(EMPTY_SPICE_SHAKER);
-        if (empties == null || empties.isEmpty()) {
+    // Fresh handles for the two slots of a move, if they hold the expected items
+    private boolean findPair(int sourceSlot, int sourceId, int targetSlot, int targetId, ItemSearchResult[] pair) {
+        var inventory = script.getWidgetManager().getInventory();
+        ItemGroupResult live = inventory != null ? inventory.search(SPICE_AND_EMPTY_IDS) : null;
+        if (live == null) {
             return false;
         }
-        for (ItemSearchResult empty : empties) {
-            if (empty == null) {
-                continue;
-            }
-            empty.interact("Drop");
-        }
-        return true;
+        pair[0] = atSlot(live.getAllOfItem(sourceId), sourceSlot);
+        pair[1] = atSlot(live.getAllOfItem(targetId), targetSlot);
+        return pair[0] != null && pair[1] != null;
     }
 
-    private ItemSearchResult[] findBestPair(Map<SpiceColor, Map<Integer, List<ItemSearchResult>>> byColorDose) {
-        for (SpiceColor color : SpiceColor.values()) {
-            Map<Integer, List<ItemSearchResult>> doses = byColorDose.get(color);
-            if (doses == null) {
-                continue;
+    private static ItemSearchResult atSlot(List<ItemSearchResult> items, int slot) {
+        if (items == null) {
+            return null;
+        }
+        for (ItemSearchResult item : items) {
+            if (item != null && item.getSlot() == slot) {
+                return item;
             }
-            ItemSearchResult[] pair = tryPair(doses, 3, 1);
-            if (pair != null) return pair;
-            pair = tryPair(doses, 2, 2);
-            if (pair != null) return pair;
-            pair = tryPair(doses, 3, 2);
-            if (pair != null) return pair;
-            pair = tryPair(doses, 3, 3);
-            if (pair != null) return pair;
-            pair = tryPair(doses, 2, 1);
-            if (pair != null) return pair;
-            pair = tryPair(doses, 1, 1);
-            if (pair != null) return pair;
         }
         return null;
     }
 
-    private ItemSearchResult[] tryPair(Map<Integer, List<ItemSearchResult>> doses, int a, int b) {
-        List<ItemSearchResult> listA = doses.get(a);
-        List<ItemSearchResult> listB = doses.get(b);
-        if (listA == null || listB == null) {
-            return null;
+    private static int idOf(SpiceColor color, int dose) {
+        if (dose == 0) {
+            return EMPTY_SPICE_SHAKER;
         }
-        if (a == b) {
-            if (listA.size() < 2) {
-                return null;
+        for (SpiceDef def : SPICES) {
+            if (def.color == color && def.dose == dose) {
+                return def.id;
             }
-            return new ItemSearchResult[]{listA.get(0), listA.get(1)};
         }
-        if (listA.isEmpty() || listB.isEmpty()) {
-            return null;
-        }
-        return new ItemSearchResult[]{listA.get(0), listB.get(0)};
+        return -1;
     }
 
-    private boolean isPlayerIdle() {
-        var playerPos = script.getWorldPosition();
-        if (playerPos == null) {
-            return false;
-        }
-        var tileCube = script.getSceneProjector().getTileCube(playerPos, 120);
-        if (tileCube == null) {
+    // True once the live inventory holds exactly the planned number of shakers per colour
+    private boolean matchesPlan(int[] expectedShakers) {
+        var inventory = script.getWidgetManager().getInventory();
+        ItemGroupResult live = inventory != null ? inventory.search(SPICE_AND_EMPTY_IDS) : null;
+        if (live == null) {
             return false;
         }
-        var resized = tileCube.getResized(0.7);
-        if (resized == null) {
-            return false;
+        int[] counts = new int[expectedShakers.length];
+        for (SpiceDef def : SPICES) {
+            counts[def.color.ordinal()] += live.getAmount(def.id);
         }
-        return !script.getPixelAnalyzer().isAnimating(0.2, resized);
+        return Arrays.equals(counts, expectedShakers);
+    }
+
+    private boolean dropEmptyShakers(ItemGroupResult snapshot) {
+        return dropper.dropAll(snapshot, EMPTY_SHAKER_IDS);
     }
 }
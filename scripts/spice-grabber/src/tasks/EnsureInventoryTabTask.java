@@ -2,16 +2,20 @@ package tasks;
 
 import com.osmb.api.ui.tabs.Tab;
 import data.State;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class EnsureInventoryTabTask extends Task {
-    public EnsureInventoryTabTask(com.osmb.api.script.Script script) {
+    private final State state;
+
+    public EnsureInventoryTabTask(com.osmb.api.script.Script script, State state) {
         super(script);
+        this.state = state;
     }
 
     @Override
-    public boolean activate() {
-        if (!isPlayerIdle()) {
+    public boolean activate(FrameSnapshot frame) {
+        if (!frame.isPlayerIdle()) {
             return false;
         }
         var widgets = script.getWidgetManager();
@@ -22,31 +26,17 @@ public class EnsureInventoryTabTask extends Task {
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         var widgets = script.getWidgetManager();
         if (widgets == null || widgets.getTabManager() == null) {
             return false;
         }
         boolean opened = widgets.getTabManager().openTab(Tab.Type.INVENTORY);
         if (opened) {
-            State.setupComplete = true;
+            state.setupComplete = true;
+        } else {
+            frame.invalidate();
         }
         return opened;
     }
-
-    private boolean isPlayerIdle() {
-        var playerPos = script.getWorldPosition();
-        if (playerPos == null) {
-            return false;
-        }
-        var tileCube = script.getSceneProjector().getTileCube(playerPos, 120);
-        if (tileCube == null) {
-            return false;
-        }
-        var resized = tileCube.getResized(0.7);
-        if (resized == null) {
-            return false;
-        }
-        return !script.getPixelAnalyzer().isAnimating(0.2, resized);
-    }
 }
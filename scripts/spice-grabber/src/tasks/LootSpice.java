@@ -8,10 +8,14 @@ import com.osmb.api.shape.Polygon;
 import com.osmb.api.ui.component.chatbox.ChatboxComponent;
 import com.osmb.api.utils.UIResultList;
 import data.State;
+import utils.ChaseStats;
+import utils.FrameSnapshot;
+import utils.LootPlanner;
 import utils.Task;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class LootSpice extends Task {
     private static final int[] SPICE_IDS = {
@@ -20,20 +24,47 @@ public class LootSpice extends Task {
         7488, 7489, 7490, 7491,
         7492, 7493, 7494, 7495
     };
-    private static final List<String> SPICE_NAMES = new ArrayList<>();
+    // Dose suffix such as " (4)", so all doses of a colour share one name
+    private static final Pattern DOSE_SUFFIX = Pattern.compile("\\s*\\(\\d+\\)$");
+
+    private final State state;
+    private final ChaseStats stats;
+    private final LootPlanner planner = new LootPlanner();
+    // Distinct lower-case spice names without the dose
+    private String[] spiceNames = new String[0];
+    // Built once; reads the field so it sees the names once they are seeded
+    private final MenuHook takeSpiceHook = menuEntries -> {
+        for (MenuEntry entry : menuEntries) {
+            if (entry == null) {
+                continue;
+            }
+            String rawText = entry.getRawText();
+            if (rawText == null || !rawText.startsWith("take ")) {
+                continue;
+            }
+            for (String name : spiceNames) {
+                if (rawText.contains(name)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    };
 
-    public LootSpice(com.osmb.api.script.Script script) {
+    public LootSpice(com.osmb.api.script.Script script, State state, ChaseStats stats) {
         super(script);
+        this.state = state;
+        this.stats = stats;
     }
 
     @Override
-    public boolean activate() {
-        return State.pendingLoot;
+    public boolean activate(FrameSnapshot frame) {
+        return state.pendingLoot;
     }
 
     @Override
-    public boolean execute() {
-        if (!isPlayerIdle()) {
+    public boolean execute(FrameSnapshot frame) {
+        if (!frame.isPlayerIdle()) {
             return false;
         }
         var minimap = script.getWidgetManager().getMinimap();
@@ -47,15 +78,12 @@ public class LootSpice extends Task {
         }
 
         seedSpiceNames();
-        if (SPICE_NAMES.isEmpty()) {
+        if (spiceNames.length == 0) {
             return false;
         }
 
-        for (WorldPosition itemPos : itemPositions) {
-            if (itemPos == null) {
-                continue;
-            }
-
+        WorldPosition playerPos = frame.getWorldPosition();
+        for (WorldPosition itemPos : planner.order(itemPositions, playerPos)) {
             RSTile tile = script.getSceneManager().getTile(itemPos);
             if (tile == null) {
                 continue;
@@ -65,7 +93,7 @@ public class LootSpice extends Task {
                 continue;
             }
 
-            if (!tile.canReach()) {
+            if (!planner.canReach(playerPos, itemPos, tile)) {
                 continue;
             }
 
@@ -79,35 +107,19 @@ public class LootSpice extends Task {
                 tapPoly = tilePoly;
             }
 
-            MenuHook hook = menuEntries -> {
-                for (MenuEntry entry : menuEntries) {
-                    if (entry == null) {
-                        continue;
-                    }
-                    String rawText = entry.getRawText();
-                    if (rawText == null || !rawText.startsWith("take ")) {
-                        continue;
-                    }
-                    for (String name : SPICE_NAMES) {
-                        if (rawText.contains(name)) {
-                            return entry;
-                        }
-                    }
-                }
-                return null;
-            };
-
-            if (script.getFinger().tapGameScreen(tapPoly, hook)) {
-                State.pendingLoot = false;
+            if (script.getFinger().tapGameScreen(tapPoly, takeSpiceHook)) {
+                state.pendingLoot = false;
+                stats.lootTaken(System.currentTimeMillis());
                 return true;
             }
+            frame.invalidate();
         }
 
         return false;
     }
 
     private void seedSpiceNames() {
-        if (!SPICE_NAMES.isEmpty()) {
+        if (spiceNames.length > 0) {
             return;
         }
 
@@ -116,27 +128,13 @@ public class LootSpice extends Task {
             return;
         }
 
+        Set<String> names = new LinkedHashSet<>();
         for (int id : SPICE_IDS) {
             String name = itemManager.getItemName(id);
             if (name != null && !name.isBlank()) {
-                SPICE_NAMES.add(name.toLowerCase());
+                names.add(DOSE_SUFFIX.matcher(name.toLowerCase()).replaceFirst(""));
             }
         }
-    }
-
-    private boolean isPlayerIdle() {
-        WorldPosition playerPos = script.getWorldPosition();
-        if (playerPos == null) {
-            return false;
-        }
-        Polygon tileCube = script.getSceneProjector().getTileCube(playerPos, 120);
-        if (tileCube == null) {
-            return false;
-        }
-        Polygon resized = tileCube.getResized(0.7);
-        if (resized == null) {
-            return false;
-        }
-        return !script.getPixelAnalyzer().isAnimating(0.2, resized);
+        spiceNames = names.toArray(new String[0]);
     }
 }
@@ -0,0 +1,88 @@
+package utils;
+
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.item.ItemSearchResult;
+import com.osmb.api.script.Script;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.utils.UIResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops every matching inventory item in one pass. Slots are visited in snake order over the 4-column grid (left to
+ * right, then right to left on the next row) so the finger never jumps back across the inventory. Each slot gets a
+ * single tap with the "Drop" action: with tap-to-drop enabled in the client that is the default action and no menu
+ * opens; otherwise the finger falls back to the menu. Removal is confirmed once, after the last tap.
+ */
+public final class BatchDropper {
+    private static final int COLUMNS = 4;
+
+    private final Script script;
+
+    public BatchDropper(Script script) {
+        this.script = script;
+    }
+
+    /**
+     * Returns false when {@code snapshot} holds none of {@code itemIds}; true once a drop pass has been attempted.
+     */
+    public boolean dropAll(ItemGroupResult snapshot, Set<Integer> itemIds) {
+        if (snapshot == null) {
+            return false;
+        }
+        List<ItemSearchResult> found = snapshot.getAllOfItems(itemIds);
+        if (found == null || found.isEmpty()) {
+            return false;
+        }
+        List<ItemSearchResult> items = new ArrayList<>(found.size());
+        for (ItemSearchResult item : found) {
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        items.sort(Comparator.comparingInt(BatchDropper::snakeOrder));
+
+        int tapped = 0;
+        for (ItemSearchResult item : items) {
+            UIResult<Rectangle> tappable = item.getTappableBounds();
+            if (tappable == null || tappable.isNotVisible() || tappable.isNotFound() || tappable.get() == null) {
+                continue;
+            }
+            if (!script.getFinger().tap(tappable.get(), "Drop")) {
+                break;
+            }
+            tapped++;
+            script.pollFramesUntil(() -> false, script.random(40, 90));
+        }
+        if (tapped == 0) {
+            return true;
+        }
+
+        int expectedLeft = items.size() - tapped;
+        boolean cleared = script.pollFramesUntil(() -> remaining(itemIds) <= expectedLeft, script.random(900, 1_300));
+        if (!cleared) {
+            script.log(getClass().getSimpleName(), "Dropped " + tapped + " item(s) but the inventory has not caught up yet");
+        }
+        return true;
+    }
+
+    private int remaining(Set<Integer> itemIds) {
+        var inventory = script.getWidgetManager().getInventory();
+        ItemGroupResult live = inventory != null ? inventory.search(itemIds) : null;
+        if (live == null) {
+            return Integer.MAX_VALUE;
+        }
+        List<ItemSearchResult> left = live.getAllOfItems(itemIds);
+        return left == null ? 0 : left.size();
+    }
+
+    static int snakeOrder(ItemSearchResult item) {
+        int slot = item.getSlot();
+        int row = slot / COLUMNS;
+        int col = slot % COLUMNS;
+        return row * COLUMNS + (row % 2 == 0 ? col : COLUMNS - 1 - col);
+    }
+}
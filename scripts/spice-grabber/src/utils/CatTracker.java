@@ -0,0 +1,183 @@
+package utils;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.script.Script;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.visual.SearchablePixel;
+
+/**
+ * Follows the cat's highlight across polls. It keeps the last few highlight centres, extrapolates them at constant
+ * velocity, and first searches a small window, clipped to the screen, around the prediction. The whole screen is
+ * only scanned when that window misses or clips the highlight, or too little of it is left on screen. Taps can be
+ * led by the same prediction, so they land where the cat will be rather than where it was last seen.
+ * <p>
+ * Screen coordinates only mean something while the camera is still, so the history is dropped whenever the player
+ * changes tile.
+ */
+public final class CatTracker {
+    private static final int HISTORY = 4;
+    // Observations older than this no longer describe the cat's current motion
+    private static final long MAX_AGE_MS = 1_500L;
+    private static final int ROI_MARGIN = 24;
+    private static final int MAX_LEAD_PX = 60;
+
+    private final Script script;
+    private final SearchablePixel[] cluster;
+
+    private final long[] times = new long[HISTORY];
+    private final double[] centerX = new double[HISTORY];
+    private final double[] centerY = new double[HISTORY];
+    private int count = 0;
+    private int newest = -1;
+    private int lastWidth;
+    private int lastHeight;
+    private int screenWidth;
+    private int screenHeight;
+    private WorldPosition anchor;
+
+    public CatTracker(Script script, SearchablePixel[] cluster) {
+        this.script = script;
+        this.cluster = cluster;
+    }
+
+    /**
+     * Highlight bounds for this frame, or null if the cat is not on screen.
+     */
+    public Rectangle locate(WorldPosition playerPos) {
+        long now = System.currentTimeMillis();
+        if (!sameTile(playerPos, anchor)) {
+            reset();
+            anchor = playerPos;
+        }
+
+        Rectangle roi = searchWindow(now);
+        if (roi != null) {
+            Rectangle found = script.getPixelAnalyzer().getHighlightBounds(roi, cluster);
+            if (found != null && !touchesCut(found, roi)) {
+                record(found, now);
+                return found;
+            }
+        }
+
+        readScreenSize();
+        Rectangle found = script.getPixelAnalyzer().getHighlightBounds(null, cluster);
+        if (found == null) {
+            reset();
+            return null;
+        }
+        record(found, now);
+        return found;
+    }
+
+    /**
+     * {@code bounds} moved by the cat's predicted travel between its last sighting and {@code atMs}.
+     */
+    public Rectangle lead(Rectangle bounds, long atMs) {
+        if (bounds == null || count < 2) {
+            return bounds;
+        }
+        double[] velocity = velocity(atMs);
+        if (velocity == null) {
+            return bounds;
+        }
+        double dt = atMs - times[newest];
+        int dx = clamp((int) Math.round(velocity[0] * dt), MAX_LEAD_PX);
+        int dy = clamp((int) Math.round(velocity[1] * dt), MAX_LEAD_PX);
+        if (dx == 0 && dy == 0) {
+            return bounds;
+        }
+        return new Rectangle(bounds.x + dx, bounds.y + dy, bounds.width, bounds.height);
+    }
+
+    public void reset() {
+        count = 0;
+        newest = -1;
+    }
+
+    private Rectangle searchWindow(long now) {
+        if (count == 0 || now - times[newest] > MAX_AGE_MS) {
+            return null;
+        }
+        double px = centerX[newest];
+        double py = centerY[newest];
+        double[] velocity = velocity(now);
+        if (velocity != null) {
+            double dt = now - times[newest];
+            px += clamp((int) Math.round(velocity[0] * dt), MAX_LEAD_PX);
+            py += clamp((int) Math.round(velocity[1] * dt), MAX_LEAD_PX);
+        }
+        int width = lastWidth + ROI_MARGIN * 2;
+        int height = lastHeight + ROI_MARGIN * 2;
+        int left = (int) Math.round(px - width / 2.0);
+        int top = (int) Math.round(py - height / 2.0);
+        // Clipped to the screen; a window that ends up smaller than the highlight can't hold it
+        int x = Math.max(0, left);
+        int y = Math.max(0, top);
+        int right = Math.min(screenWidth, left + width);
+        int bottom = Math.min(screenHeight, top + height);
+        if (right - x <= lastWidth || bottom - y <= lastHeight) {
+            return null;
+        }
+        return new Rectangle(x, y, right - x, bottom - y);
+    }
+
+    // Refreshed on every full-screen search, so a resized client is picked up the next time the window misses
+    private void readScreenSize() {
+        var screen = script.getScreen();
+        var image = screen != null ? screen.getImage() : null;
+        if (image != null) {
+            screenWidth = image.getWidth();
+            screenHeight = image.getHeight();
+        }
+    }
+
+    // Pixels per millisecond from the oldest usable observation to the newest, or null with fewer than two
+    private double[] velocity(long now) {
+        if (count < 2) {
+            return null;
+        }
+        int oldest = newest;
+        for (int i = 1; i < count; i++) {
+            int index = Math.floorMod(newest - i, HISTORY);
+            if (now - times[index] > MAX_AGE_MS) {
+                break;
+            }
+            oldest = index;
+        }
+        long span = times[newest] - times[oldest];
+        if (oldest == newest || span <= 0) {
+            return null;
+        }
+        return new double[] {
+            (centerX[newest] - centerX[oldest]) / span,
+            (centerY[newest] - centerY[oldest]) / span
+        };
+    }
+
+    private void record(Rectangle bounds, long now) {
+        newest = (newest + 1) % HISTORY;
+        times[newest] = now;
+        centerX[newest] = bounds.x + bounds.width / 2.0;
+        centerY[newest] = bounds.y + bounds.height / 2.0;
+        lastWidth = bounds.width;
+        lastHeight = bounds.height;
+        count = Math.min(count + 1, HISTORY);
+    }
+
+    // A highlight that reaches the window's edge was probably cut off by it; edges that lie on the screen's own
+    // border cut nothing
+    private boolean touchesCut(Rectangle found, Rectangle roi) {
+        return found.x <= roi.x && roi.x > 0
+            || found.y <= roi.y && roi.y > 0
+            || found.x + found.width >= roi.x + roi.width && roi.x + roi.width < screenWidth
+            || found.y + found.height >= roi.y + roi.height && roi.y + roi.height < screenHeight;
+    }
+
+    private static boolean sameTile(WorldPosition a, WorldPosition b) {
+        return a != null && b != null && a.getX() == b.getX() && a.getY() == b.getY() && a.getPlane() == b.getPlane();
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+}
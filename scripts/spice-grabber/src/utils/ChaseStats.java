@@ -0,0 +1,157 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of every chase: time from the tap until the player is idle again, whether the rat escaped, and how long
+ * the spice took to be picked up. Outcomes tune the two waits in the chase loop:
+ * <ul>
+ *   <li>the cooldown from one chase settling to the next tap, which shrinks a step after every tap that starts a
+ *   chase and grows after every tap that doesn't, so it hovers around the shortest gap the game accepts</li>
+ *   <li>the result wait after a chase, which follows how late the escape message actually shows up in chat</li>
+ * </ul>
+ * Both stay within fixed bounds. Written from the poll thread and read by the paint thread, hence the locking.
+ */
+public final class ChaseStats {
+    private static final int WINDOW = 20;
+    private static final int MIN_SAMPLES = 5;
+
+    public static final long DEFAULT_COOLDOWN_MS = 1_000L;
+    private static final long MIN_COOLDOWN_MS = 200L;
+    private static final long MAX_COOLDOWN_MS = 4_000L;
+    private static final long COOLDOWN_SHRINK_MS = 100L;
+    private static final long COOLDOWN_GROW_MS = 500L;
+
+    public static final long DEFAULT_RESULT_WAIT_MS = 600L;
+    private static final long MIN_RESULT_WAIT_MS = 150L;
+    private static final long MAX_RESULT_WAIT_MS = 1_500L;
+    private static final long RESULT_WAIT_SLACK_MS = 150L;
+
+    private final long startMs = System.currentTimeMillis();
+
+    private final Window idleTimes = new Window();
+    private final Window escapeLatencies = new Window();
+    private long chaseStartMs = 0L;
+    private long lootQueuedMs = 0L;
+
+    private int attempts = 0;
+    private int misses = 0;
+    private int successes = 0;
+    private int failures = 0;
+    private int loots = 0;
+    private long lootTimeTotalMs = 0L;
+
+    private long cooldownMs = DEFAULT_COOLDOWN_MS;
+    private long resultWaitMs = DEFAULT_RESULT_WAIT_MS;
+
+    public synchronized void chaseStarted(long nowMs) {
+        attempts++;
+        chaseStartMs = nowMs;
+    }
+
+    public synchronized void chaseIdle(long nowMs) {
+        if (chaseStartMs <= 0) {
+            return;
+        }
+        idleTimes.add(nowMs - chaseStartMs);
+        chaseStartMs = 0L;
+        cooldownMs = clamp(cooldownMs - COOLDOWN_SHRINK_MS, MIN_COOLDOWN_MS, MAX_COOLDOWN_MS);
+    }
+
+    // The tap never turned into a chase, most likely because it came too soon; it leaves no timing sample
+    public synchronized void chaseMissed() {
+        chaseStartMs = 0L;
+        misses++;
+        cooldownMs = clamp(cooldownMs + COOLDOWN_GROW_MS, MIN_COOLDOWN_MS, MAX_COOLDOWN_MS);
+    }
+
+    /**
+     * @param escapeLatencyMs how long after the player went idle the escape message was read, or -1 if none was
+     */
+    public synchronized void chaseResolved(boolean escaped, long escapeLatencyMs) {
+        if (!escaped) {
+            successes++;
+            return;
+        }
+        failures++;
+        if (escapeLatencyMs >= 0) {
+            escapeLatencies.add(escapeLatencyMs);
+            if (escapeLatencies.size() >= MIN_SAMPLES) {
+                long late = escapeLatencies.percentile(0.95);
+                resultWaitMs = clamp(late + RESULT_WAIT_SLACK_MS, MIN_RESULT_WAIT_MS, MAX_RESULT_WAIT_MS);
+            }
+        }
+    }
+
+    public synchronized void lootQueued(long nowMs) {
+        lootQueuedMs = nowMs;
+    }
+
+    public synchronized void lootTaken(long nowMs) {
+        loots++;
+        if (lootQueuedMs > 0) {
+            lootTimeTotalMs += nowMs - lootQueuedMs;
+            lootQueuedMs = 0L;
+        }
+    }
+
+    public synchronized long cooldownMs() {
+        return cooldownMs;
+    }
+
+    public synchronized long resultWaitMs() {
+        return resultWaitMs;
+    }
+
+    /**
+     * HUD lines: spices per hour, chase success rate, median chase time, current waits and average loot time.
+     */
+    public synchronized String[] overlayLines() {
+        long runtimeMs = Math.max(1L, System.currentTimeMillis() - startMs);
+        long perHour = Math.round(loots * 3_600_000.0 / runtimeMs);
+        int resolved = successes + failures;
+        String rate = resolved == 0 ? "-" : Math.round(100.0 * successes / resolved) + "%";
+        String lootAvg = loots == 0 ? "-" : formatSeconds(lootTimeTotalMs / loots);
+        String chaseTime = idleTimes.size() < MIN_SAMPLES ? "-" : formatSeconds(idleTimes.percentile(0.5));
+        return new String[] {
+            "Spices: " + loots + " (" + perHour + "/hr)",
+            "Chases: " + attempts + ", success " + rate + " (" + successes + "/" + resolved + "), missed " + misses,
+            "Chase " + chaseTime + ", cooldown " + formatSeconds(cooldownMs) + ", result wait "
+                + formatSeconds(resultWaitMs),
+            "Avg loot " + lootAvg
+        };
+    }
+
+    private static String formatSeconds(long ms) {
+        return String.format("%.1fs", ms / 1000.0);
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // Last WINDOW samples in a ring
+    private static final class Window {
+        private final long[] values = new long[WINDOW];
+        private final long[] sorted = new long[WINDOW];
+        private int count = 0;
+        private int next = 0;
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+        }
+
+        int size() {
+            return count;
+        }
+
+        long percentile(double p) {
+            System.arraycopy(values, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            int index = (int) Math.min(count - 1, Math.max(0, Math.round(p * (count - 1))));
+            return sorted[index];
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package utils;
+
+import com.osmb.api.script.Script;
+import com.osmb.api.ui.chatbox.Chatbox;
+import com.osmb.api.ui.chatbox.ChatboxFilterTab;
+import com.osmb.api.utils.UIResultList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The game chat tab as a stream of new lines. Each read hashes the visible lines and aligns them with the previous
+ * read in linear time, so only lines that appeared since then are emitted, oldest first. Subscribed phrases are
+ * matched case-insensitively by one Aho-Corasick automaton, so each new line is scanned once however many phrases
+ * are registered.
+ * <p>
+ * The first read only records what is already on screen; nothing is emitted for it.
+ */
+public final class ChatStream {
+    private final Script script;
+    private final List<String> phrases = new ArrayList<>();
+    private final List<Consumer<String>> listeners = new ArrayList<>();
+    private Automaton automaton;
+    private boolean[] hits = new boolean[0];
+
+    // Line hashes, newest first as the chatbox lists them
+    private long[] previous = null;
+    private int previousCount = 0;
+    private long[] current = new long[0];
+    private int[] border = new int[0];
+
+    public ChatStream(Script script) {
+        this.script = script;
+    }
+
+    /**
+     * Calls {@code listener} with every new line containing {@code phrase}, ignoring case.
+     */
+    public ChatStream on(String phrase, Consumer<String> listener) {
+        if (phrase == null || phrase.isEmpty()) {
+            throw new IllegalArgumentException("phrase must not be empty");
+        }
+        phrases.add(phrase.toLowerCase());
+        listeners.add(listener);
+        automaton = null;
+        return this;
+    }
+
+    /**
+     * Reads the game tab and notifies subscribers of every line that appeared since the last read. Returns false
+     * if the chatbox could not be read, in which case nothing is consumed.
+     */
+    public boolean update() {
+        List<String> lines = readGameTab();
+        if (lines == null) {
+            return false;
+        }
+        int fresh = advance(lines);
+        if (fresh == 0 || phrases.isEmpty()) {
+            return true;
+        }
+        if (automaton == null) {
+            automaton = new Automaton(phrases);
+            hits = new boolean[phrases.size()];
+        }
+        for (int i = fresh - 1; i >= 0; i--) {
+            String line = lines.get(i);
+            if (line == null) {
+                continue;
+            }
+            Arrays.fill(hits, false);
+            automaton.match(line, hits);
+            for (int p = 0; p < hits.length; p++) {
+                if (hits[p]) {
+                    listeners.get(p).accept(line);
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<String> readGameTab() {
+        Chatbox chatbox = script.getWidgetManager().getChatbox();
+        if (chatbox == null) {
+            return null;
+        }
+
+        ChatboxFilterTab activeTab = chatbox.getActiveFilterTab();
+        if (activeTab == null) {
+            return null;
+        }
+
+        if (activeTab != ChatboxFilterTab.GAME) {
+            if (!chatbox.openFilterTab(ChatboxFilterTab.GAME)) {
+                return null;
+            }
+        }
+
+        UIResultList<String> result = chatbox.getText();
+        if (result == null || !result.isFound() || result.isEmpty()) {
+            return null;
+        }
+
+        List<String> lines = result.asList();
+        return lines == null || lines.isEmpty() ? null : lines;
+    }
+
+    /**
+     * Stores the hashes of {@code lines} and returns how many of the newest lines were not on screen last read: the
+     * longest run of oldest lines that equals the newest lines of the previous read is old, the rest is new.
+     */
+    private int advance(List<String> lines) {
+        int n = lines.size();
+        if (current.length < n) {
+            current = new long[n];
+        }
+        for (int i = 0; i < n; i++) {
+            current[i] = hash(lines.get(i));
+        }
+
+        int fresh = 0;
+        if (previous != null) {
+            fresh = n - overlap(current, n, previous, previousCount);
+        }
+
+        long[] swap = previous;
+        previous = current;
+        previousCount = n;
+        current = swap != null ? swap : new long[0];
+        return fresh;
+    }
+
+    // KMP: length of the longest suffix of text[0, n) that is a prefix of pattern[0, m)
+    private int overlap(long[] text, int n, long[] pattern, int m) {
+        if (m == 0) {
+            return 0;
+        }
+        if (border.length < m) {
+            border = new int[m];
+        }
+        border[0] = 0;
+        for (int i = 1, k = 0; i < m; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = border[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            border[i] = k;
+        }
+        int matched = 0;
+        for (int i = 0; i < n; i++) {
+            if (matched == m) {
+                matched = border[m - 1];
+            }
+            while (matched > 0 && text[i] != pattern[matched]) {
+                matched = border[matched - 1];
+            }
+            if (text[i] == pattern[matched]) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    // 64-bit FNV-1a, wide enough that two different chat lines colliding is not a practical concern
+    private static long hash(String line) {
+        if (line == null) {
+            return 0L;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            h ^= line.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Aho-Corasick over lower-cased phrases, compiled to a dense transition table. Characters that appear in no
+     * phrase share symbol 0.
+     */
+    private static final class Automaton {
+        private final int[] asciiSymbols = new int[128];
+        private final Map<Character, Integer> otherSymbols = new HashMap<>();
+        private final int symbols;
+        private final int[] next;
+        private final int[][] outputs;
+
+        private Automaton(List<String> phrases) {
+            int symbolCount = 1;
+            int maxStates = 1;
+            for (String phrase : phrases) {
+                maxStates += phrase.length();
+                for (int i = 0; i < phrase.length(); i++) {
+                    char ch = phrase.charAt(i);
+                    if (symbolOf(ch) == 0) {
+                        if (ch < 128) {
+                            asciiSymbols[ch] = symbolCount++;
+                        } else {
+                            otherSymbols.put(ch, symbolCount++);
+                        }
+                    }
+                }
+            }
+            symbols = symbolCount;
+            int[] goTo = new int[maxStates * symbols];
+            Arrays.fill(goTo, -1);
+            List<List<Integer>> ends = new ArrayList<>();
+            ends.add(new ArrayList<>());
+
+            int states = 1;
+            for (int p = 0; p < phrases.size(); p++) {
+                String phrase = phrases.get(p);
+                int state = 0;
+                for (int i = 0; i < phrase.length(); i++) {
+                    int edge = state * symbols + symbolOf(phrase.charAt(i));
+                    if (goTo[edge] < 0) {
+                        goTo[edge] = states++;
+                        ends.add(new ArrayList<>());
+                    }
+                    state = goTo[edge];
+                }
+                ends.get(state).add(p);
+            }
+
+            // Breadth-first, filling missing edges from the failure state so matching never backtracks
+            int[] fail = new int[states];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int s = 0; s < symbols; s++) {
+                int child = goTo[s];
+                if (child < 0) {
+                    goTo[s] = 0;
+                } else {
+                    fail[child] = 0;
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                ends.get(state).addAll(ends.get(fail[state]));
+                for (int s = 0; s < symbols; s++) {
+                    int edge = state * symbols + s;
+                    int fallback = goTo[fail[state] * symbols + s];
+                    if (goTo[edge] < 0) {
+                        goTo[edge] = fallback;
+                    } else {
+                        fail[goTo[edge]] = fallback;
+                        queue.add(goTo[edge]);
+                    }
+                }
+            }
+
+            next = Arrays.copyOf(goTo, states * symbols);
+            outputs = new int[states][];
+            for (int state = 0; state < states; state++) {
+                outputs[state] = ends.get(state).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        private void match(String line, boolean[] hits) {
+            int state = 0;
+            for (int i = 0; i < line.length(); i++) {
+                state = next[state * symbols + symbolOf(Character.toLowerCase(line.charAt(i)))];
+                for (int p : outputs[state]) {
+                    hits[p] = true;
+                }
+            }
+        }
+
+        private int symbolOf(char ch) {
+            if (ch < 128) {
+                return asciiSymbols[ch];
+            }
+            Integer symbol = otherSymbols.get(ch);
+            return symbol != null ? symbol : 0;
+        }
+    }
+}
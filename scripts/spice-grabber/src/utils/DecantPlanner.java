@@ -0,0 +1,88 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans every combine needed to decant a whole inventory of shakers from one snapshot. Within each group (spice
+ * colour) it pours the emptiest shaker into the fullest one that still has room until at most one partial shaker
+ * is left, so each group ends in the fewest non-empty slots: ceil(total doses / max dose). Every pour either fills
+ * its target or empties its source, so a group of n partial shakers needs at most n - 1 moves.
+ */
+public final class DecantPlanner {
+    /**
+     * Use {@code source} on {@code target}; indices refer to the arrays passed to {@link #plan}.
+     */
+    public record Move(int source, int target) {}
+
+    /**
+     * @param moves      combines in execution order
+     * @param finalDoses dose of every shaker once all moves have run; 0 means it is now an empty shaker
+     */
+    public record Plan(List<Move> moves, int[] finalDoses) {
+        public boolean isEmpty() {
+            return moves.isEmpty();
+        }
+
+        /**
+         * Non-empty shakers left in {@code group} after the plan has run.
+         */
+        public int remainingShakers(int[] groups, int group) {
+            int count = 0;
+            for (int i = 0; i < finalDoses.length; i++) {
+                if (groups[i] == group && finalDoses[i] > 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private DecantPlanner() {
+    }
+
+    public static Plan plan(int[] groups, int[] doses, int maxDose) {
+        int[] current = doses.clone();
+        List<Move> moves = new ArrayList<>();
+        boolean[] seenGroup = new boolean[groups.length];
+        for (int start = 0; start < groups.length; start++) {
+            if (seenGroup[start]) {
+                continue;
+            }
+            int group = groups[start];
+            for (int i = start; i < groups.length; i++) {
+                if (groups[i] == group) {
+                    seenGroup[i] = true;
+                }
+            }
+            planGroup(groups, group, current, maxDose, moves);
+        }
+        return new Plan(moves, current);
+    }
+
+    private static void planGroup(int[] groups, int group, int[] current, int maxDose, List<Move> moves) {
+        while (true) {
+            int source = -1;
+            int target = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (groups[i] != group || current[i] <= 0 || current[i] >= maxDose) {
+                    continue;
+                }
+                if (source < 0 || current[i] < current[source]) {
+                    source = i;
+                }
+                if (target < 0 || current[i] >= current[target]) {
+                    target = i;
+                }
+            }
+            if (source < 0 || source == target) {
+                // At most one partial shaker left in this group
+                return;
+            }
+            int poured = Math.min(current[source], maxDose - current[target]);
+            current[source] -= poured;
+            current[target] += poured;
+            moves.add(new Move(source, target));
+        }
+    }
+}
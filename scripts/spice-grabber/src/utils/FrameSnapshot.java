@@ -0,0 +1,136 @@
+package utils;
+
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.script.Script;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.ui.GameState;
+
+import java.util.Set;
+
+/**
+ * Perception for a single poll. Each value is read from the client the first time a task asks for it and then
+ * reused by every other task's activate()/execute() in the same poll. A task that taps and still lets the poll go
+ * on must call {@link #invalidate()}, so later tasks don't act on the screen from before its input; reads inside a
+ * task's own pollFramesUntil should still query the client.
+ */
+public class FrameSnapshot {
+    private final Script script;
+    private final Set<Integer> inventoryItemIds;
+
+    private ItemGroupResult inventory;
+    private boolean inventoryRead = false;
+    private WorldPosition worldPosition;
+    private boolean worldPositionRead = false;
+    private Integer hitpointsPercentage;
+    private boolean hitpointsRead = false;
+    private GameState gameState;
+    private boolean gameStateRead = false;
+    private Boolean playerAnimating;
+    private Boolean playerIdle;
+
+    public FrameSnapshot(Script script, Set<Integer> inventoryItemIds) {
+        this.script = script;
+        this.inventoryItemIds = inventoryItemIds == null ? Set.of() : inventoryItemIds;
+    }
+
+    /**
+     * Drops every cached value, so the next read goes back to the client.
+     */
+    public void invalidate() {
+        inventoryRead = false;
+        inventory = null;
+        worldPositionRead = false;
+        worldPosition = null;
+        hitpointsRead = false;
+        hitpointsPercentage = null;
+        gameStateRead = false;
+        gameState = null;
+        playerAnimating = null;
+        playerIdle = null;
+    }
+
+    /**
+     * Inventory searched for the script's tracked item ids; slot counts (isFull, getFreeSlots) cover every item.
+     */
+    public ItemGroupResult getInventory() {
+        if (!inventoryRead) {
+            inventoryRead = true;
+            var widgets = script.getWidgetManager();
+            var inventoryComponent = widgets != null ? widgets.getInventory() : null;
+            inventory = inventoryComponent != null ? inventoryComponent.search(inventoryItemIds) : null;
+        }
+        return inventory;
+    }
+
+    public boolean isInventoryFull() {
+        ItemGroupResult inv = getInventory();
+        return inv != null && inv.isFull();
+    }
+
+    public WorldPosition getWorldPosition() {
+        if (!worldPositionRead) {
+            worldPositionRead = true;
+            worldPosition = script.getWorldPosition();
+        }
+        return worldPosition;
+    }
+
+    public Integer getHitpointsPercentage() {
+        if (!hitpointsRead) {
+            hitpointsRead = true;
+            var widgets = script.getWidgetManager();
+            var orbs = widgets != null ? widgets.getMinimapOrbs() : null;
+            Integer hp = orbs != null ? orbs.getHitpointsPercentage() : null;
+            hitpointsPercentage = hp == null || hp < 0 ? null : hp;
+        }
+        return hitpointsPercentage;
+    }
+
+    public GameState getGameState() {
+        if (!gameStateRead) {
+            gameStateRead = true;
+            var widgets = script.getWidgetManager();
+            gameState = widgets != null ? widgets.getGameState() : null;
+        }
+        return gameState;
+    }
+
+    public boolean isLoggedIn() {
+        return getGameState() == GameState.LOGGED_IN;
+    }
+
+    public boolean isPlayerAnimating() {
+        if (playerAnimating == null) {
+            playerAnimating = script.getPixelAnalyzer().isPlayerAnimating(0.4);
+        }
+        return playerAnimating;
+    }
+
+    /**
+     * Whether nothing is animating around the player's tile. Every task gates on this, so the projection and pixel
+     * scan run once per poll instead of once per task.
+     */
+    public boolean isPlayerIdle() {
+        if (playerIdle == null) {
+            playerIdle = computePlayerIdle();
+        }
+        return playerIdle;
+    }
+
+    private boolean computePlayerIdle() {
+        WorldPosition playerPos = getWorldPosition();
+        if (playerPos == null) {
+            return false;
+        }
+        Polygon tileCube = script.getSceneProjector().getTileCube(playerPos, 120);
+        if (tileCube == null) {
+            return false;
+        }
+        Polygon resized = tileCube.getResized(0.7);
+        if (resized == null) {
+            return false;
+        }
+        return !script.getPixelAnalyzer().isAnimating(0.2, resized);
+    }
+}
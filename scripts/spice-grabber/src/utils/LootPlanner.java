@@ -0,0 +1,71 @@
+package utils;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.scene.RSTile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders ground items nearest first and remembers which tiles can be reached. Reachability depends on where the
+ * player stands, so the answers are kept only until the player moves to another tile. Movement is eight-directional
+ * and the room is open, so the Chebyshev tile distance is the walking distance; ties go to the straighter line.
+ */
+public final class LootPlanner {
+    private final Map<Long, Boolean> reachable = new HashMap<>();
+    private long reachableFrom = Long.MIN_VALUE;
+
+    public List<WorldPosition> order(Iterable<WorldPosition> positions, WorldPosition from) {
+        List<WorldPosition> ordered = new ArrayList<>();
+        for (WorldPosition pos : positions) {
+            if (pos != null && (from == null || pos.getPlane() == from.getPlane())) {
+                ordered.add(pos);
+            }
+        }
+        if (from != null && ordered.size() > 1) {
+            ordered.sort(Comparator
+                .comparingInt((WorldPosition pos) -> pathDistance(from, pos))
+                .thenComparingInt(pos -> squaredDistance(from, pos)));
+        }
+        return ordered;
+    }
+
+    /**
+     * Whether {@code tile}, at {@code pos}, can be reached from {@code from}; answers are not cached when the player's
+     * position is unknown.
+     */
+    public boolean canReach(WorldPosition from, WorldPosition pos, RSTile tile) {
+        if (from == null) {
+            return tile.canReach();
+        }
+        long fromKey = key(from);
+        if (fromKey != reachableFrom) {
+            reachable.clear();
+            reachableFrom = fromKey;
+        }
+        long key = key(pos);
+        Boolean cached = reachable.get(key);
+        if (cached == null) {
+            cached = tile.canReach();
+            reachable.put(key, cached);
+        }
+        return cached;
+    }
+
+    private static long key(WorldPosition pos) {
+        return ((long) pos.getPlane() << 40) | ((long) pos.getX() << 20) | pos.getY();
+    }
+
+    private static int pathDistance(WorldPosition a, WorldPosition b) {
+        return Math.max(Math.abs(a.getX() - b.getX()), Math.abs(a.getY() - b.getY()));
+    }
+
+    private static int squaredDistance(WorldPosition a, WorldPosition b) {
+        int dx = a.getX() - b.getX();
+        int dy = a.getY() - b.getY();
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,236 @@
+package utils;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.script.Script;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.shape.Rectangle;
+
+import java.util.Arrays;
+
+/**
+ * Screen bounds of every tile within {@code radius} of the player, projected once and reused while the player
+ * and camera stay put. Tiles are bucketed into a uniform grid over screen space so a rectangle lookup only tests
+ * the tiles whose cells it overlaps.
+ * <p>
+ * The API exposes no camera state, so the cache is keyed on the player tile plus one probe tile, off both axes,
+ * that is re-projected on every lookup: a pan, rotation or zoom moves or resizes it. That re-projection allocates
+ * the probe's cube and bounds; the rest of a lookup allocates nothing.
+ */
+public final class TileProjectionGrid {
+    private static final int CELL_SIZE = 48;
+    private static final int MAX_CELLS = 64 * 64;
+    // Probe offset from the player; off-axis so a rotation by any angle short of a full turn moves it
+    private static final int PROBE_DX = 3;
+    private static final int PROBE_DY = 1;
+
+    private final Script script;
+    private final int radius;
+    private final int tileHeight;
+    private final int side;
+    private final int probeDx;
+    private final int probeDy;
+
+    private final boolean[] projected;
+    private final int[] minX;
+    private final int[] minY;
+    private final int[] maxX;
+    private final int[] maxY;
+    private final double[] distance;
+
+    private int originX;
+    private int originY;
+    private int cellSize = CELL_SIZE;
+    private int cols;
+    private int rows;
+    private int[] cellStart = new int[0];
+    private int[] cellTiles = new int[0];
+
+    private boolean valid = false;
+    private int playerX;
+    private int playerY;
+    private int playerPlane;
+    private WorldPosition probePosition;
+    private final int[] probeBounds = new int[4];
+
+    public TileProjectionGrid(Script script, int radius, int tileHeight) {
+        this.script = script;
+        this.radius = radius;
+        this.tileHeight = tileHeight;
+        this.side = radius * 2 + 1;
+        this.probeDx = Math.min(PROBE_DX, radius);
+        this.probeDy = Math.min(PROBE_DY, radius);
+        int tiles = side * side;
+        projected = new boolean[tiles];
+        minX = new int[tiles];
+        minY = new int[tiles];
+        maxX = new int[tiles];
+        maxY = new int[tiles];
+        distance = new double[tiles];
+    }
+
+    /**
+     * Distance from the player to the nearest tile whose projected cube intersects {@code bounds}, or -1 if none.
+     */
+    public double nearestIntersectingDistance(WorldPosition playerPos, Rectangle bounds) {
+        if (playerPos == null || bounds == null) {
+            return -1;
+        }
+        if (!isCurrent(playerPos)) {
+            rebuild(playerPos);
+        }
+        if (cols == 0) {
+            return -1;
+        }
+        int left = bounds.x;
+        int top = bounds.y;
+        int right = bounds.x + bounds.width;
+        int bottom = bounds.y + bounds.height;
+        int c0 = Math.max(0, Math.floorDiv(left - originX, cellSize));
+        int c1 = Math.min(cols - 1, Math.floorDiv(right - originX, cellSize));
+        int r0 = Math.max(0, Math.floorDiv(top - originY, cellSize));
+        int r1 = Math.min(rows - 1, Math.floorDiv(bottom - originY, cellSize));
+
+        double best = Double.MAX_VALUE;
+        for (int row = r0; row <= r1; row++) {
+            for (int col = c0; col <= c1; col++) {
+                int cell = row * cols + col;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int tile = cellTiles[i];
+                    // A tile spanning several cells may be tested more than once; harmless for a minimum
+                    if (distance[tile] < best
+                        && left < maxX[tile] && right > minX[tile]
+                        && top < maxY[tile] && bottom > minY[tile]) {
+                        best = distance[tile];
+                    }
+                }
+            }
+        }
+        return best == Double.MAX_VALUE ? -1 : best;
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    private boolean isCurrent(WorldPosition playerPos) {
+        if (!valid || playerPos.getX() != playerX || playerPos.getY() != playerY || playerPos.getPlane() != playerPlane) {
+            return false;
+        }
+        Polygon cube = script.getSceneProjector().getTileCube(probePosition, tileHeight);
+        Rectangle rect = cube != null ? cube.getBounds() : null;
+        if (rect == null) {
+            return probeBounds[0] == Integer.MIN_VALUE;
+        }
+        return probeBounds[0] == rect.x && probeBounds[1] == rect.y
+            && probeBounds[2] == rect.width && probeBounds[3] == rect.height;
+    }
+
+    private void rebuild(WorldPosition playerPos) {
+        playerX = playerPos.getX();
+        playerY = playerPos.getY();
+        playerPlane = playerPos.getPlane();
+        Arrays.fill(probeBounds, Integer.MIN_VALUE);
+
+        int gridMinX = Integer.MAX_VALUE;
+        int gridMinY = Integer.MAX_VALUE;
+        int gridMaxX = Integer.MIN_VALUE;
+        int gridMaxY = Integer.MIN_VALUE;
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dy = -radius; dy <= radius; dy++) {
+                int tile = (dx + radius) * side + (dy + radius);
+                WorldPosition tilePos = new WorldPosition(playerX + dx, playerY + dy, playerPlane);
+                Polygon cube = script.getSceneProjector().getTileCube(tilePos, tileHeight);
+                Rectangle rect = cube != null ? cube.getBounds() : null;
+                boolean probe = dx == probeDx && dy == probeDy;
+                if (probe) {
+                    probePosition = tilePos;
+                }
+                if (rect == null) {
+                    projected[tile] = false;
+                    continue;
+                }
+                if (probe) {
+                    probeBounds[0] = rect.x;
+                    probeBounds[1] = rect.y;
+                    probeBounds[2] = rect.width;
+                    probeBounds[3] = rect.height;
+                }
+                projected[tile] = true;
+                minX[tile] = rect.x;
+                minY[tile] = rect.y;
+                maxX[tile] = rect.x + rect.width;
+                maxY[tile] = rect.y + rect.height;
+                distance[tile] = playerPos.distanceTo(tilePos);
+                gridMinX = Math.min(gridMinX, minX[tile]);
+                gridMinY = Math.min(gridMinY, minY[tile]);
+                gridMaxX = Math.max(gridMaxX, maxX[tile]);
+                gridMaxY = Math.max(gridMaxY, maxY[tile]);
+            }
+        }
+        valid = true;
+        if (gridMinX == Integer.MAX_VALUE) {
+            cols = 0;
+            rows = 0;
+            return;
+        }
+        index(gridMinX, gridMinY, gridMaxX, gridMaxY);
+    }
+
+    // Counting sort of tiles into cells (compressed rows), so each cell's tiles are one contiguous slice
+    private void index(int gridMinX, int gridMinY, int gridMaxX, int gridMaxY) {
+        originX = gridMinX;
+        originY = gridMinY;
+        long width = (long) gridMaxX - gridMinX;
+        long height = (long) gridMaxY - gridMinY;
+        cellSize = CELL_SIZE;
+        while ((width / cellSize + 1) * (height / cellSize + 1) > MAX_CELLS) {
+            cellSize *= 2;
+        }
+        cols = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+        int cells = cols * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+
+        int entries = 0;
+        for (int tile = 0; tile < projected.length; tile++) {
+            if (!projected[tile]) {
+                continue;
+            }
+            int c0 = (minX[tile] - originX) / cellSize;
+            int c1 = (maxX[tile] - originX) / cellSize;
+            int r0 = (minY[tile] - originY) / cellSize;
+            int r1 = (maxY[tile] - originY) / cellSize;
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    cellStart[row * cols + col + 1]++;
+                    entries++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellTiles.length < entries) {
+            cellTiles = new int[entries];
+        }
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int tile = 0; tile < projected.length; tile++) {
+            if (!projected[tile]) {
+                continue;
+            }
+            int c0 = (minX[tile] - originX) / cellSize;
+            int c1 = (maxX[tile] - originX) / cellSize;
+            int r0 = (minY[tile] - originY) / cellSize;
+            int r1 = (maxY[tile] - originY) / cellSize;
+            for (int row = r0; row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    cellTiles[fill[row * cols + col]++] = tile;
+                }
+            }
+        }
+    }
+}
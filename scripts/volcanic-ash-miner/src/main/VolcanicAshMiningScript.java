@@ -11,14 +11,19 @@ import javafx.scene.Scene;
 import tasks.BankingTask;
 import tasks.MiningTask;
 import tasks.SetupTask;
+import utils.FrameSnapshot;
+import utils.Metrics;
 import utils.Task;
+import utils.TaskTimings;
 import utils.Webhook;
+import utils.WebhookOutbox;
 import utils.Webhook.WebhookData;
 import data.VolcanicAshData;
 
 import java.awt.Color;
 import java.awt.Font;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -35,12 +40,14 @@ public class VolcanicAshMiningScript extends Script {
     private static final String VERSION = "1.1";
 
     private List<Task> tasks;
+    private final TaskTimings taskTimings = new TaskTimings();
     private MiningTask miningTask;
     private long startTimeMs = 0;
     private double startMiningXp = 0;
     private int startMiningLevel = 0;
     private GUI gui;
     private Webhook webhook;
+    private final Metrics metrics = new Metrics("volcanic-ash-miner", this::log);
     private boolean zoomConfigured = false;
     private long lastZoomAttemptMs = 0;
     private static final long ZOOM_RETRY_MS = 4_000;
@@ -52,7 +59,7 @@ public class VolcanicAshMiningScript extends Script {
 
     public VolcanicAshMiningScript(Object scriptCore) {
         super(scriptCore);
-        webhook = new Webhook(this::buildWebhookData, this::log);
+        webhook = new Webhook(this::buildWebhookData, this::log, WebhookOutbox.defaultDirectory("volcanic-ash-miner"));
     }
 
     @Override
@@ -71,6 +78,7 @@ public class VolcanicAshMiningScript extends Script {
         tasks.add(new BankingTask(this));
         miningTask = new MiningTask(this);
         tasks.add(miningTask);
+        registerMetrics();
         log(getClass(), "Volcanic Ash Miner started.");
     }
 
@@ -88,19 +96,30 @@ public class VolcanicAshMiningScript extends Script {
         webhook.ensureStarted(() -> webhook.enqueueEvent("Stopped"));
         webhook.queuePeriodicWebhookIfDue();
         webhook.dispatchPendingWebhooks();
-        if (getWidgetManager().getGameState() != com.osmb.api.ui.GameState.LOGGED_IN) {
+        metrics.sampleIfDue();
+        FrameSnapshot frame = new FrameSnapshot(this, Collections.emptySet());
+        if (!frame.isLoggedIn()) {
             return 600;
         }
 
         for (Task task : tasks) {
-            if (task.activate()) {
-                task.execute();
+            if (taskTimings.activate(task, frame)) {
+                taskTimings.execute(task, frame);
                 return 0;
             }
         }
         return 0;
     }
 
+    private void registerMetrics() {
+        metrics
+            .counter("osmb_items_mined_total", "Volcanic ash mined this session", () -> miningTask != null ? miningTask.ashMined : 0)
+            .counter("osmb_xp_gained_total", "Mining XP gained this session", () -> statsInitialized ? Math.max(0, getMiningXp() - startMiningXp) : 0)
+            .gauge("osmb_runtime_seconds", "Seconds since the script started", () -> startTimeMs > 0 ? (System.currentTimeMillis() - startTimeMs) / 1000 : 0)
+            .state("osmb_state", "Current script state", () -> state.name())
+            .start();
+    }
+
     public boolean isSetupComplete() {
         return setupComplete;
     }
@@ -189,10 +208,11 @@ public class VolcanicAshMiningScript extends Script {
         try {
             int x = 6;
             int y = 32;
-            int width = 180;
+            int timingLines = taskTimings.size();
+            int width = timingLines > 0 ? 240 : 180;
             int padding = 8;
             int lineHeight = 16;
-            int height = padding * 2 + lineHeight * 4;
+            int height = padding * 2 + lineHeight * (4 + timingLines);
 
             c.fillRect(x, y, width, height, new Color(10, 10, 10, 190).getRGB(), 1);
             c.drawRect(x, y, width, height, Color.WHITE.getRGB());
@@ -203,6 +223,10 @@ public class VolcanicAshMiningScript extends Script {
             c.drawText("Ash mined: " + (miningTask != null ? miningTask.ashMined : 0), x + padding, textY, Color.WHITE.getRGB(), new Font("Arial", Font.BOLD, 12));
             textY += lineHeight;
             c.drawText("Runtime: " + formatRuntime(System.currentTimeMillis() - startTimeMs), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 12));
+            for (int i = 0; i < timingLines; i++) {
+                textY += lineHeight;
+                c.drawText(taskTimings.overlayLine(i), x + padding, textY, Color.LIGHT_GRAY.getRGB(), new Font("Arial", Font.PLAIN, 11));
+            }
         } catch (Exception e) {
             log("PAINT", "Skipping paint: " + e.getMessage());
         }
@@ -231,9 +255,12 @@ public class VolcanicAshMiningScript extends Script {
 
     @Override
     public void stop() {
+        taskTimings.dump(this);
+        metrics.close();
         try {
             webhook.enqueueEvent("Stopped");
             webhook.dispatchPendingWebhooks();
+            webhook.shutdown();
         } catch (Exception ignored) {
         }
         super.stop();
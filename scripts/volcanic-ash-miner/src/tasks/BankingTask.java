@@ -1,11 +1,11 @@
 package tasks;
 
-import com.osmb.api.item.ItemGroupResult;
 import com.osmb.api.scene.RSObject;
 import com.osmb.api.script.Script;
 import data.State;
 import data.VolcanicAshData;
 import main.VolcanicAshMiningScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Collections;
@@ -22,13 +22,12 @@ public class BankingTask extends Task {
     }
 
     @Override
-    public boolean activate() {
-        ItemGroupResult inventory = script.getWidgetManager().getInventory().search(Collections.emptySet());
-        return inventory != null && inventory.isFull();
+    public boolean activate(FrameSnapshot frame) {
+        return frame.isInventoryFull();
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         volcanicAsh.setState(State.BANKING);
         // If bank is already open, deposit and close
         var bank = script.getWidgetManager().getBank();
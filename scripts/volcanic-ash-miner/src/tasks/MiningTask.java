@@ -12,6 +12,7 @@ import com.osmb.api.input.MenuEntry;
 import data.State;
 import data.VolcanicAshData;
 import main.VolcanicAshMiningScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 import java.util.Collections;
@@ -37,16 +38,16 @@ public class MiningTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         // Always active when inventory is not full
-        ItemGroupResult inventory = script.getWidgetManager().getInventory().search(Collections.emptySet());
+        ItemGroupResult inventory = frame.getInventory();
         return inventory != null && !inventory.isFull();
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         volcanicAsh.setState(State.MINING);
-        WorldPosition myPos = script.getWorldPosition();
+        WorldPosition myPos = frame.getWorldPosition();
         if (myPos == null) {
             script.sleep(600);
             return true;
@@ -4,6 +4,7 @@ import com.osmb.api.script.Script;
 import com.osmb.api.ui.tabs.Tab;
 import data.State;
 import main.VolcanicAshMiningScript;
+import utils.FrameSnapshot;
 import utils.Task;
 
 public class SetupTask extends Task {
@@ -15,12 +16,12 @@ public class SetupTask extends Task {
     }
 
     @Override
-    public boolean activate() {
+    public boolean activate(FrameSnapshot frame) {
         return !script.isSetupComplete();
     }
 
     @Override
-    public boolean execute() {
+    public boolean execute(FrameSnapshot frame) {
         if (!ensureInventoryTabOpen()) {
             return false;
         }
@@ -0,0 +1,90 @@
+package utils;
+
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.script.Script;
+import com.osmb.api.ui.GameState;
+
+import java.util.Set;
+
+/**
+ * Perception for a single poll. Each value is read from the client the first time a task asks for it and then
+ * reused by every other task's activate()/execute() in the same poll. It reflects the screen at the start of the
+ * poll, so anything read after a task has acted (inside pollFramesUntil and friends) should still query the client.
+ */
+public class FrameSnapshot {
+    private final Script script;
+    private final Set<Integer> inventoryItemIds;
+
+    private ItemGroupResult inventory;
+    private boolean inventoryRead = false;
+    private WorldPosition worldPosition;
+    private boolean worldPositionRead = false;
+    private Integer hitpointsPercentage;
+    private boolean hitpointsRead = false;
+    private GameState gameState;
+    private boolean gameStateRead = false;
+    private Boolean playerAnimating;
+
+    public FrameSnapshot(Script script, Set<Integer> inventoryItemIds) {
+        this.script = script;
+        this.inventoryItemIds = inventoryItemIds == null ? Set.of() : inventoryItemIds;
+    }
+
+    /**
+     * Inventory searched for the script's tracked item ids; slot counts (isFull, getFreeSlots) cover every item.
+     */
+    public ItemGroupResult getInventory() {
+        if (!inventoryRead) {
+            inventoryRead = true;
+            var widgets = script.getWidgetManager();
+            var inventoryComponent = widgets != null ? widgets.getInventory() : null;
+            inventory = inventoryComponent != null ? inventoryComponent.search(inventoryItemIds) : null;
+        }
+        return inventory;
+    }
+
+    public boolean isInventoryFull() {
+        ItemGroupResult inv = getInventory();
+        return inv != null && inv.isFull();
+    }
+
+    public WorldPosition getWorldPosition() {
+        if (!worldPositionRead) {
+            worldPositionRead = true;
+            worldPosition = script.getWorldPosition();
+        }
+        return worldPosition;
+    }
+
+    public Integer getHitpointsPercentage() {
+        if (!hitpointsRead) {
+            hitpointsRead = true;
+            var widgets = script.getWidgetManager();
+            var orbs = widgets != null ? widgets.getMinimapOrbs() : null;
+            Integer hp = orbs != null ? orbs.getHitpointsPercentage() : null;
+            hitpointsPercentage = hp == null || hp < 0 ? null : hp;
+        }
+        return hitpointsPercentage;
+    }
+
+    public GameState getGameState() {
+        if (!gameStateRead) {
+            gameStateRead = true;
+            var widgets = script.getWidgetManager();
+            gameState = widgets != null ? widgets.getGameState() : null;
+        }
+        return gameState;
+    }
+
+    public boolean isLoggedIn() {
+        return getGameState() == GameState.LOGGED_IN;
+    }
+
+    public boolean isPlayerAnimating() {
+        if (playerAnimating == null) {
+            playerAnimating = script.getPixelAnalyzer().isPlayerAnimating(0.4);
+        }
+        return playerAnimating;
+    }
+}
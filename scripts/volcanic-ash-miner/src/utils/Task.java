@@ -9,6 +9,9 @@ public abstract class Task {
         this.script = script;
     }
 
-    public abstract boolean activate();
-    public abstract boolean execute();
+    /**
+     * Both calls in a poll receive the same {@link FrameSnapshot}; read perception from it instead of the client.
+     */
+    public abstract boolean activate(FrameSnapshot frame);
+    public abstract boolean execute(FrameSnapshot frame);
 }
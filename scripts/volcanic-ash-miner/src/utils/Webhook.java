@@ -1,16 +1,31 @@
 package utils;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Webhook {
+  private static final int MAX_EMBEDS_PER_MESSAGE = 10;
+  private static final int MAX_OUTBOX = 50;
+  private static final int MAX_SEND_ATTEMPTS = 5;
+  private static final long INITIAL_BACKOFF_MS = 2_000;
+  private static final long MAX_BACKOFF_MS = 60_000;
+  private static final long MAX_RETRY_AFTER_MS = 10 * 60_000;
+  private static final Pattern RETRY_AFTER_BODY = Pattern.compile("\"retry_after\"\\s*:\\s*([0-9.]+)");
+
   public interface DataProvider {
     WebhookData snapshot();
   }
@@ -27,10 +42,30 @@ public class Webhook {
   private volatile boolean startSent = false;
   private volatile boolean shutdownHookRegistered = false;
   private volatile long lastSentMs = 0;
+  private WebhookDispatcher dispatcher;
+
+  // Embeds waiting to be posted; flushed up to MAX_EMBEDS_PER_MESSAGE at a time by the dispatcher thread
+  private final ConcurrentLinkedQueue<WebhookOutbox.Pending> outbox = new ConcurrentLinkedQueue<>();
+  private final AtomicLong nextSeq = new AtomicLong(1);
+  private final Path outboxDirectory;
+  private volatile WebhookOutbox store;
+  private volatile boolean closed = false;
+  private boolean storeFailureLogged = false;
+  private final String flushKey = "webhook-flush@" + System.identityHashCode(this);
+  private volatile long notBeforeMs = 0;
+  private int failedAttempts = 0;
 
   public Webhook(DataProvider dataProvider, Consumer<String> logger) {
+    this(dataProvider, logger, null);
+  }
+
+  /**
+   * @param outboxDirectory where undelivered events are kept across restarts; null keeps them in memory only
+   */
+  public Webhook(DataProvider dataProvider, Consumer<String> logger, Path outboxDirectory) {
     this.dataProvider = Objects.requireNonNull(dataProvider);
     this.logger = logger != null ? logger : s -> {};
+    this.outboxDirectory = outboxDirectory;
   }
 
   public boolean isSubmitted() {
@@ -54,6 +89,9 @@ public class Webhook {
     this.config = config;
     submitted = true;
     lastSentMs = System.currentTimeMillis();
+    if (config.enabled()) {
+      openStore();
+    }
   }
 
   public void ensureStarted(Runnable stopHook) {
@@ -62,12 +100,41 @@ public class Webhook {
       startSent = true;
       lastSentMs = System.currentTimeMillis();
       if (!shutdownHookRegistered && stopHook != null) {
-        Runtime.getRuntime().addShutdownHook(new Thread(stopHook));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+          if (closed) {
+            return;
+          }
+          // No time to send at JVM exit; persist so the next start delivers it
+          stopHook.run();
+          drainEventsToOutbox();
+          syncStore();
+        }));
         shutdownHookRegistered = true;
       }
     }
   }
 
+  // File I/O happens here, from the settings callback, rather than on the poll thread
+  private synchronized void openStore() {
+    if (store != null || outboxDirectory == null) {
+      return;
+    }
+    WebhookOutbox opened = WebhookOutbox.open(outboxDirectory);
+    if (opened == null) {
+      log("WEBHOOK", "Webhook outbox unavailable in " + outboxDirectory + "; events are kept in memory only");
+      return;
+    }
+    List<WebhookOutbox.Pending> replay = opened.takeReplay();
+    for (WebhookOutbox.Pending entry : replay) {
+      outbox.add(entry);
+      nextSeq.accumulateAndGet(entry.seq() + 1, Math::max);
+    }
+    store = opened;
+    if (!replay.isEmpty()) {
+      log("WEBHOOK", "Replaying " + replay.size() + " undelivered webhook update(s) from " + opened.file());
+    }
+  }
+
   public void enqueueEvent(String label) {
     pendingEvents.add(label == null ? "" : label);
   }
@@ -82,67 +149,257 @@ public class Webhook {
     }
     long now = System.currentTimeMillis();
     if (now - lastSentMs >= intervalMs) {
+      // Advance on queueing, not on success, so a failing send does not re-queue every poll
+      lastSentMs = now;
       pendingEvents.add("Periodic");
     }
   }
 
   public void dispatchPendingWebhooks() {
+    if (pendingEvents.isEmpty()) {
+      return;
+    }
+    if (drainEventsToOutbox()) {
+      scheduleFlush(0);
+    }
+  }
+
+  /**
+   * Turns queued events into outbox embeds; the disk write is left to the dispatcher's next flush.
+   * Returns true when there is something to send.
+   */
+  private synchronized boolean drainEventsToOutbox() {
+    if (config == null || !config.enabled() || config.webhookUrl() == null || config.webhookUrl().isBlank()) {
+      pendingEvents.clear();
+      return false;
+    }
+    if (pendingEvents.isEmpty()) {
+      return !outbox.isEmpty();
+    }
+    WebhookData data = dataProvider.snapshot();
+    if (data == null) {
+      return !outbox.isEmpty();
+    }
+    WebhookOutbox activeStore = store;
+    boolean periodicAdded = false;
     while (true) {
       String event = pendingEvents.poll();
       if (event == null) {
-        return;
+        break;
+      }
+      if ("Periodic".equals(event)) {
+        // Several periodic ticks in one drain say the same thing
+        if (periodicAdded) {
+          continue;
+        }
+        periodicAdded = true;
       }
       String label = event.isEmpty() ? null : event;
-      WebhookData data = dataProvider.snapshot();
-      if (data == null) {
-        return;
+      WebhookOutbox.Pending entry = new WebhookOutbox.Pending(nextSeq.getAndIncrement(), buildEmbed(data, label));
+      if (activeStore != null) {
+        activeStore.append(entry.seq(), entry.embed());
+      }
+      outbox.add(entry);
+    }
+    while (outbox.size() > MAX_OUTBOX) {
+      WebhookOutbox.Pending dropped = outbox.poll();
+      if (dropped != null && activeStore != null) {
+        activeStore.ack(dropped.seq());
       }
-      sendWebhookUpdateAsync(data, label);
+      log("WEBHOOK", "Webhook backlog full; dropped oldest update");
     }
+    return true;
   }
 
-  private void sendWebhookUpdateAsync(WebhookData data, String eventLabel) {
-    if (data == null) {
+  private void scheduleFlush(long delayMs) {
+    if (dispatcher == null) {
+      dispatcher = WebhookDispatcher.acquire();
+    }
+    WebhookDispatcher active = dispatcher;
+    HttpClient client = active.client();
+    // A flush already waiting in the shared queue picks up everything in the outbox, so one is enough
+    active.schedule(flushKey, delayMs, () -> flush(active, client));
+  }
+
+  /**
+   * Releases the shared dispatcher; the last user waits briefly for queued sends (e.g. "Stopped") to finish.
+   */
+  public void shutdown() {
+    WebhookDispatcher active = dispatcher;
+    dispatcher = null;
+    WebhookDispatcher.release(active);
+    // Anything still queued (another session kept the dispatcher busy) stays on disk for the next start
+    closed = true;
+    syncStore();
+    WebhookOutbox activeStore = store;
+    store = null;
+    if (activeStore != null) {
+      activeStore.close();
+    }
+  }
+
+  private void syncStore() {
+    WebhookOutbox activeStore = store;
+    if (activeStore == null) {
       return;
     }
-    new Thread(() -> sendWebhookUpdate(data, eventLabel), "volcanic-ash-webhook-sender").start();
+    try {
+      activeStore.sync(outbox.isEmpty());
+    } catch (IOException e) {
+      if (!storeFailureLogged) {
+        storeFailureLogged = true;
+        log("WEBHOOK", "Webhook outbox write failed: " + e.getMessage());
+      }
+    }
   }
 
-  private void sendWebhookUpdate(WebhookData data, String eventLabel) {
+  // Runs on the dispatcher thread only, so the outbox has a single consumer
+  private void flush(WebhookDispatcher active, HttpClient client) {
+    if (outbox.isEmpty() || closed) {
+      return;
+    }
+    // Group commit: everything queued since the last flush reaches disk before it is sent
+    syncStore();
+    long waitMs = notBeforeMs - System.currentTimeMillis();
+    if (waitMs > 0) {
+      active.schedule(flushKey, waitMs, () -> flush(active, client));
+      return;
+    }
     if (config == null || !config.enabled() || config.webhookUrl() == null || config.webhookUrl().isBlank()) {
       log("WEBHOOK", "Skip send: disabled or missing URL");
+      completeBatch(outbox.size());
       return;
     }
 
+    List<String> batch = new ArrayList<>(MAX_EMBEDS_PER_MESSAGE);
+    for (WebhookOutbox.Pending entry : outbox) {
+      if (batch.size() == MAX_EMBEDS_PER_MESSAGE) {
+        break;
+      }
+      batch.add(entry.embed());
+    }
+
+    long retryDelayMs = sendBatch(client, batch);
+    if (retryDelayMs < 0) {
+      // Sent, or rejected for good: either way this batch is done
+      completeBatch(batch.size());
+      failedAttempts = 0;
+      retryDelayMs = Math.max(0, notBeforeMs - System.currentTimeMillis());
+    } else {
+      // Also holds back flushes triggered by new events until the retry is due
+      notBeforeMs = Math.max(notBeforeMs, System.currentTimeMillis() + retryDelayMs);
+    }
+    if (!outbox.isEmpty()) {
+      active.schedule(flushKey, retryDelayMs, () -> flush(active, client));
+    }
+  }
+
+  private void completeBatch(int count) {
+    WebhookOutbox activeStore = store;
+    for (int i = 0; i < count; i++) {
+      WebhookOutbox.Pending done = outbox.poll();
+      if (done != null && activeStore != null) {
+        activeStore.ack(done.seq());
+      }
+    }
+    syncStore();
+  }
+
+  /**
+   * Posts one multi-embed message. Returns -1 when the batch is finished with, or the delay before retrying it.
+   */
+  private long sendBatch(HttpClient client, List<String> batch) {
     String normalizedUrl = normalizeWebhookUrl(config.webhookUrl());
     try {
-      String payloadJson = buildWebhookPayload(data, eventLabel);
-      HttpURLConnection conn = (HttpURLConnection) new URL(normalizedUrl).openConnection();
-      conn.setRequestMethod("POST");
-      conn.setDoOutput(true);
-      conn.setRequestProperty("Content-Type", "application/json");
-      conn.setConnectTimeout((int) Duration.ofSeconds(10).toMillis());
-      conn.setReadTimeout((int) Duration.ofSeconds(10).toMillis());
-      byte[] payload = payloadJson.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-      conn.setFixedLengthStreamingMode(payload.length);
-      conn.getOutputStream().write(payload);
-
-      int code = conn.getResponseCode();
-      if (code == 200 || code == 204) {
-        log("WEBHOOK", "Sent webhook (" + config.intervalMinutes() + "m interval)");
+      String payloadJson = "{\"embeds\":[" + String.join(",", batch) + "]}";
+      HttpRequest request = HttpRequest.newBuilder(URI.create(normalizedUrl))
+        .timeout(Duration.ofSeconds(10))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(payloadJson))
+        .build();
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+      int code = response.statusCode();
+      applyRateLimitHeaders(response);
+      if (code >= 200 && code < 300) {
+        log("WEBHOOK", "Sent webhook (" + batch.size() + " update" + (batch.size() == 1 ? "" : "s") + ", "
+          + config.intervalMinutes() + "m interval)");
         lastSentMs = System.currentTimeMillis();
-      } else {
-        String body = readResponseBody(conn);
-        log("WEBHOOK", "Webhook failed HTTP " + code + (body != null ? (" body=" + body) : ""));
+        return -1;
+      }
+      if (code == 429) {
+        long waitMs = retryAfterMs(response);
+        notBeforeMs = System.currentTimeMillis() + waitMs;
+        log("WEBHOOK", "Rate limited; retrying in " + waitMs + "ms");
+        return waitMs;
+      }
+      String body = response.body();
+      String detail = "HTTP " + code + (body != null && !body.isEmpty() ? (" body=" + body) : "");
+      if (code >= 500) {
+        return backoff(detail);
       }
+      log("WEBHOOK", "Webhook failed " + detail);
+      return -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log("WEBHOOK", "Webhook send interrupted");
+      return -1;
+    } catch (IOException e) {
+      return backoff(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
     } catch (Exception e) {
       log("WEBHOOK", "Error sending webhook: " + e.getMessage());
+      return -1;
+    }
+  }
+
+  private long backoff(String reason) {
+    failedAttempts++;
+    if (failedAttempts > MAX_SEND_ATTEMPTS) {
+      log("WEBHOOK", "Giving up after " + MAX_SEND_ATTEMPTS + " attempts: " + reason);
+      return -1;
+    }
+    long baseMs = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << (failedAttempts - 1));
+    // Full jitter so sessions that failed together do not retry together
+    long delayMs = baseMs / 2 + ThreadLocalRandom.current().nextLong(baseMs / 2 + 1);
+    log("WEBHOOK", "Webhook failed (" + reason + "); retry " + failedAttempts + " in " + delayMs + "ms");
+    return delayMs;
+  }
+
+  // Discord reports its per-webhook bucket; wait out an exhausted bucket instead of earning a 429
+  private void applyRateLimitHeaders(HttpResponse<?> response) {
+    String remaining = response.headers().firstValue("X-RateLimit-Remaining").orElse(null);
+    String resetAfter = response.headers().firstValue("X-RateLimit-Reset-After").orElse(null);
+    if ("0".equals(remaining) && resetAfter != null) {
+      long waitMs = parseSecondsMs(resetAfter, 0);
+      notBeforeMs = Math.max(notBeforeMs, System.currentTimeMillis() + waitMs);
+    }
+  }
+
+  private long retryAfterMs(HttpResponse<String> response) {
+    String header = response.headers().firstValue("Retry-After").orElse(null);
+    long waitMs = parseSecondsMs(header, -1);
+    if (waitMs < 0) {
+      // Discord also puts the wait in the JSON body as seconds
+      Matcher matcher = RETRY_AFTER_BODY.matcher(response.body() == null ? "" : response.body());
+      waitMs = matcher.find() ? parseSecondsMs(matcher.group(1), -1) : -1;
+    }
+    return waitMs < 0 ? INITIAL_BACKOFF_MS : Math.min(waitMs, MAX_RETRY_AFTER_MS);
+  }
+
+  private static long parseSecondsMs(String seconds, long fallback) {
+    if (seconds == null || seconds.isBlank()) {
+      return fallback;
+    }
+    try {
+      return (long) Math.ceil(Double.parseDouble(seconds.trim()) * 1000);
+    } catch (NumberFormatException e) {
+      return fallback;
     }
   }
 
-  private String buildWebhookPayload(WebhookData data, String eventLabel) {
+  private String buildEmbed(WebhookData data, String eventLabel) {
     StringBuilder sb = new StringBuilder();
-    sb.append("{\"embeds\":[{\"title\":\"Volcanic Ash Miner");
+    sb.append("{\"title\":\"Volcanic Ash Miner");
     if (eventLabel != null && !eventLabel.isBlank()) {
       sb.append(" (").append(eventLabel).append(")");
     }
@@ -151,7 +408,7 @@ public class Webhook {
     sb.append("{\"name\":\"Mining XP gained\",\"value\":\"").append(data.xpGained()).append("\",\"inline\":true},");
     sb.append("{\"name\":\"Levels gained\",\"value\":\"").append(data.levelsGained()).append("\",\"inline\":true},");
     sb.append("{\"name\":\"Runtime\",\"value\":\"").append(data.runtimeText()).append("\",\"inline\":true}");
-    sb.append("]}]}");
+    sb.append("]}");
     return sb.toString();
   }
 
@@ -165,26 +422,6 @@ public class Webhook {
     return url;
   }
 
-  private String readResponseBody(HttpURLConnection conn) {
-    InputStream stream = null;
-    try {
-      stream = conn.getErrorStream();
-      if (stream == null) {
-        stream = conn.getInputStream();
-      }
-      if (stream == null) {
-        return null;
-      }
-      try (BufferedInputStream bis = new BufferedInputStream(stream);
-           ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-        bis.transferTo(baos);
-        return baos.toString(java.nio.charset.StandardCharsets.UTF_8);
-      }
-    } catch (Exception e) {
-      return null;
-    }
-  }
-
   private void log(String tag, String message) {
     logger.accept(tag + ": " + message);
   }
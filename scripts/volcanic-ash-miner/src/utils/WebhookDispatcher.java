@@ -0,0 +1,158 @@
+package utils;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide webhook sender: one bounded queue drained by one daemon thread, with a single keep-alive
+ * {@link HttpClient}. Every {@link Webhook} in this class loader shares it; the worker starts with the first
+ * {@link #acquire()} and is shut down, after draining, by the last {@link #release}. Jobs may be delayed, which
+ * is how retries and rate-limit waits are scheduled without holding the worker.
+ */
+public final class WebhookDispatcher {
+  private static final int QUEUE_CAPACITY = 64;
+  private static final long DRAIN_TIMEOUT_MS = 5_000;
+
+  private static WebhookDispatcher shared;
+  private static int users;
+
+  private final DelayQueue<Job> queue = new DelayQueue<>();
+  // Keys of jobs still waiting in the queue, so repeated submissions collapse into the waiting job
+  private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+  private final HttpClient client = HttpClient.newBuilder()
+    .connectTimeout(Duration.ofSeconds(10))
+    .build();
+  private final Thread worker;
+  private volatile boolean accepting = true;
+
+  private static final class Job implements Delayed {
+    final String key;
+    final Runnable task;
+    final long readyAtNanos;
+
+    Job(String key, Runnable task, long delayMs) {
+      this.key = key;
+      this.task = task;
+      this.readyAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(readyAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(readyAtNanos, ((Job) other).readyAtNanos);
+    }
+  }
+
+  private WebhookDispatcher() {
+    worker = new Thread(this::drain, "webhook-dispatcher");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  public static synchronized WebhookDispatcher acquire() {
+    if (shared == null) {
+      shared = new WebhookDispatcher();
+    }
+    users++;
+    return shared;
+  }
+
+  public static void release(WebhookDispatcher dispatcher) {
+    synchronized (WebhookDispatcher.class) {
+      if (dispatcher == null || dispatcher != shared || users <= 0) {
+        return;
+      }
+      users--;
+      if (users > 0) {
+        return;
+      }
+      shared = null;
+    }
+    dispatcher.shutdown();
+  }
+
+  public HttpClient client() {
+    return client;
+  }
+
+  public boolean submit(String coalesceKey, Runnable task) {
+    return schedule(coalesceKey, 0, task);
+  }
+
+  /**
+   * Queues a send to run after {@code delayMs}. Returns false when the queue is full or shutting down, or when a
+   * job with the same non-null key is already waiting (the waiting job covers this one).
+   */
+  public synchronized boolean schedule(String coalesceKey, long delayMs, Runnable task) {
+    if (!accepting || task == null || queue.size() >= QUEUE_CAPACITY) {
+      return false;
+    }
+    if (coalesceKey != null && !pendingKeys.add(coalesceKey)) {
+      return false;
+    }
+    queue.add(new Job(coalesceKey, task, delayMs));
+    return true;
+  }
+
+  private void drain() {
+    while (true) {
+      Job job;
+      try {
+        if (accepting) {
+          job = queue.take();
+        } else {
+          if (queue.isEmpty()) {
+            return;
+          }
+          // Still draining: wait for delayed jobs until shutdown() gives up and interrupts
+          job = queue.poll(100, TimeUnit.MILLISECONDS);
+          if (job == null) {
+            continue;
+          }
+        }
+      } catch (InterruptedException e) {
+        if (!accepting) {
+          // Shutdown timed out; anything still queued is dropped
+          return;
+        }
+        continue;
+      }
+      if (job.key != null) {
+        pendingKeys.remove(job.key);
+      }
+      try {
+        job.task.run();
+      } catch (RuntimeException ignored) {
+        // A failed send must not stop later sends; Webhook logs its own failures
+      }
+      if (!accepting && Thread.interrupted()) {
+        return;
+      }
+    }
+  }
+
+  private void shutdown() {
+    synchronized (this) {
+      accepting = false;
+      // Wake a worker blocked in take() so it switches to draining what is left
+      queue.add(new Job(null, () -> {}, 0));
+    }
+    try {
+      worker.join(DRAIN_TIMEOUT_MS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (worker.isAlive()) {
+      worker.interrupt();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package checks;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.item.ItemSearchResult;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.visual.SearchablePixel;
+import testkit.FakeWorld;
+import testkit.SessionRecorder;
+import testkit.SessionReplay;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records a scripted {@link FakeWorld} session, replays the log and fails unless the replay hands back exactly what
+ * was recorded: the same values, the same frame-wait evaluations, nothing left over and nothing missing. A second
+ * thread reads the core while recording, standing in for the client's paint thread; its calls must stay out of the
+ * replay. Run with {@code gradlew :testkit:sessionChecks}.
+ */
+public final class SessionLogChecks {
+    private static final int ORE = 440;
+    private static final int COINS = 995;
+    private static final Set<Integer> TRACKED = Set.of(ORE, COINS);
+    private static final int PAINT_READS = 25;
+
+    private SessionLogChecks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        replaysWhatWasRecorded();
+        System.out.println("SessionLogChecks passed");
+    }
+
+    static void replaysWhatWasRecorded() throws Exception {
+        FakeWorld world = new FakeWorld(7)
+            .setPlayer(new WorldPosition(3100, 9500, 0))
+            .addHighlight(new Rectangle(300, 150, 20, 30))
+            .addGroundItem(new WorldPosition(3101, 9502, 0))
+            .chat("You manage to mine some iron.")
+            .chat("Welcome to Old School RuneScape.");
+        world.inventory().add(COINS, 1_250).add(ORE, 1).add(ORE, 1);
+
+        Path file = Files.createTempFile("session", ".osmr");
+        try {
+            List<String> recorded = new ArrayList<>();
+            SessionRecorder recorder = SessionRecorder.start(world.scriptCore(), file);
+            try {
+                recorded.addAll(observe(recorder.scriptCore()));
+                paintThread(recorder.scriptCore());
+                world.inventory().add(ORE, 1);
+                world.chat("You manage to mine some iron.");
+                world.setPlayer(new WorldPosition(3101, 9500, 0));
+                recorded.addAll(observe(recorder.scriptCore()));
+            } finally {
+                recorder.close();
+            }
+
+            SessionReplay replay = SessionReplay.load(file);
+            check(Thread.currentThread().getName().equals(replay.pollThread()),
+                "replaying thread " + replay.pollThread() + " instead of " + Thread.currentThread().getName());
+            check(replay.otherThreadCalls() == PAINT_READS * 2L,
+                replay.otherThreadCalls() + " paint-thread calls dropped, expected " + PAINT_READS * 2);
+
+            List<String> replayed = new ArrayList<>();
+            replayed.addAll(observe(replay.scriptCore()));
+            replayed.addAll(observe(replay.scriptCore()));
+            for (int i = 0; i < Math.max(recorded.size(), replayed.size()); i++) {
+                String expected = i < recorded.size() ? recorded.get(i) : null;
+                String actual = i < replayed.size() ? replayed.get(i) : null;
+                check(expected != null && expected.equals(actual), "value " + i + ": recorded " + expected + ", replayed " + actual);
+            }
+            check(replay.misses() == 0, replay.misses() + " calls missed");
+            check(replay.remaining() == 0, replay.remaining() + " calls left unreplayed");
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    // The reads a typical poll makes, flattened to strings so recorded and replayed values compare by content
+    private static List<String> observe(ScriptCore core) {
+        List<String> values = new ArrayList<>();
+        WorldPosition position = core.getWorldPosition();
+        values.add("position " + describe(position));
+        values.add("state " + core.getWidgetManager().getGameState());
+
+        ItemGroupResult inventory = core.getWidgetManager().getInventory().search(TRACKED);
+        values.add("inventory free " + inventory.getFreeSlots() + " full " + inventory.isFull());
+        for (ItemSearchResult item : inventory.getAllOfItems(TRACKED)) {
+            values.add("item " + item.getId() + "@" + item.getSlot() + " x" + item.getStackAmount() + " "
+                + describe(item.getTappableBounds().get()));
+        }
+
+        values.add("chat " + core.getWidgetManager().getChatbox().getText().asList());
+        List<String> ground = new ArrayList<>();
+        for (WorldPosition item : core.getWidgetManager().getMinimap().getItemPositions().asList()) {
+            ground.add(describe(item));
+        }
+        values.add("ground " + ground);
+        values.add("highlight " + describe(core.getPixelAnalyzer().getHighlightBounds(null, new SearchablePixel[0])));
+
+        Polygon cube = core.getSceneProjector().getTileCube(position, 120);
+        values.add("cube " + cube.numVertices() + " " + describe(cube.getBounds()));
+
+        int[] evaluations = {0};
+        boolean met = core.pollFramesUntil(() -> ++evaluations[0] >= 3, 1_000);
+        values.add("wait " + met + " after " + evaluations[0]);
+        values.add("random " + core.random(1, 1_000));
+        return values;
+    }
+
+    private static void paintThread(ScriptCore core) throws InterruptedException {
+        Thread paint = new Thread(() -> {
+            for (int i = 0; i < PAINT_READS; i++) {
+                core.getWorldPosition();
+                core.getWidgetManager();
+            }
+        }, "paint");
+        paint.start();
+        paint.join();
+    }
+
+    private static String describe(WorldPosition position) {
+        return position == null ? "null" : position.getX() + "," + position.getY() + "," + position.getPlane();
+    }
+
+    private static String describe(Rectangle bounds) {
+        return bounds == null ? "null" : bounds.x + "," + bounds.y + " " + bounds.width + "x" + bounds.height;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // A temp file; the OS cleans it up eventually
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package checks;
+
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.shape.Rectangle;
+import data.State;
+import main.SpiceGrabberScript;
+import tasks.DecantSpiceTask;
+import testkit.FakeInventory;
+import testkit.FakeWorld;
+import utils.FrameSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives the spice-grabber's {@link DecantSpiceTask} through a {@link FakeWorld} and fails on the first outcome that
+ * differs from what the task is meant to do: combining partial shakers, dropping empty ones and stopping when full.
+ * Run with {@code gradlew :testkit:spiceGrabberChecks}.
+ */
+public final class DecantChecks {
+    private static final int EMPTY_SHAKER = 7496;
+    private static final int RED_SPICE_4 = 7480;
+    private static final int RED_SPICE_3 = 7481;
+    private static final int RED_SPICE_1 = 7483;
+    private static final int ORANGE_SPICE_2 = 7486;
+    // Each colour has four ids, 4 doses first: red 7480-7483, orange 7484-7487, brown 7488-7491, yellow 7492-7495
+    private static final int FIRST_SPICE = 7480;
+    private static final int MAX_DOSE = 4;
+    private static final int MAX_EXECUTES = 10;
+
+    private DecantChecks() {
+    }
+
+    public static void main(String[] args) {
+        combinesPartialShakersThenDropsTheEmpties();
+        dropsEveryEmptyShakerInSnakeOrder();
+        stopsWhenFullOfDecantedSpice();
+        System.out.println("DecantChecks passed");
+    }
+
+    // 3 x red(1) + 2 x red(3) + orange(2): the emptiest red is poured into the fullest twice, orange is left alone
+    static void combinesPartialShakersThenDropsTheEmpties() {
+        FakeWorld world = world();
+        world.inventory()
+            .set(0, RED_SPICE_1, 1).set(1, RED_SPICE_1, 1).set(2, RED_SPICE_1, 1)
+            .set(3, RED_SPICE_3, 1).set(4, RED_SPICE_3, 1)
+            .set(5, ORANGE_SPICE_2, 1)
+            .onUse(DecantChecks::pour);
+        State state = new State();
+        state.decanting = true;
+        int executes = run(world, state);
+
+        List<String> performed = new ArrayList<>();
+        for (FakeWorld.Action action : world.actions()) {
+            performed.add(action.kind().equals("tap")
+                ? "drop " + FakeInventory.slotAt(bounds(action.target()))
+                : action.kind() + " " + action.target() + " " + action.option());
+        }
+        List<String> expected = List.of(
+            "item " + RED_SPICE_1 + "@0 Use", "item " + RED_SPICE_3 + "@4 ",
+            "item " + RED_SPICE_1 + "@1 Use", "item " + RED_SPICE_3 + "@3 ",
+            "drop 0", "drop 1");
+        check(performed.equals(expected), "performed " + performed + ", expected " + expected);
+
+        check(world.inventory().count(RED_SPICE_4) == 2, "red(4) shakers: " + world.inventory().count(RED_SPICE_4));
+        check(world.inventory().count(RED_SPICE_1) == 1, "red(1) shakers: " + world.inventory().count(RED_SPICE_1));
+        check(world.inventory().count(RED_SPICE_3) == 0, "red(3) shakers: " + world.inventory().count(RED_SPICE_3));
+        check(world.inventory().count(ORANGE_SPICE_2) == 1,
+            "orange(2) shakers: " + world.inventory().count(ORANGE_SPICE_2));
+        check(world.inventory().count(EMPTY_SHAKER) == 0,
+            "empty shakers left: " + world.inventory().count(EMPTY_SHAKER));
+        check(!state.decanting, "still decanting after " + executes + " executes");
+        check(!world.isStopped(), "script stopped with room in the inventory");
+    }
+
+    static void dropsEveryEmptyShakerInSnakeOrder() {
+        FakeWorld world = world();
+        world.inventory().fill(EMPTY_SHAKER);
+        State state = new State();
+        state.decanting = true;
+        int executes = run(world, state);
+
+        check(world.inventory().count(EMPTY_SHAKER) == 0,
+            "empty shakers left: " + world.inventory().count(EMPTY_SHAKER));
+        check(!state.decanting, "still decanting after " + executes + " executes");
+        check(!world.isStopped(), "script stopped with room in the inventory");
+
+        List<Integer> dropped = new ArrayList<>();
+        for (FakeWorld.Action action : world.actions()) {
+            check(action.kind().equals("tap") && action.option().equals("Drop"), "unexpected action " + action);
+            dropped.add(FakeInventory.slotAt(bounds(action.target())));
+        }
+        List<Integer> snake = new ArrayList<>();
+        for (int row = 0; row < FakeInventory.SLOTS / 4; row++) {
+            for (int i = 0; i < 4; i++) {
+                snake.add(row * 4 + (row % 2 == 0 ? i : 3 - i));
+            }
+        }
+        check(dropped.equals(snake), "drop order " + dropped + ", expected " + snake);
+    }
+
+    static void stopsWhenFullOfDecantedSpice() {
+        FakeWorld world = world();
+        world.inventory().fill(RED_SPICE_4);
+        State state = new State();
+        state.decanting = true;
+        run(world, state);
+
+        check(world.isStopped(), "script kept running with nothing left to decant or drop");
+        check(world.actions().isEmpty(), "acted on a fully decanted inventory: " + world.actions());
+        check(world.inventory().count(RED_SPICE_4) == FakeInventory.SLOTS, "spice was dropped");
+    }
+
+    private static FakeWorld world() {
+        return new FakeWorld(1).setPlayer(new WorldPosition(3100, 9500, 0));
+    }
+
+    // Executes the task with a fresh frame each time, the way the script's poll does, until it deactivates
+    private static int run(FakeWorld world, State state) {
+        SpiceGrabberScript script = new SpiceGrabberScript(world.scriptCore());
+        DecantSpiceTask task = new DecantSpiceTask(script, state);
+        int executes = 0;
+        while (executes < MAX_EXECUTES && !world.isStopped()) {
+            FrameSnapshot frame = new FrameSnapshot(script, DecantSpiceTask.SPICE_AND_EMPTY_IDS);
+            if (!task.activate(frame)) {
+                break;
+            }
+            task.execute(frame);
+            executes++;
+            world.advance(FakeWorld.FRAME_MS);
+        }
+        return executes;
+    }
+
+    // Using one shaker on another of the same colour pours as much as fits; the source may end up an empty shaker
+    private static void pour(FakeInventory inventory, int source, int target) {
+        int sourceId = inventory.idAt(source);
+        int targetId = inventory.idAt(target);
+        if (sourceId == EMPTY_SHAKER || targetId == EMPTY_SHAKER
+            || (sourceId - FIRST_SPICE) / MAX_DOSE != (targetId - FIRST_SPICE) / MAX_DOSE) {
+            return;
+        }
+        int colourBase = FIRST_SPICE + (sourceId - FIRST_SPICE) / MAX_DOSE * MAX_DOSE;
+        int sourceDose = MAX_DOSE - (sourceId - colourBase);
+        int targetDose = MAX_DOSE - (targetId - colourBase);
+        int poured = Math.min(sourceDose, MAX_DOSE - targetDose);
+        inventory.set(source, sourceDose == poured ? EMPTY_SHAKER : sourceId + poured, 1);
+        inventory.set(target, targetId - poured, 1);
+    }
+
+    // Action targets are "x,y wxh"
+    private static Rectangle bounds(String target) {
+        String[] parts = target.split("[, x]");
+        return new Rectangle(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+            Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            throw new AssertionError(failure);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package testkit;
+
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.item.ItemSearchResult;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.utils.UIResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The 28 inventory slots of a {@link FakeWorld}. {@link #search} returns a snapshot like the client does: later
+ * changes to the slots do not show up in results already handed out, but interacting with a stale result still
+ * acts on the live slot, and fails once that slot holds a different item. "Use" on one slot followed by the default
+ * action on another applies the {@link #onUse} rule.
+ */
+public final class FakeInventory {
+    public static final int SLOTS = 28;
+    private static final int COLUMNS = 4;
+    private static final int EMPTY = -1;
+    // Fixed-mode inventory origin and slot pitch
+    private static final int ORIGIN_X = 563;
+    private static final int ORIGIN_Y = 213;
+    private static final int SLOT_WIDTH = 42;
+    private static final int SLOT_HEIGHT = 36;
+
+    /**
+     * What using the item in {@code source} on the item in {@code target} does to the slots.
+     */
+    @FunctionalInterface
+    public interface UseRule {
+        void use(FakeInventory inventory, int source, int target);
+    }
+
+    private final FakeWorld world;
+    private final int[] ids = new int[SLOTS];
+    private final int[] amounts = new int[SLOTS];
+    private UseRule useRule = (inventory, source, target) -> { };
+    private int selected = EMPTY;
+
+    FakeInventory(FakeWorld world) {
+        this.world = world;
+        Arrays.fill(ids, EMPTY);
+    }
+
+    public FakeInventory set(int slot, int id, int amount) {
+        ids[slot] = id;
+        amounts[slot] = amount;
+        return this;
+    }
+
+    /**
+     * Puts {@code id} in the first free slot.
+     */
+    public FakeInventory add(int id, int amount) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (ids[slot] == EMPTY) {
+                return set(slot, id, amount);
+            }
+        }
+        throw new IllegalStateException("Inventory is full");
+    }
+
+    public FakeInventory fill(int id) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (ids[slot] == EMPTY) {
+                set(slot, id, 1);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Runs {@code rule} when an item is used on another: "Use" on one slot, then the default action on a second.
+     */
+    public FakeInventory onUse(UseRule rule) {
+        this.useRule = rule;
+        return this;
+    }
+
+    public int amountAt(int slot) {
+        return amounts[slot];
+    }
+
+    void unselect() {
+        selected = EMPTY;
+    }
+
+    public void clear(int slot) {
+        ids[slot] = EMPTY;
+        amounts[slot] = 0;
+    }
+
+    public void clearAll() {
+        Arrays.fill(ids, EMPTY);
+        Arrays.fill(amounts, 0);
+    }
+
+    public int idAt(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * Slots holding {@code id}.
+     */
+    public int count(int id) {
+        int count = 0;
+        for (int slotId : ids) {
+            if (slotId == id) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int freeSlots() {
+        return count(EMPTY);
+    }
+
+    public boolean isFull() {
+        return freeSlots() == 0;
+    }
+
+    public static Rectangle slotBounds(int slot) {
+        int row = slot / COLUMNS;
+        int col = slot % COLUMNS;
+        return new Rectangle(ORIGIN_X + col * SLOT_WIDTH, ORIGIN_Y + row * SLOT_HEIGHT, SLOT_WIDTH, SLOT_HEIGHT);
+    }
+
+    /**
+     * The slot whose bounds hold the centre of {@code bounds}, or -1.
+     */
+    public static int slotAt(Rectangle bounds) {
+        if (bounds == null) {
+            return -1;
+        }
+        int x = bounds.x + bounds.width / 2 - ORIGIN_X;
+        int y = bounds.y + bounds.height / 2 - ORIGIN_Y;
+        if (x < 0 || y < 0 || x >= COLUMNS * SLOT_WIDTH) {
+            return -1;
+        }
+        int slot = y / SLOT_HEIGHT * COLUMNS + x / SLOT_WIDTH;
+        return slot < SLOTS ? slot : -1;
+    }
+
+    ItemGroupResult search(Set<Integer> searchIds) {
+        Set<Integer> wanted = searchIds == null ? Set.of() : Set.copyOf(searchIds);
+        List<ItemSearchResult> found = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (ids[slot] != EMPTY && wanted.contains(ids[slot])) {
+                int itemSlot = slot;
+                int id = ids[slot];
+                found.add(item(id, slot, amounts[slot], slotBounds(slot), option -> interact(itemSlot, id, option)));
+            }
+        }
+        return group(found, freeSlots());
+    }
+
+    /**
+     * A search result over {@code found}; slot counts describe the whole inventory.
+     */
+    static ItemGroupResult group(List<ItemSearchResult> found, int freeSlots) {
+        return Fakes.of(ItemGroupResult.class)
+            .on("getAllOfItem", args -> matching(found, Set.of((Integer) args[0])))
+            .on("getAllOfItems", args -> matching(found, idSet(args)))
+            .on("getItem", args -> {
+                List<ItemSearchResult> items = matching(found, idSet(args));
+                return items.isEmpty() ? null : items.get(0);
+            })
+            .on("getAmount", args -> {
+                int total = 0;
+                for (ItemSearchResult item : matching(found, idSet(args))) {
+                    total += item.getStackAmount();
+                }
+                return total;
+            })
+            .on("contains", args -> !matching(found, Set.of((Integer) args[0])).isEmpty())
+            .on("getOneOfEachItem", args -> {
+                Set<Integer> seen = new LinkedHashSet<>();
+                List<ItemSearchResult> one = new ArrayList<>();
+                for (ItemSearchResult item : found) {
+                    if (seen.add(item.getId())) {
+                        one.add(item);
+                    }
+                }
+                return one;
+            })
+            .returns("isFull", freeSlots == 0)
+            .returns("getFreeSlots", freeSlots)
+            .build();
+    }
+
+    /**
+     * One item; {@code interact} receives the menu option ("" for the default action) and says whether it worked.
+     */
+    static ItemSearchResult item(int id, int slot, int amount, Rectangle bounds, Predicate<String> interact) {
+        return Fakes.of(ItemSearchResult.class)
+            .returns("getId", id)
+            .returns("getSlot", slot)
+            .returns("getItemSlot", slot)
+            .returns("getStackAmount", amount)
+            .returns("getTappableBounds", bounds != null ? UIResult.of(bounds) : Fakes.result(null, false, true))
+            .on("interact", args -> interact.test(args.length == 0 ? "" : String.valueOf(args[0])))
+            .build();
+    }
+
+    private boolean interact(int slot, int id, String option) {
+        if (ids[slot] != id) {
+            return false;
+        }
+        boolean accepted = world.act("item", id + "@" + slot, option);
+        if (!accepted) {
+            return false;
+        }
+        if ("Drop".equalsIgnoreCase(option)) {
+            clear(slot);
+        } else if ("Use".equalsIgnoreCase(option)) {
+            selected = slot;
+        } else if (option.isEmpty() && selected != EMPTY && selected != slot) {
+            int source = selected;
+            selected = EMPTY;
+            useRule.use(this, source, slot);
+        }
+        return true;
+    }
+
+    // Searches take either one collection of ids or the ids themselves as varargs
+    private static Set<Integer> idSet(Object[] args) {
+        Set<Integer> set = new LinkedHashSet<>();
+        for (Object arg : args) {
+            if (arg instanceof Collection<?> collection) {
+                for (Object id : collection) {
+                    set.add((Integer) id);
+                }
+            } else if (arg instanceof int[] array) {
+                for (int id : array) {
+                    set.add(id);
+                }
+            } else if (arg instanceof Integer id) {
+                set.add(id);
+            }
+        }
+        return set;
+    }
+
+    private static List<ItemSearchResult> matching(List<ItemSearchResult> found, Set<Integer> wanted) {
+        List<ItemSearchResult> items = new ArrayList<>();
+        for (ItemSearchResult item : found) {
+            if (wanted.contains(item.getId())) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,594 @@
+package testkit;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.input.Finger;
+import com.osmb.api.input.MenuEntry;
+import com.osmb.api.input.MenuHook;
+import com.osmb.api.item.ItemManager;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.scene.ObjectManager;
+import com.osmb.api.scene.RSObject;
+import com.osmb.api.scene.RSTile;
+import com.osmb.api.scene.SceneManager;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.ui.GameState;
+import com.osmb.api.ui.WidgetManager;
+import com.osmb.api.ui.bank.Bank;
+import com.osmb.api.ui.chatbox.Chatbox;
+import com.osmb.api.ui.chatbox.ChatboxFilterTab;
+import com.osmb.api.ui.minimap.Minimap;
+import com.osmb.api.ui.minimap.MinimapOrbs;
+import com.osmb.api.ui.tabs.Inventory;
+import com.osmb.api.ui.tabs.TabManager;
+import com.osmb.api.utils.UIResultList;
+import com.osmb.api.visual.PixelAnalyzer;
+import com.osmb.api.visual.drawing.SceneProjector;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A scripted game world behind a fake {@link ScriptCore}, so scripts and tasks run headless:
+ * <pre>
+ * FakeWorld world = new FakeWorld(1);
+ * world.setPlayer(new WorldPosition(3100, 9500, 0));
+ * world.inventory().fill(7496);
+ * MyScript script = new MyScript(world.scriptCore());
+ * TaskLoop.run(script, world, 200);
+ * </pre>
+ * Time is virtual. Every frame wait (pollFramesUntil, pollFramesHuman, submitHumanTask, sleep) advances the clock
+ * in {@link #FRAME_MS} steps instead of sleeping, and runs the frame listeners and scheduled events, so a loop
+ * with second-long timeouts finishes in milliseconds.
+ * <p>
+ * The scripts have no injectable clock, so anything gated on System.currentTimeMillis() is not supported: it sees
+ * wall time, which barely moves during a run. That covers the spice-grabber's chase cooldown and result tracking
+ * (ChaseCatTask, ChaseResultTask, ChaseStats, CatTracker) and webhook pacing; such tasks never fire, or fire on
+ * wall-clock timing, under a {@link TaskLoop}.
+ * <p>
+ * The screen is a flat top-down projection centred on the player, {@link #TILE_PX} pixels per tile, with local and
+ * world coordinates treated alike. Every tap and interaction is recorded as an {@link Action}, and
+ * {@link #onAction} decides whether it succeeds.
+ */
+public final class FakeWorld {
+    public static final int FRAME_MS = 50;
+    public static final int TILE_PX = 32;
+    public static final int SCREEN_WIDTH = 765;
+    public static final int SCREEN_HEIGHT = 503;
+    // The chatbox only shows this many lines; older ones scroll away
+    public static final int CHAT_LINES = 8;
+    private static final int CENTER_X = 256;
+    private static final int CENTER_Y = 170;
+
+    /**
+     * One recorded interaction: {@code kind} is tap, menu, item or object.
+     */
+    public record Action(long atMs, String kind, String target, String option) {}
+
+    private record Scheduled(long atMs, long order, Consumer<FakeWorld> event) {}
+
+    private final Random random;
+    private long nowMs = 0L;
+    private long frames = 0L;
+    private long scheduledCount = 0L;
+    private final List<Consumer<FakeWorld>> frameListeners = new ArrayList<>();
+    private final PriorityQueue<Scheduled> scheduled = new PriorityQueue<>(
+        (a, b) -> a.atMs() != b.atMs() ? Long.compare(a.atMs(), b.atMs()) : Long.compare(a.order(), b.order()));
+
+    private WorldPosition player;
+    private boolean playerAnimating = false;
+    private Integer hitpointsPercentage = 100;
+    private GameState gameState = GameState.LOGGED_IN;
+    private final FakeInventory inventory = new FakeInventory(this);
+    private final LinkedList<String> chat = new LinkedList<>();
+    private ChatboxFilterTab chatTab = ChatboxFilterTab.GAME;
+    private final List<Rectangle> highlights = new ArrayList<>();
+    private final List<WorldPosition> groundItems = new ArrayList<>();
+    private final List<WorldPosition> npcs = new ArrayList<>();
+    private final List<RSObject> objects = new ArrayList<>();
+    private final Map<Integer, String> itemNames = new HashMap<>();
+    private Predicate<WorldPosition> reachable = pos -> true;
+    private Function<Rectangle, List<String>> menu = bounds -> List.of();
+    private Predicate<Action> actionHandler = action -> true;
+
+    private final List<Action> actions = new ArrayList<>();
+    private final List<String> logs = new ArrayList<>();
+    private boolean stopped = false;
+    private ScriptCore core;
+
+    public FakeWorld(long seed) {
+        this.random = new Random(seed);
+    }
+
+    // ---- Time
+
+    public long nowMs() {
+        return nowMs;
+    }
+
+    public long frames() {
+        return frames;
+    }
+
+    /**
+     * Runs {@code listener} after every frame.
+     */
+    public FakeWorld everyFrame(Consumer<FakeWorld> listener) {
+        frameListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Runs {@code event} on the first frame at or after {@code atMs} of virtual time.
+     */
+    public FakeWorld at(long atMs, Consumer<FakeWorld> event) {
+        scheduled.add(new Scheduled(atMs, scheduledCount++, event));
+        return this;
+    }
+
+    public void advance(long ms) {
+        long until = nowMs + Math.max(0L, ms);
+        while (nowMs < until) {
+            frame();
+        }
+    }
+
+    /**
+     * Frame loop behind every wait: true as soon as {@code condition} holds, false once {@code timeoutMs} passes.
+     */
+    public boolean pollUntil(BooleanSupplier condition, long timeoutMs) {
+        long deadline = nowMs + Math.max(0L, timeoutMs);
+        while (true) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            if (nowMs >= deadline || stopped) {
+                return false;
+            }
+            frame();
+        }
+    }
+
+    private void frame() {
+        nowMs += FRAME_MS;
+        frames++;
+        while (!scheduled.isEmpty() && scheduled.peek().atMs() <= nowMs) {
+            scheduled.poll().event().accept(this);
+        }
+        for (Consumer<FakeWorld> listener : frameListeners) {
+            listener.accept(this);
+        }
+    }
+
+    // ---- Scripted state
+
+    public WorldPosition player() {
+        return player;
+    }
+
+    public FakeWorld setPlayer(WorldPosition position) {
+        this.player = position;
+        return this;
+    }
+
+    public FakeWorld setPlayerAnimating(boolean animating) {
+        this.playerAnimating = animating;
+        return this;
+    }
+
+    public FakeWorld setHitpointsPercentage(Integer percentage) {
+        this.hitpointsPercentage = percentage;
+        return this;
+    }
+
+    public FakeWorld setGameState(GameState state) {
+        this.gameState = state;
+        return this;
+    }
+
+    public FakeInventory inventory() {
+        return inventory;
+    }
+
+    /**
+     * Adds a game message as the newest chat line.
+     */
+    public FakeWorld chat(String line) {
+        chat.addFirst(line);
+        while (chat.size() > CHAT_LINES) {
+            chat.removeLast();
+        }
+        return this;
+    }
+
+    public List<String> chatLines() {
+        return List.copyOf(chat);
+    }
+
+    public FakeWorld addHighlight(Rectangle bounds) {
+        highlights.add(bounds);
+        return this;
+    }
+
+    public FakeWorld clearHighlights() {
+        highlights.clear();
+        return this;
+    }
+
+    public FakeWorld addGroundItem(WorldPosition position) {
+        groundItems.add(position);
+        return this;
+    }
+
+    public FakeWorld removeGroundItem(WorldPosition position) {
+        groundItems.removeIf(pos -> samePosition(pos, position));
+        return this;
+    }
+
+    public FakeWorld addNpc(WorldPosition position) {
+        npcs.add(position);
+        return this;
+    }
+
+    public FakeWorld clearNpcs() {
+        npcs.clear();
+        return this;
+    }
+
+    public RSObject addObject(String name, WorldPosition position, String... objectActions) {
+        String[] options = objectActions.clone();
+        RSObject object = Fakes.of(RSObject.class)
+            .returns("getName", name)
+            .returns("getActions", options)
+            .returns("getWorldPosition", position)
+            .on("canReach", args -> reachable.test(position))
+            .on("isInteractableOnScreen", args -> project(position.getX(), position.getY(), 0) != null)
+            .on("interact", args -> act("object", name, args.length == 0 ? "" : String.valueOf(args[0])))
+            .build();
+        objects.add(object);
+        return object;
+    }
+
+    public FakeWorld removeObject(RSObject object) {
+        objects.remove(object);
+        return this;
+    }
+
+    public FakeWorld nameItem(int id, String name) {
+        itemNames.put(id, name);
+        return this;
+    }
+
+    public FakeWorld setReachable(Predicate<WorldPosition> reachable) {
+        this.reachable = reachable;
+        return this;
+    }
+
+    /**
+     * Raw menu texts offered when the game screen is tapped inside the given bounds, e.g. "take red spice".
+     */
+    public FakeWorld setMenu(Function<Rectangle, List<String>> menu) {
+        this.menu = menu;
+        return this;
+    }
+
+    /**
+     * Decides whether each recorded action succeeds; the default accepts everything.
+     */
+    public FakeWorld onAction(Predicate<Action> handler) {
+        this.actionHandler = handler;
+        return this;
+    }
+
+    public List<Action> actions() {
+        return List.copyOf(actions);
+    }
+
+    public List<String> logs() {
+        return List.copyOf(logs);
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    boolean act(String kind, String target, String option) {
+        Action action = new Action(nowMs, kind, target, option);
+        actions.add(action);
+        return actionHandler.test(action);
+    }
+
+    // ---- Projection
+
+    /**
+     * Screen bounds of the tile cube at (x, y), or null when it falls off screen.
+     */
+    public Rectangle project(int x, int y, int height) {
+        if (player == null) {
+            return null;
+        }
+        int lift = height / 8;
+        int left = CENTER_X + (x - player.getX()) * TILE_PX - TILE_PX / 2;
+        int top = CENTER_Y - (y - player.getY()) * TILE_PX - TILE_PX / 2 - lift;
+        Rectangle bounds = new Rectangle(left, top, TILE_PX, TILE_PX + lift);
+        if (left + TILE_PX <= 0 || top + TILE_PX + lift <= 0 || left >= SCREEN_WIDTH || top >= SCREEN_HEIGHT) {
+            return null;
+        }
+        return bounds;
+    }
+
+    private Polygon polygon(Rectangle bounds) {
+        if (bounds == null) {
+            return null;
+        }
+        return Fakes.of(Polygon.class)
+            .returns("getBounds", bounds)
+            .returns("numVertices", 4)
+            .on("getResized", args -> polygon(resize(bounds, ((Number) args[0]).doubleValue())))
+            .build();
+    }
+
+    private static Rectangle resize(Rectangle bounds, double factor) {
+        int width = (int) Math.round(bounds.width * factor);
+        int height = (int) Math.round(bounds.height * factor);
+        return new Rectangle(bounds.x + (bounds.width - width) / 2, bounds.y + (bounds.height - height) / 2, width, height);
+    }
+
+    private static Rectangle boundsOf(Object shape) {
+        if (shape instanceof Rectangle rectangle) {
+            return rectangle;
+        }
+        if (shape instanceof Polygon polygon) {
+            return polygon.getBounds();
+        }
+        return null;
+    }
+
+    private static Rectangle intersect(Rectangle a, Rectangle b) {
+        int left = Math.max(a.x, b.x);
+        int top = Math.max(a.y, b.y);
+        int right = Math.min(a.x + a.width, b.x + b.width);
+        int bottom = Math.min(a.y + a.height, b.y + b.height);
+        return right > left && bottom > top ? new Rectangle(left, top, right - left, bottom - top) : null;
+    }
+
+    private static boolean samePosition(WorldPosition a, WorldPosition b) {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getPlane() == b.getPlane();
+    }
+
+    // ---- Fake services
+
+    /**
+     * The core to hand to a script's constructor. Built once; services read the world's current state on each call.
+     */
+    public ScriptCore scriptCore() {
+        if (core == null) {
+            core = buildCore();
+        }
+        return core;
+    }
+
+    private ScriptCore buildCore() {
+        WidgetManager widgets = buildWidgets();
+        PixelAnalyzer pixels = buildPixelAnalyzer();
+        SceneProjector projector = Fakes.of(SceneProjector.class)
+            .on("getTileCube", args -> {
+                if (args.length == 2 && args[0] instanceof WorldPosition pos) {
+                    return polygon(project(pos.getX(), pos.getY(), ((Number) args[1]).intValue()));
+                }
+                if (args.length == 4) {
+                    int x = ((Number) args[0]).intValue();
+                    int y = ((Number) args[1]).intValue();
+                    return polygon(project(x, y, ((Number) args[3]).intValue()));
+                }
+                return null;
+            })
+            .on("getConvexHull", args -> {
+                WorldPosition pos = ((RSObject) args[0]).getWorldPosition();
+                return pos == null ? null : polygon(project(pos.getX(), pos.getY(), 0));
+            })
+            .build();
+        SceneManager scene = Fakes.of(SceneManager.class)
+            .on("getTile", args -> args[0] instanceof WorldPosition pos ? tile(pos) : null)
+            .build();
+        ObjectManager objectManager = Fakes.of(ObjectManager.class)
+            .on("getObjects", args -> filterObjects(args))
+            .on("getRSObject", args -> {
+                List<RSObject> matches = filterObjects(args);
+                return matches.isEmpty() ? null : matches.get(0);
+            })
+            .build();
+        Finger finger = Fakes.of(Finger.class)
+            .on("tap", args -> tap(args))
+            .on("tapGameScreen", args -> tapGameScreen(boundsOf(args[0]), args.length > 1 ? (MenuHook) args[1] : null))
+            .build();
+        ItemManager items = Fakes.of(ItemManager.class)
+            .on("getItemName", args -> itemNames.get((Integer) args[0]))
+            .build();
+
+        return Fakes.of(ScriptCore.class)
+            .returns("getWidgetManager", widgets)
+            .on("getWorldPosition", args -> player)
+            .returns("getObjectManager", objectManager)
+            .returns("getPixelAnalyzer", pixels)
+            .returns("getSceneProjector", projector)
+            .returns("getSceneManager", scene)
+            .returns("getFinger", finger)
+            .returns("getItemManager", items)
+            .on("pollFramesUntil", args -> pollUntil((BooleanSupplier) args[0], ((Number) args[1]).longValue()))
+            .on("pollFramesHuman", args -> {
+                boolean met = pollUntil((BooleanSupplier) args[0], ((Number) args[1]).longValue());
+                advance(FRAME_MS);
+                return met;
+            })
+            .on("submitHumanTask", args -> pollUntil((BooleanSupplier) args[0], ((Number) args[1]).longValue()))
+            .on("submitTask", args -> pollUntil((BooleanSupplier) args[0], ((Number) args[1]).longValue()))
+            .on("sleep", args -> {
+                advance(((Number) args[0]).longValue());
+                return null;
+            })
+            .on("random", args -> {
+                int low = args.length > 1 ? ((Number) args[0]).intValue() : 0;
+                int high = ((Number) args[args.length - 1]).intValue();
+                return high <= low ? low : low + random.nextInt(high - low);
+            })
+            .on("log", args -> {
+                logs.add(args.length > 1 ? args[0] + ": " + args[1] : String.valueOf(args[0]));
+                return null;
+            })
+            .on("stop", args -> {
+                stopped = true;
+                return null;
+            })
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private WidgetManager buildWidgets() {
+        Inventory inventoryTab = Fakes.of(Inventory.class)
+            .on("search", args -> inventory.search((Set<Integer>) args[0]))
+            .on("unSelectItemIfSelected", args -> {
+                inventory.unselect();
+                return true;
+            })
+            .returns("open", true)
+            .returns("isVisible", true)
+            .build();
+        Chatbox chatbox = Fakes.of(Chatbox.class)
+            .on("getActiveFilterTab", args -> chatTab)
+            .on("openFilterTab", args -> {
+                chatTab = (ChatboxFilterTab) args[0];
+                return true;
+            })
+            .on("getText", args -> resultList(new ArrayList<>(chat)))
+            .build();
+        Minimap minimap = Fakes.of(Minimap.class)
+            .on("getItemPositions", args -> resultList(new ArrayList<>(groundItems)))
+            .on("getNPCPositions", args -> resultList(new ArrayList<>(npcs)))
+            .on("getPlayerPositions", args -> resultList(new ArrayList<WorldPosition>()))
+            .build();
+        MinimapOrbs orbs = Fakes.of(MinimapOrbs.class)
+            .on("getHitpointsPercentage", args -> hitpointsPercentage)
+            .build();
+        Bank bank = Fakes.of(Bank.class)
+            .returns("isVisible", false)
+            .build();
+        TabManager tabs = Fakes.of(TabManager.class)
+            .returns("openTab", true)
+            .build();
+
+        return Fakes.of(WidgetManager.class)
+            .returns("getInventory", inventoryTab)
+            .returns("getChatbox", chatbox)
+            .returns("getMinimap", minimap)
+            .returns("getMinimapOrbs", orbs)
+            .returns("getBank", bank)
+            .returns("getTabManager", tabs)
+            .on("getGameState", args -> gameState)
+            .build();
+    }
+
+    private PixelAnalyzer buildPixelAnalyzer() {
+        return Fakes.of(PixelAnalyzer.class)
+            .on("getHighlightBounds", args -> {
+                Rectangle area = boundsOf(args[0]);
+                for (Rectangle highlight : highlights) {
+                    Rectangle visible = area == null ? highlight : intersect(highlight, area);
+                    if (visible != null) {
+                        return visible;
+                    }
+                }
+                return null;
+            })
+            .on("findPixel", args -> {
+                Rectangle area = boundsOf(args[0]);
+                for (Rectangle highlight : highlights) {
+                    Rectangle visible = area == null ? highlight : intersect(highlight, area);
+                    if (visible != null) {
+                        return new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+                    }
+                }
+                return null;
+            })
+            .on("isAnimating", args -> playerAnimating)
+            .on("isPlayerAnimating", args -> playerAnimating)
+            .build();
+    }
+
+    private RSTile tile(WorldPosition pos) {
+        return Fakes.of(RSTile.class)
+            .returns("getWorldPosition", pos)
+            .on("isOnGameScreen", args -> project(pos.getX(), pos.getY(), 0) != null)
+            .on("canReach", args -> reachable.test(pos))
+            .on("getTileCube", args -> polygon(project(pos.getX(), pos.getY(), ((Number) args[0]).intValue())))
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RSObject> filterObjects(Object[] args) {
+        Predicate<RSObject> filter = args.length > 0 && args[0] instanceof Predicate<?> p ? (Predicate<RSObject>) p : o -> true;
+        List<RSObject> matches = new ArrayList<>();
+        for (RSObject object : new ArrayList<>(objects)) {
+            if (filter.test(object)) {
+                matches.add(object);
+            }
+        }
+        return matches;
+    }
+
+    private boolean tap(Object[] args) {
+        Rectangle bounds = boundsOf(args[0]);
+        String option = args.length > 1 && args[1] instanceof String action ? action : "";
+        boolean accepted = act("tap", describe(bounds), option);
+        // Tapping a slot with "Drop" empties it, like the client's tap-to-drop
+        int slot = FakeInventory.slotAt(bounds);
+        if (accepted && slot >= 0 && "Drop".equalsIgnoreCase(option)) {
+            inventory.clear(slot);
+        }
+        return accepted;
+    }
+
+    private boolean tapGameScreen(Rectangle bounds, MenuHook hook) {
+        if (hook == null) {
+            return act("tap", describe(bounds), "");
+        }
+        List<MenuEntry> entries = new ArrayList<>();
+        for (String raw : menu.apply(bounds)) {
+            entries.add(menuEntry(raw));
+        }
+        MenuEntry chosen = hook.handle(entries);
+        if (chosen == null) {
+            act("menu", describe(bounds), "");
+            return false;
+        }
+        return act("menu", describe(bounds), chosen.getRawText());
+    }
+
+    private static MenuEntry menuEntry(String raw) {
+        int space = raw.indexOf(' ');
+        return Fakes.of(MenuEntry.class)
+            .returns("getRawText", raw)
+            .returns("getAction", space < 0 ? raw : raw.substring(0, space))
+            .returns("getEntityName", space < 0 ? "" : raw.substring(space + 1))
+            .build();
+    }
+
+    private static String describe(Rectangle bounds) {
+        return bounds == null ? "null" : bounds.x + "," + bounds.y + " " + bounds.width + "x" + bounds.height;
+    }
+
+    private static <T> UIResultList<T> resultList(List<T> values) {
+        return Fakes.resultList(values, true, true);
+    }
+}
@@ -0,0 +1,78 @@
+package testkit;
+
+import com.osmb.api.utils.UIResult;
+import com.osmb.api.utils.UIResultList;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Builds fakes of API types by method name. The API is only available as a jar, so matching on names keeps the
+ * fakes independent of exact signatures and overloads; any method without a handler returns the type's empty value
+ * (null, false, 0, empty collection). Handlers receive varargs expanded into the argument array.
+ */
+public final class Fakes {
+    private Fakes() {
+    }
+
+    public static <T> Builder<T> of(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> UIResultList<T> resultList(List<T> values, boolean found, boolean visible) {
+        return Fakes.of(UIResultList.class)
+            .returns("isFound", found)
+            .returns("isNotFound", !found)
+            .returns("isNotVisible", !visible)
+            .returns("isEmpty", values.isEmpty())
+            .returns("size", values.size())
+            .returns("asList", values)
+            .on("get", args -> values.get((Integer) args[0]))
+            .on("iterator", args -> values.iterator())
+            .on("stream", args -> values.stream())
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> UIResult<T> result(T value, boolean found, boolean visible) {
+        return Fakes.of(UIResult.class)
+            .returns("isFound", found)
+            .returns("isNotFound", !found)
+            .returns("isNotVisible", !visible)
+            .returns("get", value)
+            .build();
+    }
+
+    public static final class Builder<T> {
+        private final Class<T> type;
+        private final Map<String, Function<Object[], Object>> handlers = new HashMap<>();
+
+        private Builder(Class<T> type) {
+            this.type = type;
+        }
+
+        public Builder<T> on(String method, Function<Object[], Object> handler) {
+            handlers.put(method, handler);
+            return this;
+        }
+
+        public Builder<T> returns(String method, Object value) {
+            return on(method, args -> value);
+        }
+
+        public T build() {
+            Map<String, Function<Object[], Object>> snapshot = Map.copyOf(handlers);
+            return Mockito.mock(type, invocation -> {
+                Function<Object[], Object> handler = snapshot.get(invocation.getMethod().getName());
+                if (handler != null) {
+                    return handler.apply(invocation.getArguments());
+                }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            });
+        }
+    }
+}
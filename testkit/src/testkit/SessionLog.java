@@ -0,0 +1,178 @@
+package testkit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The binary format shared by {@link SessionRecorder} and {@link SessionReplay}: a gzip stream of call records,
+ * each holding the calling thread, the proxy id the call was made on, the method name, how often each frame-wait
+ * condition passed to the call was evaluated, and the tagged return value. A thread record names each thread
+ * before its first call. Integers are zigzag varints and every string is interned,
+ * so a repeated chat line or method name costs one or two bytes after its first appearance.
+ */
+final class SessionLog {
+    static final int MAGIC = 0x4F534D52;
+    static final int VERSION = 2;
+    // Start the two record types; value tags follow a call
+    static final int CALL = 0x40;
+    static final int THREAD = 0x41;
+
+    static final int NULL = 0;
+    static final int TRUE = 1;
+    static final int FALSE = 2;
+    static final int INT = 3;
+    static final int LONG = 4;
+    static final int FLOAT = 5;
+    static final int DOUBLE = 6;
+    static final int STRING = 7;
+    static final int ENUM = 8;
+    static final int POSITION = 9;
+    static final int RECTANGLE = 10;
+    static final int POINT = 11;
+    static final int POLYGON = 12;
+    static final int LIST = 13;
+    static final int ARRAY = 14;
+    static final int INT_ARRAY = 15;
+    static final int REF = 16;
+    static final int RESULT = 17;
+    static final int RESULT_LIST = 18;
+    static final int ITEM_GROUP = 19;
+    static final int ITEM = 20;
+    // A type the log can't hold; replays as null (or the primitive default)
+    static final int UNRECORDED = 21;
+
+    private SessionLog() {
+    }
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(OutputStream stream) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream), 1 << 16));
+            out.writeInt(MAGIC);
+            writeInt(VERSION);
+        }
+
+        void writeTag(int tag) throws IOException {
+            out.writeByte(tag);
+        }
+
+        void writeInt(int value) throws IOException {
+            writeLong(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        }
+
+        void writeFloat(float value) throws IOException {
+            out.writeFloat(value);
+        }
+
+        void writeDouble(double value) throws IOException {
+            out.writeDouble(value);
+        }
+
+        // Known strings are written as their index, new ones as (index, text)
+        void writeString(String value) throws IOException {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeInt(index << 1);
+                return;
+            }
+            index = strings.size();
+            strings.put(value, index);
+            writeInt((index << 1) | 1);
+            out.writeUTF(value);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Reader(InputStream stream) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a session log");
+            }
+            int version = readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported session log version " + version);
+            }
+        }
+
+        /**
+         * The next tag, or -1 at the end of the log.
+         */
+        int readTag() throws IOException {
+            return in.read();
+        }
+
+        int readInt() throws IOException {
+            return (int) readLong();
+        }
+
+        long readLong() throws IOException {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readUnsignedByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        float readFloat() throws IOException {
+            return in.readFloat();
+        }
+
+        double readDouble() throws IOException {
+            return in.readDouble();
+        }
+
+        String readString() throws IOException {
+            int code = readInt();
+            if ((code & 1) == 0) {
+                return strings.get(code >>> 1);
+            }
+            String value = in.readUTF();
+            strings.add(value);
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package testkit;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.item.ItemGroupResult;
+import com.osmb.api.item.ItemSearchResult;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.utils.UIResult;
+import com.osmb.api.utils.UIResultList;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Records everything a script reads from the client during a live session, for {@link SessionReplay}. The script
+ * is constructed on {@link #scriptCore()} instead of the client's core; every API interface it reaches through it
+ * (widget manager, inventory, chatbox, scene and object managers, the objects themselves) is wrapped the same way,
+ * and each non-void call is logged with its result once it returns:
+ * <pre>
+ * public MyScript(Object scriptCore) {
+ *     super(RECORDER = SessionRecorder.start(scriptCore, Path.of("session.osmr")).scriptCore());
+ * }
+ * // in stop(): RECORDER.close();
+ * </pre>
+ * Values are stored as data: positions, rectangles, enums, strings, result lists, item search results (with the
+ * searched ids) and lists or arrays of them. Frame-wait conditions passed to the client are counted, so a replay
+ * evaluates each one as often as the client did. Anything else is logged as unrecorded and replays as null.
+ * <p>
+ * Every call is logged with the thread that made it. The client paints on its own thread, so paint-time reads
+ * interleave with the poll loop's differently on every run; {@link SessionReplay} only replays the poll thread's.
+ */
+public final class SessionRecorder implements Closeable {
+    private static final String API_PACKAGE = "com.osmb.api.";
+
+    private final SessionLog.Writer log;
+    private final Map<Object, Object> proxies = new IdentityHashMap<>();
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+    private final Map<Thread, Integer> threads = new IdentityHashMap<>();
+    private final ScriptCore core;
+    private long calls;
+    private boolean closed;
+
+    private SessionRecorder(Object clientCore, SessionLog.Writer log) {
+        this.log = log;
+        this.core = (ScriptCore) wrap(clientCore, ScriptCore.class);
+    }
+
+    public static SessionRecorder start(Object clientCore, Path file) {
+        try {
+            return new SessionRecorder(clientCore, new SessionLog.Writer(Files.newOutputStream(file)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ScriptCore scriptCore() {
+        return core;
+    }
+
+    public synchronized long calls() {
+        return calls;
+    }
+
+    /**
+     * Ends the log. A log that is never closed still replays up to the last complete record.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object wrap(Object target, Class<?> type) {
+        Object proxy = proxies.get(target);
+        if (proxy == null) {
+            int id = ids.size();
+            ids.put(target, id);
+            proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new Recording(target, id));
+            proxies.put(target, proxy);
+        }
+        return proxy;
+    }
+
+    private synchronized Object record(int target, Method method, CountingCondition[] conditions, Object result,
+                                       Object[] args) {
+        if (closed) {
+            return result;
+        }
+        try {
+            int thread = threadSlot(Thread.currentThread());
+            log.writeTag(SessionLog.CALL);
+            log.writeInt(thread);
+            log.writeInt(target);
+            log.writeString(method.getName());
+            log.writeInt(conditions.length);
+            for (CountingCondition condition : conditions) {
+                log.writeInt(condition.evaluations);
+            }
+            calls++;
+            return write(result, method.getReturnType(), args);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int threadSlot(Thread thread) throws IOException {
+        Integer slot = threads.get(thread);
+        if (slot == null) {
+            slot = threads.size();
+            threads.put(thread, slot);
+            log.writeTag(SessionLog.THREAD);
+            log.writeInt(slot);
+            log.writeString(thread.getName());
+        }
+        return slot;
+    }
+
+    /**
+     * Logs {@code value} and returns what the script should see in its place: the value itself, or a recording
+     * proxy where it is an API interface.
+     */
+    private Object write(Object value, Class<?> declared, Object[] args) throws IOException {
+        if (value == null) {
+            log.writeTag(SessionLog.NULL);
+        } else if (value instanceof Boolean b) {
+            log.writeTag(b ? SessionLog.TRUE : SessionLog.FALSE);
+        } else if (value instanceof Integer i) {
+            log.writeTag(SessionLog.INT);
+            log.writeInt(i);
+        } else if (value instanceof Long l) {
+            log.writeTag(SessionLog.LONG);
+            log.writeLong(l);
+        } else if (value instanceof Float f) {
+            log.writeTag(SessionLog.FLOAT);
+            log.writeFloat(f);
+        } else if (value instanceof Double d) {
+            log.writeTag(SessionLog.DOUBLE);
+            log.writeDouble(d);
+        } else if (value instanceof String s) {
+            log.writeTag(SessionLog.STRING);
+            log.writeString(s);
+        } else if (value instanceof Enum<?> e) {
+            log.writeTag(SessionLog.ENUM);
+            log.writeString(e.getDeclaringClass().getName());
+            log.writeString(e.name());
+        } else if (value instanceof WorldPosition pos) {
+            log.writeTag(SessionLog.POSITION);
+            log.writeInt(pos.getX());
+            log.writeInt(pos.getY());
+            log.writeInt(pos.getPlane());
+        } else if (value instanceof Rectangle rect) {
+            log.writeTag(SessionLog.RECTANGLE);
+            writeRectangle(rect);
+        } else if (value instanceof Point point) {
+            log.writeTag(SessionLog.POINT);
+            log.writeInt(point.x);
+            log.writeInt(point.y);
+        } else if (value instanceof Polygon polygon) {
+            log.writeTag(SessionLog.POLYGON);
+            log.writeInt(polygon.numVertices());
+            write(polygon.getBounds(), Rectangle.class, args);
+        } else if (value instanceof UIResult<?> result) {
+            log.writeTag(SessionLog.RESULT);
+            log.writeTag(result.isFound() ? SessionLog.TRUE : SessionLog.FALSE);
+            log.writeTag(result.isNotVisible() ? SessionLog.TRUE : SessionLog.FALSE);
+            write(result.isFound() ? result.get() : null, Object.class, args);
+        } else if (value instanceof UIResultList<?> list) {
+            log.writeTag(SessionLog.RESULT_LIST);
+            log.writeTag(list.isFound() ? SessionLog.TRUE : SessionLog.FALSE);
+            log.writeTag(list.isNotVisible() ? SessionLog.TRUE : SessionLog.FALSE);
+            write(list.isFound() ? list.asList() : List.of(), List.class, args);
+        } else if (value instanceof ItemGroupResult group) {
+            // The result only answers for the ids it was searched with, which are among the call's arguments
+            Set<Integer> searched = searchedIds(args);
+            List<ItemSearchResult> items = searched.isEmpty() ? group.getOneOfEachItem() : group.getAllOfItems(searched);
+            log.writeTag(SessionLog.ITEM_GROUP);
+            log.writeInt(group.getFreeSlots());
+            log.writeInt(items.size());
+            for (ItemSearchResult item : items) {
+                writeItem(item);
+            }
+        } else if (value instanceof ItemSearchResult item) {
+            log.writeTag(SessionLog.ITEM);
+            writeItem(item);
+        } else if (value instanceof List<?> list) {
+            log.writeTag(SessionLog.LIST);
+            log.writeInt(list.size());
+            List<Object> seen = null;
+            for (int i = 0; i < list.size(); i++) {
+                Object element = list.get(i);
+                Object substitute = write(element, Object.class, args);
+                if (substitute != element && seen == null) {
+                    seen = new ArrayList<>(list.subList(0, i));
+                }
+                if (seen != null) {
+                    seen.add(substitute);
+                }
+            }
+            return seen != null ? seen : value;
+        } else if (value instanceof int[] array) {
+            log.writeTag(SessionLog.INT_ARRAY);
+            log.writeInt(array.length);
+            for (int element : array) {
+                log.writeInt(element);
+            }
+        } else if (value instanceof Object[] array) {
+            log.writeTag(SessionLog.ARRAY);
+            log.writeString(array.getClass().getComponentType().getName());
+            log.writeInt(array.length);
+            for (Object element : array) {
+                write(element, Object.class, args);
+            }
+        } else {
+            Class<?> api = apiInterface(value, declared);
+            if (api == null) {
+                log.writeTag(SessionLog.UNRECORDED);
+                log.writeString(value.getClass().getName());
+                return value;
+            }
+            Object proxy = wrap(value, api);
+            log.writeTag(SessionLog.REF);
+            log.writeInt(ids.get(value));
+            log.writeString(api.getName());
+            return proxy;
+        }
+        return value;
+    }
+
+    private void writeItem(ItemSearchResult item) throws IOException {
+        log.writeInt(item.getId());
+        log.writeInt(item.getSlot());
+        log.writeInt(item.getStackAmount());
+        UIResult<Rectangle> bounds = item.getTappableBounds();
+        write(bounds != null && bounds.isFound() ? bounds.get() : null, Rectangle.class, null);
+    }
+
+    private void writeRectangle(Rectangle rect) throws IOException {
+        log.writeInt(rect.x);
+        log.writeInt(rect.y);
+        log.writeInt(rect.width);
+        log.writeInt(rect.height);
+    }
+
+    private static Set<Integer> searchedIds(Object[] args) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (args == null) {
+            return ids;
+        }
+        for (Object arg : args) {
+            if (arg instanceof Collection<?> collection) {
+                for (Object id : collection) {
+                    if (id instanceof Integer i) {
+                        ids.add(i);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    // The declared return type when it is an API interface, otherwise the first API interface the value implements
+    private static Class<?> apiInterface(Object value, Class<?> declared) {
+        if (declared.isInterface() && declared.getName().startsWith(API_PACKAGE) && declared.isInstance(value)) {
+            return declared;
+        }
+        for (Class<?> type = value.getClass(); type != null; type = type.getSuperclass()) {
+            for (Class<?> candidate : type.getInterfaces()) {
+                if (candidate.getName().startsWith(API_PACKAGE)) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private final class Recording implements InvocationHandler {
+        private final Object target;
+        private final int id;
+
+        Recording(Object target, int id) {
+            this.target = target;
+            this.id = id;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "recording " + target;
+                };
+            }
+            CountingCondition[] conditions = countConditions(args);
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getReturnType() == void.class) {
+                return null;
+            }
+            return record(id, method, conditions, result, args);
+        }
+    }
+
+    // Swaps each frame-wait condition for a counting one, in argument order
+    private static CountingCondition[] countConditions(Object[] args) {
+        if (args == null) {
+            return new CountingCondition[0];
+        }
+        List<CountingCondition> conditions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof BooleanSupplier condition) {
+                CountingCondition counting = new CountingCondition(condition);
+                conditions.add(counting);
+                args[i] = counting;
+            }
+        }
+        return conditions.toArray(new CountingCondition[0]);
+    }
+
+    private static final class CountingCondition implements BooleanSupplier {
+        private final BooleanSupplier condition;
+        private int evaluations;
+
+        CountingCondition(BooleanSupplier condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public boolean getAsBoolean() {
+            evaluations++;
+            return condition.getAsBoolean();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package testkit;
+
+import com.osmb.api.ScriptCore;
+import com.osmb.api.item.ItemSearchResult;
+import com.osmb.api.location.position.types.WorldPosition;
+import com.osmb.api.script.Script;
+import com.osmb.api.shape.Polygon;
+import com.osmb.api.shape.Rectangle;
+import com.osmb.api.utils.UIResult;
+
+import java.awt.Point;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Feeds a {@link SessionRecorder} log back to a script. Calls are matched per proxy and method in recorded order,
+ * so a script that makes the same decisions sees exactly what it saw live, and frame-wait conditions are evaluated
+ * as many times as the client evaluated them. A call with nothing left to replay returns the type's empty value
+ * and counts as a miss; misses mean the script took a different path than during recording (code reading
+ * System.currentTimeMillis() or its own Random is the usual cause).
+ * <p>
+ * Only the recorded poll thread is replayed: the thread that waited on frames most often (painting never waits),
+ * or the one that made the most calls if none did. Calls from other threads, such as the client's paint thread,
+ * are dropped at load, since they interleave with polling differently on every run. Every call made on the
+ * replay's core, from whichever thread, is served from the poll thread's calls.
+ * <p>
+ * All values are decoded up front, so {@link #profile} measures only the script's own work per poll:
+ * <pre>
+ * SessionReplay replay = SessionReplay.load(Path.of("session.osmr"));
+ * SessionReplay.Profile profile = replay.profile(new MyScript(replay.scriptCore()), 10_000);
+ * </pre>
+ */
+public final class SessionReplay {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * @param allocatedBytes bytes allocated by the polling thread across all polls, or -1 if the JVM can't tell
+     */
+    public record Profile(int polls, long totalNanos, long p50Nanos, long p99Nanos, long maxNanos, long allocatedBytes,
+                          long misses, long remaining) {
+        public long bytesPerPoll() {
+            return polls == 0 || allocatedBytes < 0 ? 0 : allocatedBytes / polls;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d polls, p50 %.1fus, p99 %.1fus, max %.1fus, %d B/poll, %d misses, %d unreplayed",
+                polls, p50Nanos / 1_000.0, p99Nanos / 1_000.0, maxNanos / 1_000.0, bytesPerPoll(), misses, remaining);
+        }
+    }
+
+    private record Call(int[] evaluations, Object value) {}
+
+    private record Recorded(int thread, long key, Call call) {}
+
+    private final Map<Long, ArrayDeque<Call>> calls = new HashMap<>();
+    private final Map<String, Integer> methods = new HashMap<>();
+    private final Map<Integer, Object> proxies = new HashMap<>();
+    private final ScriptCore core;
+    private final String pollThread;
+    private final long otherThreadCalls;
+    private long remaining;
+    private long misses;
+
+    private SessionReplay(SessionLog.Reader log) throws IOException {
+        core = (ScriptCore) proxy(0, ScriptCore.class.getName());
+        Map<Integer, String> threadNames = new HashMap<>();
+        List<Recorded> recorded = new ArrayList<>();
+        try {
+            for (int tag = log.readTag(); tag == SessionLog.CALL || tag == SessionLog.THREAD; tag = log.readTag()) {
+                if (tag == SessionLog.THREAD) {
+                    int slot = log.readInt();
+                    threadNames.put(slot, log.readString());
+                    continue;
+                }
+                int thread = log.readInt();
+                int target = log.readInt();
+                String method = log.readString();
+                int[] evaluations = new int[log.readInt()];
+                for (int i = 0; i < evaluations.length; i++) {
+                    evaluations[i] = log.readInt();
+                }
+                Object value = read(log);
+                Integer index = methods.computeIfAbsent(method, name -> methods.size());
+                recorded.add(new Recorded(thread, key(target, index), new Call(evaluations, value)));
+            }
+        } catch (EOFException e) {
+            // The recorder never closed the log; everything up to the last complete record is usable
+        }
+
+        int poll = pollThread(recorded);
+        long other = 0;
+        for (Recorded call : recorded) {
+            if (call.thread == poll) {
+                calls.computeIfAbsent(call.key, k -> new ArrayDeque<>()).add(call.call);
+                remaining++;
+            } else {
+                other++;
+            }
+        }
+        pollThread = threadNames.get(poll);
+        otherThreadCalls = other;
+    }
+
+    // Frame waits count for far more than plain reads, so they decide whenever any thread waited
+    private static int pollThread(List<Recorded> recorded) {
+        Map<Integer, Long> scores = new HashMap<>();
+        int poll = -1;
+        for (Recorded call : recorded) {
+            long score = scores.merge(call.thread, call.call.evaluations.length > 0 ? 1L << 32 : 1L, Long::sum);
+            if (poll < 0 || score > scores.get(poll)) {
+                poll = call.thread;
+            }
+        }
+        return poll;
+    }
+
+    public static SessionReplay load(Path file) {
+        try (InputStream in = Files.newInputStream(file); SessionLog.Reader log = new SessionLog.Reader(in)) {
+            return new SessionReplay(log);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ScriptCore scriptCore() {
+        return core;
+    }
+
+    /**
+     * Name of the recorded thread being replayed, or null for an empty log.
+     */
+    public String pollThread() {
+        return pollThread;
+    }
+
+    /**
+     * Calls recorded on other threads, which this replay leaves out.
+     */
+    public long otherThreadCalls() {
+        return otherThreadCalls;
+    }
+
+    public synchronized long remaining() {
+        return remaining;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Polls {@code script} until the log runs out or {@code maxPolls} is reached, timing each poll.
+     */
+    public Profile profile(Script script, int maxPolls) {
+        com.sun.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean()
+            instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported() ? bean : null;
+        long[] nanos = new long[maxPolls];
+        long startMisses = misses();
+        long startBytes = threads != null ? threads.getCurrentThreadAllocatedBytes() : -1;
+        int polls = 0;
+        long total = 0;
+        while (polls < maxPolls && remaining() > 0) {
+            long start = System.nanoTime();
+            script.poll();
+            nanos[polls] = System.nanoTime() - start;
+            total += nanos[polls];
+            polls++;
+        }
+        long allocated = threads != null ? threads.getCurrentThreadAllocatedBytes() - startBytes : -1;
+        long[] sorted = Arrays.copyOf(nanos, polls);
+        Arrays.sort(sorted);
+        return new Profile(polls, total, percentile(sorted, 0.5), percentile(sorted, 0.99),
+            polls == 0 ? 0 : sorted[polls - 1], allocated, misses() - startMisses, remaining());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static long key(int target, int method) {
+        return ((long) target << 32) | method;
+    }
+
+    private synchronized Call next(int target, String method) {
+        Integer index = methods.get(method);
+        ArrayDeque<Call> queue = index == null ? null : calls.get(key(target, index));
+        Call call = queue == null ? null : queue.poll();
+        if (call == null) {
+            misses++;
+        } else {
+            remaining--;
+        }
+        return call;
+    }
+
+    private Object proxy(int id, String type) {
+        return proxies.computeIfAbsent(id, key -> {
+            Class<?> api = load(type);
+            return Proxy.newProxyInstance(api.getClassLoader(), new Class<?>[]{api}, new Replaying(id));
+        });
+    }
+
+    private Object read(SessionLog.Reader log) throws IOException {
+        int tag = log.readTag();
+        switch (tag) {
+            case SessionLog.NULL:
+                return null;
+            case SessionLog.TRUE:
+                return true;
+            case SessionLog.FALSE:
+                return false;
+            case SessionLog.INT:
+                return log.readInt();
+            case SessionLog.LONG:
+                return log.readLong();
+            case SessionLog.FLOAT:
+                return log.readFloat();
+            case SessionLog.DOUBLE:
+                return log.readDouble();
+            case SessionLog.STRING:
+                return log.readString();
+            case SessionLog.ENUM:
+                return enumConstant(load(log.readString()), log.readString());
+            case SessionLog.POSITION:
+                return new WorldPosition(log.readInt(), log.readInt(), log.readInt());
+            case SessionLog.RECTANGLE:
+                return readRectangle(log);
+            case SessionLog.POINT:
+                return new Point(log.readInt(), log.readInt());
+            case SessionLog.POLYGON: {
+                int vertices = log.readInt();
+                Rectangle bounds = (Rectangle) read(log);
+                Polygon[] polygon = new Polygon[1];
+                polygon[0] = Fakes.of(Polygon.class)
+                    .returns("numVertices", vertices)
+                    .returns("getBounds", bounds)
+                    .on("getResized", args -> polygon[0])
+                    .build();
+                return polygon[0];
+            }
+            case SessionLog.RESULT: {
+                boolean found = log.readTag() == SessionLog.TRUE;
+                boolean visible = log.readTag() == SessionLog.FALSE;
+                Object value = read(log);
+                return found ? UIResult.of(value) : visible ? Fakes.result(null, false, true) : UIResult.notVisible();
+            }
+            case SessionLog.RESULT_LIST: {
+                boolean found = log.readTag() == SessionLog.TRUE;
+                boolean visible = log.readTag() == SessionLog.FALSE;
+                return Fakes.resultList((List<?>) read(log), found, visible);
+            }
+            case SessionLog.ITEM_GROUP: {
+                int freeSlots = log.readInt();
+                List<ItemSearchResult> items = new ArrayList<>();
+                for (int i = log.readInt(); i > 0; i--) {
+                    items.add(readItem(log));
+                }
+                return FakeInventory.group(items, freeSlots);
+            }
+            case SessionLog.ITEM:
+                return readItem(log);
+            case SessionLog.LIST: {
+                int size = log.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(read(log));
+                }
+                return list;
+            }
+            case SessionLog.INT_ARRAY: {
+                int[] array = new int[log.readInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = log.readInt();
+                }
+                return array;
+            }
+            case SessionLog.ARRAY: {
+                Class<?> component = load(log.readString());
+                Object array = Array.newInstance(component, log.readInt());
+                for (int i = 0; i < Array.getLength(array); i++) {
+                    Array.set(array, i, read(log));
+                }
+                return array;
+            }
+            case SessionLog.REF:
+                return proxy(log.readInt(), log.readString());
+            case SessionLog.UNRECORDED:
+                log.readString();
+                return null;
+            case -1:
+                throw new EOFException();
+            default:
+                throw new IOException("Unknown tag " + tag);
+        }
+    }
+
+    // Item actions aren't calls on a proxy, so the replay assumes they worked
+    private ItemSearchResult readItem(SessionLog.Reader log) throws IOException {
+        int id = log.readInt();
+        int slot = log.readInt();
+        int amount = log.readInt();
+        Rectangle bounds = (Rectangle) read(log);
+        return FakeInventory.item(id, slot, amount, bounds, option -> true);
+    }
+
+    private static Rectangle readRectangle(SessionLog.Reader log) throws IOException {
+        return new Rectangle(log.readInt(), log.readInt(), log.readInt(), log.readInt());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(Class<?> type, String name) {
+        return Enum.valueOf((Class<Enum>) type, name);
+    }
+
+    private static Class<?> load(String name) {
+        try {
+            return Class.forName(name, false, SessionReplay.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Session log refers to missing class " + name, e);
+        }
+    }
+
+    private static Object emptyValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type == List.class ? List.of() : null;
+        }
+        if (type == boolean.class) {
+            return false;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == char.class) {
+            return (char) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    private final class Replaying implements InvocationHandler {
+        private final int id;
+
+        Replaying(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "replayed #" + id;
+                };
+            }
+            Class<?> type = method.getReturnType();
+            if (type == void.class) {
+                return null;
+            }
+            Call call = next(id, method.getName());
+            if (call == null) {
+                return emptyValue(type);
+            }
+            evaluateConditions(call.evaluations, args == null ? NO_ARGS : args);
+            return call.value == null && type.isPrimitive() ? emptyValue(type) : call.value;
+        }
+    }
+
+    private static void evaluateConditions(int[] evaluations, Object[] args) {
+        int next = 0;
+        for (Object arg : args) {
+            if (next == evaluations.length) {
+                return;
+            }
+            if (arg instanceof BooleanSupplier condition) {
+                for (int i = evaluations[next++]; i > 0; i--) {
+                    condition.getAsBoolean();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package testkit;
+
+import com.osmb.api.script.Script;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drives a script's poll loop against a {@link FakeWorld}, advancing virtual time by each poll's returned delay
+ * (at least one frame). Stops after {@code maxPolls}, when the script stops itself, or once {@code until} holds.
+ * Only the world's clock advances; tasks gated on wall time are not supported (see {@link FakeWorld}).
+ */
+public final class TaskLoop {
+    /**
+     * @param wallNanos real time spent inside the loop, for benchmarking task logic
+     */
+    public record Result(int polls, long virtualMs, long wallNanos, boolean stopped) {
+        public double wallMicrosPerPoll() {
+            return polls == 0 ? 0 : wallNanos / 1_000.0 / polls;
+        }
+    }
+
+    private TaskLoop() {
+    }
+
+    public static Result run(Script script, FakeWorld world, int maxPolls) {
+        return run(script, world, maxPolls, () -> false);
+    }
+
+    public static Result run(Script script, FakeWorld world, int maxPolls, BooleanSupplier until) {
+        long startMs = world.nowMs();
+        long startNanos = System.nanoTime();
+        int polls = 0;
+        while (polls < maxPolls && !world.isStopped() && !until.getAsBoolean()) {
+            int delay = script.poll();
+            polls++;
+            world.advance(Math.max(FakeWorld.FRAME_MS, delay));
+        }
+        return new Result(polls, world.nowMs() - startMs, System.nanoTime() - startNanos, world.isStopped());
+    }
+}